@@ -17,8 +17,9 @@ import life.qbic.portal.sampletracking.view.samples.SampleView
 import life.qbic.portal.utils.ConfigurationManager
 import life.qbic.portal.utils.ConfigurationManagerFactory
 
-import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.time.Duration
 
 import static java.util.Objects.requireNonNull
 
@@ -39,17 +40,51 @@ class DependencyManager {
 
     private Subscriber subscriptionUser
 
-    private static final int PROJECT_LOADING_THREAD_COUNT = 2
-    private static final int SAMPLE_LOADING_THREAD_COUNT = 2
-    private final ExecutorService projectLoadingExecutor = Executors.newFixedThreadPool(PROJECT_LOADING_THREAD_COUNT)
-    private final ExecutorService sampleLoadingExecutor = Executors.newFixedThreadPool(SAMPLE_LOADING_THREAD_COUNT)
+    // defaults of the settings that can be overridden in the portlet properties
+    private static final ConnectionPoolSettings SAMPLE_TRACKING_POOL_SETTINGS = new ConnectionPoolSettings(
+            50,
+            50,
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(1),
+            Duration.ofSeconds(5),
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(10))
+    private static final int MAX_CONCURRENT_PROJECT_STATUS_REQUESTS = 20
+    private static final CacheSettings SAMPLE_TRACKING_CACHE_SETTINGS = new CacheSettings(
+            500,
+            Duration.ofMinutes(30),
+            Duration.ofMinutes(5),
+            RefreshMode.INCREMENTAL)
+    // a data directory of the server user, temporary directories may be cleared on restart
+    private static final Path STATUS_SNAPSHOT_FILE = Paths.get(System.getProperty("user.home"),
+            ".sample-tracking-status-overview", "status-snapshot.bin")
+    private static final Duration STATUS_SNAPSHOT_INTERVAL = Duration.ofMinutes(10)
+    private static final int OPENBIS_SAMPLE_PAGE_SIZE = 5_000
+    private static final SampleLoading OPENBIS_SHARED_SAMPLE_LOADING = SampleLoading.PARTITIONED
+    private static final List<String> OPENBIS_NGS_SAMPLE_TYPES = ["DNA", "RNA", "AMPLICON", "R_RNA",
+            "M_RNA", "SINGLE_NUCLEI", "CF_DNA"].asImmutable()
+    private static final int OPENBIS_PARALLEL_SEARCHES = 4
+    private static final Duration OPENBIS_SESSION_CHECK_INTERVAL = Duration.ofMinutes(1)
+    private static final Duration OPENBIS_REFRESH_INTERVAL = Duration.ofMinutes(15)
 
+    private final ConnectionPoolSettings sampleTrackingPoolSettings
+    private final int maxConcurrentProjectStatusRequests
+    private final CacheSettings sampleTrackingCacheSettings
+    private final Path statusSnapshotFile
+    private final Duration statusSnapshotInterval
+    private final int openBisSamplePageSize
+    private final SampleLoading openBisSharedSampleLoading
+    private final List<String> openBisNgsSampleTypes
+    private final int openBisParallelSearches
+    private final Duration openBisSessionCheckInterval
+    private final Duration openBisRefreshInterval
 
-  private OpenBisConnector openBisConnector
+  private AuthorizedOpenBisRepository openBisRepository
   private ProjectStatusComponentProvider projectStatusComponentProvider
   private SampleStatusComponentProvider sampleStatusComponentProvider
   private SubscriptionCheckboxProvider subscriptionCheckboxProvider
   private SampleTrackingConnector sampleTrackingConnector
+  private AuthorizedStatusProvider authorizedStatusProvider
   private SubscriptionDatabaseConnector subscriptionDatabaseConnector
   private NotificationCenter notificationCenter
 
@@ -58,6 +93,32 @@ class DependencyManager {
         subscriptionUser = subscriberFor(portalUser)
         // Load the app environment configuration
         configurationManager = ConfigurationManagerFactory.getInstance()
+        PortletSettings settings = PortletSettings.load()
+        sampleTrackingPoolSettings = new ConnectionPoolSettings(
+                settings.positiveInt("sampletracking.pool.max-total", SAMPLE_TRACKING_POOL_SETTINGS.maxTotal()),
+                settings.positiveInt("sampletracking.pool.max-per-route", SAMPLE_TRACKING_POOL_SETTINGS.maxPerRoute()),
+                settings.duration("sampletracking.pool.keep-alive", SAMPLE_TRACKING_POOL_SETTINGS.keepAlive()),
+                settings.duration("sampletracking.pool.idle-eviction", SAMPLE_TRACKING_POOL_SETTINGS.idleEviction()),
+                settings.duration("sampletracking.pool.connect-timeout", SAMPLE_TRACKING_POOL_SETTINGS.connectTimeout()),
+                settings.duration("sampletracking.pool.response-timeout", SAMPLE_TRACKING_POOL_SETTINGS.responseTimeout()),
+                settings.duration("sampletracking.pool.lease-timeout", SAMPLE_TRACKING_POOL_SETTINGS.leaseTimeout()))
+        maxConcurrentProjectStatusRequests = settings.positiveInt("sampletracking.max-concurrent-requests",
+                MAX_CONCURRENT_PROJECT_STATUS_REQUESTS)
+        sampleTrackingCacheSettings = new CacheSettings(
+                settings.positiveInt("sampletracking.cache.max-projects", SAMPLE_TRACKING_CACHE_SETTINGS.maximumSize()),
+                settings.duration("sampletracking.cache.expire-after", SAMPLE_TRACKING_CACHE_SETTINGS.expireAfterWrite()),
+                settings.duration("sampletracking.cache.refresh-after", SAMPLE_TRACKING_CACHE_SETTINGS.refreshAfterWrite()),
+                settings.enumValue("sampletracking.cache.refresh-mode", RefreshMode, SAMPLE_TRACKING_CACHE_SETTINGS.refreshMode()))
+        statusSnapshotFile = settings.path("sampletracking.snapshot.file", STATUS_SNAPSHOT_FILE)
+        statusSnapshotInterval = settings.duration("sampletracking.snapshot.interval", STATUS_SNAPSHOT_INTERVAL)
+        openBisSamplePageSize = settings.positiveInt("openbis.sample-page-size", OPENBIS_SAMPLE_PAGE_SIZE)
+        openBisSharedSampleLoading = settings.enumValue("openbis.shared-sample-loading", SampleLoading,
+                OPENBIS_SHARED_SAMPLE_LOADING)
+        openBisNgsSampleTypes = settings.list("openbis.ngs-sample-types", OPENBIS_NGS_SAMPLE_TYPES)
+        openBisParallelSearches = settings.positiveInt("openbis.parallel-searches", OPENBIS_PARALLEL_SEARCHES)
+        openBisSessionCheckInterval = settings.duration("openbis.session-check-interval",
+                OPENBIS_SESSION_CHECK_INTERVAL)
+        openBisRefreshInterval = settings.duration("openbis.refresh-interval", OPENBIS_REFRESH_INTERVAL)
 
         initializeDependencies()
     }
@@ -94,20 +155,68 @@ class DependencyManager {
             user: configurationManager.getDataSourceUser(),
             password: configurationManager.getDataSourcePassword()
     )
-    this.openBisConnector = new OpenBisConnector(openBisCredentials, portalUser, configurationManager.getDataSourceUrl() + "/openbis/openbis")
+    // the session of the user is reused by later pages; the first page logs in in the background
+    OpenBisSession session = openBisSessions(openBisCredentials).sessionOf(portalUser)
+    session.prepare(StatusCacheService.refreshScheduler())
+    // the user's projects are searched again when read after the interval, nothing is scheduled per session
+    this.openBisRepository = new AuthorizedOpenBisRepository(sharedOpenBisIndex(openBisCredentials), session,
+            openBisRefreshInterval)
   }
 
+  /**
+   * The projects and NGS samples of openBIS are read with the service user once for all
+   * sessions and refreshed by a single scheduled job. Sessions only see the projects of their
+   * user, see {@link AuthorizedOpenBisRepository}.
+   */
+  private OpenBisConnector sharedOpenBisIndex(Credentials openBisCredentials) {
+    return StatusCacheService.openBisIndex({
+      OpenBisConnector sharedIndex = new OpenBisConnector(
+              openBisSessions(openBisCredentials).serviceSession(), openBisSamplePageSize,
+              openBisSharedSampleLoading, openBisNgsSampleTypes,
+              StatusCacheService.searchExecutor(openBisParallelSearches))
+      sharedIndex.startRefreshing(StatusCacheService.refreshScheduler(), openBisRefreshInterval)
+      return sharedIndex
+    })
+  }
+
+  /**
+   * The sample tracking connector and its caches are shared by all sessions. It looks up NGS
+   * samples in the shared openBIS index, authorization is checked per user by the
+   * {@link AuthorizedStatusProvider}.
+   */
   private void setupSampleTracking() {
     if (Objects.nonNull(sampleTrackingConnector)) {
       return
     }
+    StatusCacheService.init({ createSampleTrackingConnector() }, statusSnapshotFile,
+            statusSnapshotInterval)
+    sampleTrackingConnector = StatusCacheService.getInstance()
+    authorizedStatusProvider = new AuthorizedStatusProvider(sampleTrackingConnector,
+            getProjectRepository(), portalUser.emailAddress, StatusCacheService.exportHistory())
+  }
+
+  private OpenBisSessionManager openBisSessions(Credentials openBisCredentials) {
+    return StatusCacheService.openBisSessions({
+      new OpenBisSessionManager(configurationManager.getDataSourceUrl() + "/openbis/openbis",
+              openBisCredentials, openBisSessionCheckInterval)
+    })
+  }
+
+  private SampleTrackingConnector createSampleTrackingConnector() {
     def credentials = new Credentials(configurationManager.getServiceUser().name,
             configurationManager.getServiceUser().password)
-    sampleTrackingConnector = new SampleTrackingConnector(configurationManager.getSampleTrackingServiceUrl(),
+    Credentials openBisCredentials = new Credentials(
+            user: configurationManager.getDataSourceUser(),
+            password: configurationManager.getDataSourcePassword()
+    )
+    OpenBisConnector sharedNgsSampleRepository = sharedOpenBisIndex(openBisCredentials)
+    return new SampleTrackingConnector(configurationManager.getSampleTrackingServiceUrl(),
             "/v2/samples",
             "/status",
             "/v2/projects",
-            credentials, getNgsSampleRepository())
+            credentials, sharedNgsSampleRepository, sampleTrackingPoolSettings,
+            maxConcurrentProjectStatusRequests, sampleTrackingCacheSettings,
+            StatusCacheService.lookupExecutor(maxConcurrentProjectStatusRequests))
   }
 
     /**
@@ -121,18 +230,18 @@ class DependencyManager {
     }
 
   ProjectRepository getProjectRepository() {
-    return openBisConnector
+    return openBisRepository
   }
 
   SampleRepository getSampleRepository() {
-    return openBisConnector
+    return openBisRepository
   }
 
   SampleStatusComponentProvider getSampleStatusComponentProvider() {
     if (Objects.nonNull(sampleStatusComponentProvider)) {
       return sampleStatusComponentProvider
     }
-    sampleStatusComponentProvider = new SampleStatusComponentProvider(sampleLoadingExecutor, getSampleStatusProvider())
+    sampleStatusComponentProvider = new SampleStatusComponentProvider(getSampleStatusProvider())
     return sampleStatusComponentProvider
   }
 
@@ -140,15 +249,15 @@ class DependencyManager {
     if (Objects.nonNull(projectStatusComponentProvider)) {
       return projectStatusComponentProvider
     }
-    projectStatusComponentProvider = new ProjectStatusComponentProvider(projectLoadingExecutor, getProjectStatusProvider())
+    projectStatusComponentProvider = new ProjectStatusComponentProvider(getProjectStatusProvider())
     return projectStatusComponentProvider
   }
   SampleStatusProvider getSampleStatusProvider() {
-    return sampleTrackingConnector
+    return authorizedStatusProvider
   }
 
   ProjectStatusProvider getProjectStatusProvider() {
-    return sampleTrackingConnector
+    return authorizedStatusProvider
   }
 
   SubscriptionRepository getSubscriptionRepository() {
@@ -171,11 +280,11 @@ class DependencyManager {
     return notificationCenter
   }
 
-  DownloadManifestProvider getDownloadManifestProvider() {
-    return sampleTrackingConnector
+  NewDataManifestProvider getDownloadManifestProvider() {
+    return authorizedStatusProvider
   }
 
   NgsSampleRepository getNgsSampleRepository() {
-    return openBisConnector
+    return openBisRepository
   }
 }
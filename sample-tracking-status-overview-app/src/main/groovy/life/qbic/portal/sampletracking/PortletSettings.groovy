@@ -0,0 +1,187 @@
+package life.qbic.portal.sampletracking
+
+import groovy.transform.CompileStatic
+import org.apache.logging.log4j.LogManager
+import org.apache.logging.log4j.Logger
+
+import java.nio.file.Files
+import java.nio.file.InvalidPathException
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.time.Duration
+import java.time.format.DateTimeParseException
+
+/**
+ * <h1>Optional settings of the portlet</h1>
+ *
+ * <p>The settings are read from the same files as the portlet configuration: the
+ * {@code portlet.properties} on the classpath, the file it includes with
+ * {@code include-and-override} and, when testing locally, the {@code developer.properties} on the
+ * classpath. Later files override earlier ones.</p>
+ *
+ * <p>Every setting has a default. A setting that is missing or cannot be read falls back to its
+ * default, an unreadable value is logged. Durations are given in ISO-8601 format, e.g.
+ * {@code PT30S} or {@code PT15M}.</p>
+ *
+ * @since 1.2.0
+ */
+@CompileStatic
+class PortletSettings {
+
+    private static final Logger log = LogManager.getLogger(PortletSettings.class)
+    private static final String INCLUDED_PROPERTIES_KEY = "include-and-override"
+
+    private final Properties properties
+
+    /**
+     * @param properties the properties to read the settings from
+     * @since 1.2.0
+     */
+    PortletSettings(Properties properties) {
+        this.properties = Objects.requireNonNull(properties)
+    }
+
+    /**
+     * Reads the settings from the portlet configuration files
+     * @return the settings of the portlet
+     * @since 1.2.0
+     */
+    static PortletSettings load() {
+        Properties properties = new Properties()
+        loadResource(properties, QBiCPortletUI.PORTLET_PROPERTIES_FILE_PATH)
+        String includedFile = properties.getProperty(INCLUDED_PROPERTIES_KEY)
+        if (includedFile) {
+            loadFile(properties, includedFile.trim())
+        }
+        loadResource(properties, QBiCPortletUI.DEVELOPER_PROPERTIES_FILE_PATH)
+        return new PortletSettings(properties)
+    }
+
+    private static void loadResource(Properties properties, String resource) {
+        InputStream inputStream = PortletSettings.class.getClassLoader().getResourceAsStream(resource)
+        if (Objects.isNull(inputStream)) {
+            return
+        }
+        try {
+            inputStream.withCloseable { properties.load(it) }
+        } catch (IOException e) {
+            log.error("Could not read settings from ${resource}. Using defaults.", e)
+        }
+    }
+
+    private static void loadFile(Properties properties, String file) {
+        try {
+            Path path = Paths.get(file)
+            if (!Files.isReadable(path)) {
+                return
+            }
+            Files.newInputStream(path).withCloseable { properties.load(it) }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not read settings from ${file}. Using defaults.", e)
+        }
+    }
+
+    /**
+     * @param key the key of the setting
+     * @param defaultValue the value used if the setting is missing or invalid
+     * @return the setting as positive number
+     * @since 1.2.0
+     */
+    int positiveInt(String key, int defaultValue) {
+        String value = value(key)
+        if (Objects.isNull(value)) {
+            return defaultValue
+        }
+        try {
+            int parsed = Integer.parseInt(value)
+            if (parsed > 0) {
+                return parsed
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        return invalid(key, value, defaultValue)
+    }
+
+    /**
+     * @param key the key of the setting
+     * @param defaultValue the value used if the setting is missing or invalid
+     * @return the setting as positive duration in ISO-8601 format
+     * @since 1.2.0
+     */
+    Duration duration(String key, Duration defaultValue) {
+        String value = value(key)
+        if (Objects.isNull(value)) {
+            return defaultValue
+        }
+        try {
+            Duration parsed = Duration.parse(value)
+            if (!parsed.isNegative() && !parsed.isZero()) {
+                return parsed
+            }
+        } catch (DateTimeParseException ignored) {
+            // reported below
+        }
+        return invalid(key, value, defaultValue)
+    }
+
+    /**
+     * @param key the key of the setting
+     * @param type the enum the setting names a constant of
+     * @param defaultValue the value used if the setting is missing or invalid
+     * @return the enum constant named by the setting, ignoring case
+     * @since 1.2.0
+     */
+    public <E extends Enum<E>> E enumValue(String key, Class<E> type, E defaultValue) {
+        String value = value(key)
+        if (Objects.isNull(value)) {
+            return defaultValue
+        }
+        E constant = type.getEnumConstants().find { it.name().equalsIgnoreCase(value) }
+        return Objects.nonNull(constant) ? constant : invalid(key, value, defaultValue)
+    }
+
+    /**
+     * @param key the key of the setting
+     * @param defaultValue the value used if the setting is missing or empty
+     * @return the comma separated values of the setting
+     * @since 1.2.0
+     */
+    List<String> list(String key, List<String> defaultValue) {
+        String value = value(key)
+        if (Objects.isNull(value)) {
+            return defaultValue
+        }
+        List<String> values = value.split(",").collect { it.trim() }.findAll { it }
+        return values ? values.asImmutable() : invalid(key, value, defaultValue)
+    }
+
+    /**
+     * @param key the key of the setting
+     * @param defaultValue the value used if the setting is missing or invalid
+     * @return the setting as path
+     * @since 1.2.0
+     */
+    Path path(String key, Path defaultValue) {
+        String value = value(key)
+        if (Objects.isNull(value)) {
+            return defaultValue
+        }
+        try {
+            return Paths.get(value)
+        } catch (InvalidPathException ignored) {
+            return invalid(key, value, defaultValue)
+        }
+    }
+
+    private String value(String key) {
+        String value = properties.getProperty(key)?.trim()
+        return value ? value : null
+    }
+
+    private static <T> T invalid(String key, String value, T defaultValue) {
+        log.warn(String.format("Invalid value '%s' of setting %s. Using the default %s.", value, key,
+                defaultValue))
+        return defaultValue
+    }
+}
@@ -0,0 +1,23 @@
+package life.qbic.portal.sampletracking;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import life.qbic.portal.sampletracking.data.StatusCacheService;
+
+/**
+ * Closes the status cache shared by all sessions when the application is undeployed.
+ *
+ * @since 1.2.0
+ */
+public class StatusCacheServiceListener implements ServletContextListener {
+
+  @Override
+  public void contextInitialized(ServletContextEvent servletContextEvent) {
+    // the shared cache is created with the first session
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent servletContextEvent) {
+    StatusCacheService.shutdown();
+  }
+}
@@ -0,0 +1,125 @@
+package life.qbic.portal.sampletracking.data;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import life.qbic.portal.sampletracking.view.projects.viewmodel.Project;
+import life.qbic.portal.sampletracking.view.samples.viewmodel.Sample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides projects and NGS samples from an index shared between users, restricted to the
+ * projects a user can see in openBIS.
+ *
+ * <p>The shared index is loaded and refreshed by its own connector. The projects a user can see
+ * are found with one project search in the openBIS session of the user, without searching any
+ * sample. The search is repeated when the projects are read after the refresh interval, so no
+ * background work runs per user. If the repeated search fails, the projects found before are
+ * used until the next read.</p>
+ *
+ * @since 1.2.0
+ */
+public final class AuthorizedOpenBisRepository implements ProjectRepository, SampleRepository,
+    NgsSampleRepository {
+
+  private static final Logger log = LoggerFactory.getLogger(AuthorizedOpenBisRepository.class);
+
+  private final OpenBisConnector sharedIndex;
+  private final OpenBisSession userSession;
+  private final long refreshIntervalNanos;
+  private final LongSupplier nanoClock;
+  private volatile Set<String> visibleProjectCodes;
+  private volatile long searchedAt;
+
+  /**
+   * @param sharedIndex     the projects and NGS samples shared between users
+   * @param userSession     the openBIS session of the user
+   * @param refreshInterval the time after which the projects of the user are searched again
+   */
+  public AuthorizedOpenBisRepository(OpenBisConnector sharedIndex, OpenBisSession userSession,
+      Duration refreshInterval) {
+    this(sharedIndex, userSession, refreshInterval, System::nanoTime);
+  }
+
+  AuthorizedOpenBisRepository(OpenBisConnector sharedIndex, OpenBisSession userSession,
+      Duration refreshInterval, LongSupplier nanoClock) {
+    this.sharedIndex = Objects.requireNonNull(sharedIndex);
+    this.userSession = Objects.requireNonNull(userSession);
+    this.refreshIntervalNanos = refreshInterval.toNanos();
+    this.nanoClock = Objects.requireNonNull(nanoClock);
+  }
+
+  private Set<String> visibleProjectCodes() {
+    Set<String> current = visibleProjectCodes;
+    if (Objects.nonNull(current) && nanoClock.getAsLong() - searchedAt < refreshIntervalNanos) {
+      return current;
+    }
+    return searchVisibleProjects(current);
+  }
+
+  /*
+   * Readers that find the same outdated projects search only once; the others use the result.
+   */
+  private synchronized Set<String> searchVisibleProjects(Set<String> outdated) {
+    Set<String> current = visibleProjectCodes;
+    if (current != outdated) {
+      return current;
+    }
+    Set<String> found;
+    try {
+      found = userSession.call(token -> userSession.api().searchProjects(token,
+          OpenBisQueries.allProjects(), OpenBisQueries.projects())).getObjects().stream()
+          .map(project -> project.getCode())
+          .collect(toSet());
+    } catch (RuntimeException e) {
+      if (Objects.isNull(outdated)) {
+        throw e;
+      }
+      log.warn(String.format("Could not search the openBIS projects of the user: %s",
+          e.getMessage()));
+      return outdated;
+    }
+    visibleProjectCodes = Collections.unmodifiableSet(found);
+    searchedAt = nanoClock.getAsLong();
+    return visibleProjectCodes;
+  }
+
+  @Override
+  public List<Project> findAllProjects() {
+    Set<String> visible = visibleProjectCodes();
+    return sharedIndex.findAllProjects().stream()
+        .filter(project -> visible.contains(project.code()))
+        .collect(toList());
+  }
+
+  @Override
+  public boolean containsProject(String projectCode) {
+    return visibleProjectCodes().contains(projectCode) && sharedIndex.containsProject(projectCode);
+  }
+
+  @Override
+  public List<Sample> findAllSamplesForProject(String projectCode) {
+    return containsProject(projectCode) ? sharedIndex.findAllSamplesForProject(projectCode)
+        : Collections.emptyList();
+  }
+
+  @Override
+  public List<String> findNGSSamplesForProject(String projectCode) {
+    return containsProject(projectCode) ? sharedIndex.findNGSSamplesForProject(projectCode)
+        : Collections.emptyList();
+  }
+
+  @Override
+  public LongPredicate findPackedNGSSamplesForProject(String projectCode) {
+    return containsProject(projectCode) ? sharedIndex.findPackedNGSSamplesForProject(projectCode)
+        : packedCode -> false;
+  }
+}
@@ -0,0 +1,160 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import life.qbic.business.download.ManifestFilter;
+import life.qbic.business.samples.SampleCode;
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
+
+/**
+ * Provides statuses from a shared connector, restricted to the projects a user can access.
+ *
+ * <p>The projects a user can access are the projects the user's own project repository lists.
+ * The repository is asked on every lookup, so projects the user gains or loses access to with a
+ * refresh of the repository are honoured at once. Lookups of other projects and their samples
+ * behave as if the project was unknown.</p>
+ *
+ * <p>Each complete and each "new data only" manifest written for a user is recorded in the export
+ * history with the latest status time of its samples. A "new data only" manifest contains the
+ * samples whose status became valid after the recorded time, so together with the earlier
+ * exports the user downloaded every available sample up to the newly recorded time. Manifests
+ * limited to a subset of samples are not recorded, as they may leave out samples the user never
+ * downloaded.</p>
+ *
+ * <p>The cutoff of a "new data only" manifest is exclusive: samples whose status became valid at
+ * exactly the recorded time were part of the recorded export and are not written again.</p>
+ *
+ * @since 1.2.0
+ */
+public class AuthorizedStatusProvider implements ProjectStatusProvider, SampleStatusProvider,
+    NewDataManifestProvider {
+
+  private final SampleTrackingConnector sharedConnector;
+  private final ProjectRepository userProjects;
+  private final String userId;
+  private final ManifestExportHistory exportHistory;
+
+  /**
+   * @param sharedConnector the connector shared between users
+   * @param userProjects    lists the projects of the user
+   * @param userId          identifies the user in the export history
+   * @param exportHistory   the manifest exports of all users
+   */
+  public AuthorizedStatusProvider(SampleTrackingConnector sharedConnector,
+      ProjectRepository userProjects, String userId, ManifestExportHistory exportHistory) {
+    this.sharedConnector = Objects.requireNonNull(sharedConnector);
+    this.userProjects = Objects.requireNonNull(userProjects);
+    this.userId = Objects.requireNonNull(userId);
+    this.exportHistory = Objects.requireNonNull(exportHistory);
+  }
+
+  private boolean isAuthorized(String projectCode) {
+    return userProjects.containsProject(projectCode);
+  }
+
+  private boolean isAuthorizedForSample(String sampleCode) {
+    return SampleCode.isValid(sampleCode) && isAuthorized(SampleCode.projectCodeOf(sampleCode));
+  }
+
+  @Override
+  public Optional<ProjectStatus> getForProject(String projectCode) {
+    return isAuthorized(projectCode) ? sharedConnector.getForProject(projectCode)
+        : Optional.empty();
+  }
+
+  @Override
+  public CompletableFuture<Optional<ProjectStatus>> getForProjectAsync(String projectCode) {
+    return isAuthorized(projectCode) ? sharedConnector.getForProjectAsync(projectCode)
+        : CompletableFuture.completedFuture(Optional.empty());
+  }
+
+  @Override
+  public Map<String, ProjectStatus> getForProjects(Collection<String> projectCodes) {
+    return getForProjectsAsync(projectCodes).join();
+  }
+
+  @Override
+  public CompletableFuture<Map<String, ProjectStatus>> getForProjectsAsync(
+      Collection<String> projectCodes) {
+    List<String> authorized = projectCodes.stream()
+        .filter(this::isAuthorized)
+        .collect(Collectors.toList());
+    if (authorized.isEmpty()) {
+      return CompletableFuture.completedFuture(Collections.emptyMap());
+    }
+    return sharedConnector.getForProjectsAsync(authorized);
+  }
+
+  @Override
+  public Optional<String> getForSample(String sampleCode) {
+    return isAuthorizedForSample(sampleCode) ? sharedConnector.getForSample(sampleCode)
+        : Optional.empty();
+  }
+
+  @Override
+  public CompletableFuture<Optional<String>> getForSampleAsync(String sampleCode) {
+    return isAuthorizedForSample(sampleCode) ? sharedConnector.getForSampleAsync(sampleCode)
+        : CompletableFuture.completedFuture(Optional.empty());
+  }
+
+  @Override
+  public ByteArrayInputStream getManifestForProject(String projectCode) {
+    return isAuthorized(projectCode) ? sharedConnector.getManifestForProject(projectCode)
+        : new ByteArrayInputStream("".getBytes());
+  }
+
+  @Override
+  public void writeManifestForProject(String projectCode, OutputStream outputStream)
+      throws IOException {
+    writeManifestForProject(projectCode, ManifestFilter.all(), outputStream);
+  }
+
+  @Override
+  public void writeManifestForProject(String projectCode, ManifestFilter filter,
+      OutputStream outputStream) throws IOException {
+    if (!isAuthorized(projectCode)) {
+      return;
+    }
+    Optional<Instant> latestStatusTime = sharedConnector.writeManifest(projectCode, filter,
+        outputStream);
+    if (filter.includesAll()) {
+      latestStatusTime.ifPresent(
+          statusTime -> exportHistory.recordExport(userId, projectCode, statusTime));
+    }
+  }
+
+  @Override
+  public void writeNewDataManifestForProject(String projectCode, OutputStream outputStream)
+      throws IOException {
+    if (!isAuthorized(projectCode)) {
+      return;
+    }
+    ManifestFilter filter = exportHistory.lastExport(userId, projectCode)
+        .map(ManifestFilter.all()::withStatusValidAfter)
+        .orElse(ManifestFilter.all());
+    sharedConnector.writeManifest(projectCode, filter, outputStream).ifPresent(
+        statusTime -> exportHistory.recordExport(userId, projectCode, statusTime));
+  }
+
+  @Override
+  public void writeManifestArchive(Collection<String> projectCodes, OutputStream outputStream)
+      throws IOException {
+    List<String> authorized = projectCodes.stream()
+        .filter(this::isAuthorized)
+        .collect(Collectors.toList());
+    Map<String, Instant> latestStatusTimes = sharedConnector.writeArchive(authorized,
+        outputStream);
+    latestStatusTimes.forEach(
+        (projectCode, statusTime) -> exportHistory.recordExport(userId, projectCode, statusTime));
+  }
+}
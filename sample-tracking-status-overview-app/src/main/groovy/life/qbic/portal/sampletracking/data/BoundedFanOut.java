@@ -0,0 +1,88 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs an asynchronous task for each key with at most a fixed number of tasks in flight.
+ *
+ * <p>A new task is started as soon as a running one completes. No thread waits for the tasks to
+ * complete. A failing task is logged and does not fail the whole fan-out.</p>
+ *
+ * @since 1.2.0
+ */
+final class BoundedFanOut<K> {
+
+  private static final Logger log = LoggerFactory.getLogger(BoundedFanOut.class);
+
+  private final List<K> keys;
+  private final Function<K, CompletableFuture<?>> task;
+  private final AtomicInteger nextIndex = new AtomicInteger();
+  private final AtomicInteger remaining;
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+  private BoundedFanOut(List<K> keys, Function<K, CompletableFuture<?>> task) {
+    this.keys = keys;
+    this.task = task;
+    this.remaining = new AtomicInteger(keys.size());
+  }
+
+  /**
+   * Runs the task for every key
+   * @param keys the keys to run the task for
+   * @param limit the maximal number of tasks running at the same time
+   * @param task the task to run for a key
+   * @param <K> the type of the keys
+   * @return a future completing when the tasks for all keys have completed
+   */
+  static <K> CompletableFuture<Void> forEach(Collection<K> keys, int limit,
+      Function<K, CompletableFuture<?>> task) {
+    if (limit < 1) {
+      throw new IllegalArgumentException(
+          String.format("The number of concurrent tasks must be positive but was %s", limit));
+    }
+    if (keys.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    BoundedFanOut<K> fanOut = new BoundedFanOut<>(new ArrayList<>(keys),
+        Objects.requireNonNull(task));
+    int initialTasks = Math.min(limit, fanOut.keys.size());
+    for (int i = 0; i < initialTasks; i++) {
+      fanOut.startNext();
+    }
+    return fanOut.completion;
+  }
+
+  private void startNext() {
+    int index = nextIndex.getAndIncrement();
+    if (index >= keys.size()) {
+      return;
+    }
+    K key = keys.get(index);
+    CompletableFuture<?> running;
+    try {
+      running = task.apply(key);
+    } catch (RuntimeException e) {
+      CompletableFuture<?> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      running = failed;
+    }
+    running.whenComplete((result, error) -> {
+      if (Objects.nonNull(error)) {
+        log.warn(String.format("Task for %s failed: %s", key, error.getMessage()));
+      }
+      if (remaining.decrementAndGet() == 0) {
+        completion.complete(null);
+      } else {
+        startNext();
+      }
+    });
+  }
+}
@@ -0,0 +1,96 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects usage metrics of a cache.
+ *
+ * @since 1.2.0
+ */
+public class CacheMetrics {
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder failedRefreshes = new LongAdder();
+
+  void recordHit() {
+    hits.increment();
+  }
+
+  void recordMiss() {
+    misses.increment();
+  }
+
+  void recordEviction() {
+    evictions.increment();
+  }
+
+  void recordExpiration() {
+    expirations.increment();
+  }
+
+  void recordRefresh() {
+    refreshes.increment();
+  }
+
+  void recordFailedRefresh() {
+    failedRefreshes.increment();
+  }
+
+  /**
+   * @return the number of lookups answered from the cache
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of lookups that did not find a valid entry
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of entries removed to keep the cache within its size bound
+   */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return the number of entries removed because they were too old
+   */
+  public long expirations() {
+    return expirations.sum();
+  }
+
+  /**
+   * @return the number of background refreshes started
+   */
+  public long refreshes() {
+    return refreshes.sum();
+  }
+
+  /**
+   * @return the number of background refreshes that failed
+   */
+  public long failedRefreshes() {
+    return failedRefreshes.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheMetrics{" +
+        "hits=" + hits() +
+        ", misses=" + misses() +
+        ", evictions=" + evictions() +
+        ", expirations=" + expirations() +
+        ", refreshes=" + refreshes() +
+        ", failedRefreshes=" + failedRefreshes() +
+        '}';
+  }
+}
@@ -0,0 +1,90 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the cache of sample statuses kept by the sample tracking connector.
+ *
+ * @since 1.2.0
+ */
+public class CacheSettings {
+
+  private static final int DEFAULT_MAXIMUM_SIZE = 500;
+  private static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(30);
+  private static final Duration DEFAULT_REFRESH_AFTER_WRITE = Duration.ofMinutes(5);
+  private static final RefreshMode DEFAULT_REFRESH_MODE = RefreshMode.FULL;
+
+  private final int maximumSize;
+  private final Duration expireAfterWrite;
+  private final Duration refreshAfterWrite;
+  private final RefreshMode refreshMode;
+
+  /**
+   * @param maximumSize       the maximum number of cached projects
+   * @param expireAfterWrite  cached projects are discarded this long after they were loaded
+   * @param refreshAfterWrite cached projects that are read this long after they were loaded are
+   *                          reloaded in the background. Must be shorter than expireAfterWrite.
+   */
+  public CacheSettings(int maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite) {
+    this(maximumSize, expireAfterWrite, refreshAfterWrite, DEFAULT_REFRESH_MODE);
+  }
+
+  /**
+   * @param maximumSize       the maximum number of cached projects
+   * @param expireAfterWrite  cached projects are discarded this long after they were loaded
+   * @param refreshAfterWrite cached projects that are read this long after they were loaded are
+   *                          reloaded in the background. Must be shorter than expireAfterWrite.
+   * @param refreshMode       whether a refresh reloads all samples or only changed ones
+   */
+  public CacheSettings(int maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+      RefreshMode refreshMode) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException(
+          String.format("The maximum cache size must be positive but was %s", maximumSize));
+    }
+    if (refreshAfterWrite.compareTo(expireAfterWrite) >= 0) {
+      throw new IllegalArgumentException(String.format(
+          "Entries must be refreshed (%s) before they expire (%s)", refreshAfterWrite,
+          expireAfterWrite));
+    }
+    this.maximumSize = maximumSize;
+    this.expireAfterWrite = Objects.requireNonNull(expireAfterWrite);
+    this.refreshAfterWrite = Objects.requireNonNull(refreshAfterWrite);
+    this.refreshMode = Objects.requireNonNull(refreshMode);
+  }
+
+  /**
+   * @return settings suitable for a single portlet instance
+   */
+  public static CacheSettings defaults() {
+    return new CacheSettings(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE,
+        DEFAULT_REFRESH_AFTER_WRITE, DEFAULT_REFRESH_MODE);
+  }
+
+  public int maximumSize() {
+    return maximumSize;
+  }
+
+  public Duration expireAfterWrite() {
+    return expireAfterWrite;
+  }
+
+  public Duration refreshAfterWrite() {
+    return refreshAfterWrite;
+  }
+
+  public RefreshMode refreshMode() {
+    return refreshMode;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheSettings{" +
+        "maximumSize=" + maximumSize +
+        ", expireAfterWrite=" + expireAfterWrite +
+        ", refreshAfterWrite=" + refreshAfterWrite +
+        ", refreshMode=" + refreshMode +
+        '}';
+  }
+}
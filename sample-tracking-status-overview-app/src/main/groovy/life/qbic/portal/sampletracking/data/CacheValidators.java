@@ -0,0 +1,89 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+
+/**
+ * The validators a response was sent with, used to ask the service whether the content changed.
+ *
+ * @since 1.2.0
+ */
+final class CacheValidators {
+
+  private static final CacheValidators NONE = new CacheValidators(null, null);
+
+  private final String entityTag;
+  private final String lastModified;
+
+  private CacheValidators(String entityTag, String lastModified) {
+    this.entityTag = entityTag;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * @return validators that never match, the content is always requested in full
+   */
+  static CacheValidators none() {
+    return NONE;
+  }
+
+  /**
+   * @param entityTag    the value of an ETag header, null if there was none
+   * @param lastModified the value of a Last-Modified header, null if there was none
+   * @return the validators with the given values
+   */
+  static CacheValidators of(String entityTag, String lastModified) {
+    if (Objects.isNull(entityTag) && Objects.isNull(lastModified)) {
+      return NONE;
+    }
+    return new CacheValidators(entityTag, lastModified);
+  }
+
+  /**
+   * @param response the response to take the ETag and Last-Modified headers from
+   * @return the validators of the response
+   */
+  static CacheValidators from(HttpResponse response) {
+    String entityTag = headerValue(response.getFirstHeader(HttpHeaders.ETAG));
+    String lastModified = headerValue(response.getFirstHeader(HttpHeaders.LAST_MODIFIED));
+    return of(entityTag, lastModified);
+  }
+
+  private static String headerValue(Header header) {
+    return Objects.isNull(header) ? null : header.getValue();
+  }
+
+  /**
+   * Makes the request conditional, so that the service answers with 304 Not Modified if the
+   * content did not change.
+   * @param request the request to add the conditional headers to
+   */
+  void applyTo(HttpRequest request) {
+    if (Objects.nonNull(entityTag)) {
+      request.setHeader(HttpHeaders.IF_NONE_MATCH, entityTag);
+    }
+    if (Objects.nonNull(lastModified)) {
+      request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+    }
+  }
+
+  Optional<String> entityTag() {
+    return Optional.ofNullable(entityTag);
+  }
+
+  Optional<String> lastModified() {
+    return Optional.ofNullable(lastModified);
+  }
+
+  @Override
+  public String toString() {
+    return "CacheValidators{" +
+        "entityTag='" + entityTag + '\'' +
+        ", lastModified='" + lastModified + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,44 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how many lookups were answered by a request that was already in flight for the same key.
+ *
+ * @since 1.2.0
+ */
+public class CoalescingMetrics {
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  void recordRequest() {
+    requests.increment();
+  }
+
+  void recordCoalesced() {
+    coalesced.increment();
+  }
+
+  /**
+   * @return the number of requests sent upstream
+   */
+  public long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * @return the number of lookups that joined a request already in flight
+   */
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "CoalescingMetrics{" +
+        "requests=" + requests() +
+        ", coalesced=" + coalesced() +
+        '}';
+  }
+}
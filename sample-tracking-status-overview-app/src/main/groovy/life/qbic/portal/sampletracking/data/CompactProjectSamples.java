@@ -0,0 +1,231 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import life.qbic.business.samples.SampleCode;
+import life.qbic.portal.sampletracking.view.samples.viewmodel.Sample;
+
+/**
+ * The samples of a project as far as they are read from openBIS: the sample code and the
+ * secondary name as label.
+ *
+ * <p>Codes and labels are kept in two arrays instead of one object per sample. The codes are
+ * stored packed as {@link SampleCode} and restored when they are read. Instances are immutable
+ * and can be shared between threads.</p>
+ *
+ * <p>Packed codes are looked up by binary search if the codes are sorted, as they are when read
+ * from openBIS page by page. Otherwise a hash set of the codes is built with the first lookup.</p>
+ *
+ * @since 1.2.0
+ */
+final class CompactProjectSamples {
+
+  private final String projectCode;
+  private final long[] sampleCodes;
+  private final String[] labels;
+  private final boolean sorted;
+  private volatile LongHashSet codeSet;
+
+  private CompactProjectSamples(String projectCode, long[] sampleCodes, String[] labels) {
+    this.projectCode = projectCode;
+    this.sampleCodes = sampleCodes;
+    this.labels = labels;
+    this.sorted = isSorted(sampleCodes);
+  }
+
+  private static boolean isSorted(long[] values) {
+    for (int i = 1; i < values.length; i++) {
+      if (values[i - 1] > values[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param projectCode the code of the project
+   * @return a project without samples
+   */
+  static CompactProjectSamples empty(String projectCode) {
+    return new CompactProjectSamples(projectCode.intern(), new long[0], new String[0]);
+  }
+
+  /**
+   * Merges the samples of a project that were read by several searches. A sample found by more
+   * than one search is kept once, with the label it was first found with.
+   * @param projectCode the code of the project
+   * @param parts       the samples of the project found by each search
+   * @return the samples of all parts without duplicates, sorted by sample code
+   */
+  static CompactProjectSamples merge(String projectCode,
+      Collection<CompactProjectSamples> parts) {
+    int size = 0;
+    for (CompactProjectSamples part : parts) {
+      size += part.size();
+    }
+    long[] allCodes = new long[size];
+    int offset = 0;
+    for (CompactProjectSamples part : parts) {
+      System.arraycopy(part.sampleCodes, 0, allCodes, offset, part.sampleCodes.length);
+      offset += part.sampleCodes.length;
+    }
+    Arrays.sort(allCodes);
+    // equal codes are next to each other once sorted
+    int count = 0;
+    for (int i = 0; i < allCodes.length; i++) {
+      if (i == 0 || allCodes[i] != allCodes[i - 1]) {
+        allCodes[count++] = allCodes[i];
+      }
+    }
+    long[] sampleCodes = Arrays.copyOf(allCodes, count);
+    // the labels are looked up by the position of their code in the sorted codes
+    String[] labels = new String[count];
+    boolean[] labelled = new boolean[count];
+    for (CompactProjectSamples part : parts) {
+      for (int i = 0; i < part.sampleCodes.length; i++) {
+        int position = Arrays.binarySearch(sampleCodes, part.sampleCodes[i]);
+        if (!labelled[position]) {
+          labels[position] = part.labels[i];
+          labelled[position] = true;
+        }
+      }
+    }
+    return new CompactProjectSamples(projectCode.intern(), sampleCodes, labels);
+  }
+
+  /**
+   * @return the code of the project
+   */
+  String projectCode() {
+    return projectCode;
+  }
+
+  /**
+   * @return the number of samples
+   */
+  int size() {
+    return sampleCodes.length;
+  }
+
+  /**
+   * @return the sample codes in the order they were added
+   */
+  List<String> sampleCodes() {
+    List<String> codes = new ArrayList<>(sampleCodes.length);
+    for (long sampleCode : sampleCodes) {
+      codes.add(SampleCode.unpack(sampleCode));
+    }
+    return codes;
+  }
+
+  /**
+   * @param index the position of the sample, in the order the samples were added
+   * @return the code of the sample packed with {@link SampleCode#pack(CharSequence)}
+   */
+  long packedCodeAt(int index) {
+    return sampleCodes[index];
+  }
+
+  /**
+   * @param index the position of the sample, in the order the samples were added
+   * @return the label of the sample, can be null
+   */
+  String labelAt(int index) {
+    return labels[index];
+  }
+
+  /**
+   * Checks whether a sample belongs to the project without unpacking any code
+   * @param packedSampleCode a sample code packed with {@link SampleCode#pack(CharSequence)}
+   * @return true if the sample is one of the samples, false otherwise
+   */
+  boolean containsPacked(long packedSampleCode) {
+    if (sorted) {
+      return Arrays.binarySearch(sampleCodes, packedSampleCode) >= 0;
+    }
+    LongHashSet codes = codeSet;
+    if (Objects.isNull(codes)) {
+      // built at most a few times if threads race, every result is equal
+      codes = new LongHashSet(sampleCodes.length);
+      for (long sampleCode : sampleCodes) {
+        codes.add(sampleCode);
+      }
+      codeSet = codes;
+    }
+    return codes.contains(packedSampleCode);
+  }
+
+  /**
+   * Creates new view models of the samples. The view models are mutable and therefore not
+   * cached.
+   * @return a new view model for every sample
+   */
+  List<Sample> toSamples() {
+    List<Sample> samples = new ArrayList<>(sampleCodes.length);
+    for (int i = 0; i < sampleCodes.length; i++) {
+      samples.add(new Sample(SampleCode.unpack(sampleCodes[i]), labels[i]));
+    }
+    return samples;
+  }
+
+  @Override
+  public String toString() {
+    return "CompactProjectSamples{" +
+        "projectCode='" + projectCode + '\'' +
+        ", size=" + size() +
+        '}';
+  }
+
+  /**
+   * Collects the samples of a project while they are read from openBIS.
+   */
+  static final class Builder {
+
+    private final String projectCode;
+    private long[] sampleCodes = new long[16];
+    private final List<String> labels = new ArrayList<>();
+
+    /**
+     * @param projectCode the code of the project. The code is interned.
+     */
+    Builder(String projectCode) {
+      this.projectCode = Objects.requireNonNull(projectCode).intern();
+    }
+
+    /**
+     * @param sampleCode the code of the sample
+     * @param label      the label of the sample, can be null
+     * @return this builder
+     * @throws IllegalArgumentException if the sample code is not valid
+     */
+    Builder add(String sampleCode, String label) {
+      return addPacked(SampleCode.pack(sampleCode), label);
+    }
+
+    /**
+     * @param packedCode the code of the sample packed with {@link SampleCode#pack(CharSequence)}
+     * @param label      the label of the sample, can be null
+     * @return this builder
+     */
+    Builder addPacked(long packedCode, String label) {
+      int index = labels.size();
+      if (index == sampleCodes.length) {
+        sampleCodes = Arrays.copyOf(sampleCodes, index * 2);
+      }
+      sampleCodes[index] = packedCode;
+      labels.add(label);
+      return this;
+    }
+
+    /**
+     * @return the samples added so far
+     */
+    CompactProjectSamples build() {
+      return new CompactProjectSamples(projectCode, Arrays.copyOf(sampleCodes, labels.size()),
+          labels.toArray(new String[0]));
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.pool.ConnPoolListener;
+import org.apache.hc.core5.pool.ConnPoolStats;
+import org.apache.hc.core5.pool.PoolStats;
+
+/**
+ * Collects usage metrics of a connection pool.
+ *
+ * <p>A lease is counted as a wait if other requests were already queued for a connection when
+ * the lease was granted, i.e. the pool was saturated at that point.</p>
+ *
+ * @since 1.2.0
+ */
+public class ConnectionPoolMetrics implements ConnPoolListener<HttpRoute> {
+
+  private final LongAdder leases = new LongAdder();
+  private final LongAdder releases = new LongAdder();
+  private final LongAdder waits = new LongAdder();
+  private final AtomicInteger maxPending = new AtomicInteger();
+  private final AtomicInteger maxLeased = new AtomicInteger();
+
+  @Override
+  public void onLease(HttpRoute route, ConnPoolStats<HttpRoute> connPoolStats) {
+    leases.increment();
+    PoolStats totalStats = connPoolStats.getTotalStats();
+    if (totalStats.getPending() > 0) {
+      waits.increment();
+    }
+    maxPending.accumulateAndGet(totalStats.getPending(), Math::max);
+    maxLeased.accumulateAndGet(totalStats.getLeased(), Math::max);
+  }
+
+  @Override
+  public void onRelease(HttpRoute route, ConnPoolStats<HttpRoute> connPoolStats) {
+    releases.increment();
+  }
+
+  /**
+   * @return the number of connections leased from the pool so far
+   */
+  public long leases() {
+    return leases.sum();
+  }
+
+  /**
+   * @return the number of connections released back to the pool so far
+   */
+  public long releases() {
+    return releases.sum();
+  }
+
+  /**
+   * @return the number of leases granted while other requests were waiting for a connection
+   */
+  public long waits() {
+    return waits.sum();
+  }
+
+  /**
+   * @return the highest number of requests observed waiting for a connection
+   */
+  public int maxPending() {
+    return maxPending.get();
+  }
+
+  /**
+   * @return the highest number of connections observed in use at the same time
+   */
+  public int maxLeased() {
+    return maxLeased.get();
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectionPoolMetrics{" +
+        "leases=" + leases() +
+        ", releases=" + releases() +
+        ", waits=" + waits() +
+        ", maxPending=" + maxPending() +
+        ", maxLeased=" + maxLeased() +
+        '}';
+  }
+}
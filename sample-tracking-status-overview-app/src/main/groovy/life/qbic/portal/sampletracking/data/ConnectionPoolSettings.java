@@ -0,0 +1,105 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the HTTP connection pool used to connect to the sample tracking service.
+ *
+ * @since 1.2.0
+ */
+public class ConnectionPoolSettings {
+
+  private static final int DEFAULT_MAX_TOTAL = 50;
+  private static final int DEFAULT_MAX_PER_ROUTE = 20;
+  private static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(30);
+  private static final Duration DEFAULT_IDLE_EVICTION = Duration.ofSeconds(60);
+  private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+  private static final Duration DEFAULT_LEASE_TIMEOUT = Duration.ofSeconds(10);
+
+  private final int maxTotal;
+  private final int maxPerRoute;
+  private final Duration keepAlive;
+  private final Duration idleEviction;
+  private final Duration connectTimeout;
+  private final Duration responseTimeout;
+  private final Duration leaseTimeout;
+
+  /**
+   * @param maxTotal        the maximum number of connections in the pool
+   * @param maxPerRoute     the maximum number of connections to a single host
+   * @param keepAlive       how long an idle connection is kept alive if the server does not say
+   *                        otherwise
+   * @param idleEviction    connections idle for longer than this are closed in the background
+   * @param connectTimeout  the timeout until a connection is established
+   * @param responseTimeout the timeout waiting for a response after the request was sent
+   * @param leaseTimeout    the timeout waiting for a free connection from the pool
+   */
+  public ConnectionPoolSettings(int maxTotal, int maxPerRoute, Duration keepAlive,
+      Duration idleEviction, Duration connectTimeout, Duration responseTimeout,
+      Duration leaseTimeout) {
+    if (maxTotal < 1 || maxPerRoute < 1) {
+      throw new IllegalArgumentException(
+          String.format("Connection limits must be positive: total %s, per route %s", maxTotal,
+              maxPerRoute));
+    }
+    this.maxTotal = maxTotal;
+    this.maxPerRoute = maxPerRoute;
+    this.keepAlive = Objects.requireNonNull(keepAlive);
+    this.idleEviction = Objects.requireNonNull(idleEviction);
+    this.connectTimeout = Objects.requireNonNull(connectTimeout);
+    this.responseTimeout = Objects.requireNonNull(responseTimeout);
+    this.leaseTimeout = Objects.requireNonNull(leaseTimeout);
+  }
+
+  /**
+   * @return settings suitable for a single portlet instance talking to one service host
+   */
+  public static ConnectionPoolSettings defaults() {
+    return new ConnectionPoolSettings(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_KEEP_ALIVE,
+        DEFAULT_IDLE_EVICTION, DEFAULT_CONNECT_TIMEOUT, DEFAULT_RESPONSE_TIMEOUT,
+        DEFAULT_LEASE_TIMEOUT);
+  }
+
+  public int maxTotal() {
+    return maxTotal;
+  }
+
+  public int maxPerRoute() {
+    return maxPerRoute;
+  }
+
+  public Duration keepAlive() {
+    return keepAlive;
+  }
+
+  public Duration idleEviction() {
+    return idleEviction;
+  }
+
+  public Duration connectTimeout() {
+    return connectTimeout;
+  }
+
+  public Duration responseTimeout() {
+    return responseTimeout;
+  }
+
+  public Duration leaseTimeout() {
+    return leaseTimeout;
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectionPoolSettings{" +
+        "maxTotal=" + maxTotal +
+        ", maxPerRoute=" + maxPerRoute +
+        ", keepAlive=" + keepAlive +
+        ", idleEviction=" + idleEviction +
+        ", connectTimeout=" + connectTimeout +
+        ", responseTimeout=" + responseTimeout +
+        ", leaseTimeout=" + leaseTimeout +
+        '}';
+  }
+}
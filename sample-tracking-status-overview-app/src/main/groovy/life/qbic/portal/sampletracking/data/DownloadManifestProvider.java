@@ -1,6 +1,10 @@
 package life.qbic.portal.sampletracking.data;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import life.qbic.business.download.ManifestFilter;
 
 /**
  * Provides a {@link life.qbic.business.download.DownloadManifest} given a set of properties.
@@ -16,4 +20,36 @@ public interface DownloadManifestProvider {
    */
   ByteArrayInputStream getManifestForProject(String projectCode);
 
+  /**
+   * Writes the download manifest of a project to an output stream, without holding the whole
+   * manifest in memory.
+   * @param projectCode the project code for the provided manifest
+   * @param outputStream the stream to write the manifest to. The stream is not closed.
+   * @throws IOException if writing to the stream fails
+   * @since 1.2.0
+   */
+  void writeManifestForProject(String projectCode, OutputStream outputStream) throws IOException;
+
+  /**
+   * Writes the download manifest of a project limited by a filter to an output stream.
+   * @param projectCode the project code for the provided manifest
+   * @param filter limits the samples of the manifest
+   * @param outputStream the stream to write the manifest to. The stream is not closed.
+   * @throws IOException if writing to the stream fails
+   * @since 1.2.0
+   */
+  void writeManifestForProject(String projectCode, ManifestFilter filter,
+      OutputStream outputStream) throws IOException;
+
+  /**
+   * Writes a ZIP archive with the download manifest of each project to an output stream. Each
+   * manifest is an entry named after its project.
+   * @param projectCodes the codes of the projects to export
+   * @param outputStream the stream to write the archive to. The stream is not closed.
+   * @throws IOException if writing to the stream fails
+   * @since 1.2.0
+   */
+  void writeManifestArchive(Collection<String> projectCodes, OutputStream outputStream)
+      throws IOException;
+
 }
@@ -0,0 +1,97 @@
+package life.qbic.portal.sampletracking.data;
+
+/**
+ * A set of primitive longs, e.g. of packed sample codes.
+ *
+ * <p>The values are stored in an open addressed table without boxing. The set is not thread
+ * safe; it is meant to be filled once and read afterwards.</p>
+ *
+ * @since 1.2.0
+ */
+final class LongHashSet {
+
+  private static final long EMPTY = 0L;
+
+  private long[] table;
+  private int size;
+  // zero marks empty slots and is tracked separately
+  private boolean containsZero;
+
+  /**
+   * @param expectedSize the number of values the set is expected to hold
+   */
+  LongHashSet(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    this.table = new long[capacity];
+  }
+
+  /**
+   * @param value the value to add
+   * @return true if the value was added, false if it was contained before
+   */
+  boolean add(long value) {
+    if (value == EMPTY) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+    int slot = slotOf(value, table);
+    if (table[slot] == value) {
+      return false;
+    }
+    table[slot] = value;
+    size++;
+    if (size * 2 > table.length) {
+      grow();
+    }
+    return true;
+  }
+
+  /**
+   * @param value the value to look up
+   * @return true if the set contains the value, false otherwise
+   */
+  boolean contains(long value) {
+    if (value == EMPTY) {
+      return containsZero;
+    }
+    return table[slotOf(value, table)] == value;
+  }
+
+  /**
+   * @return the number of values in the set
+   */
+  int size() {
+    return size;
+  }
+
+  /*
+   * Returns the slot holding the value or the empty slot the value belongs to
+   */
+  private static int slotOf(long value, long[] table) {
+    int mask = table.length - 1;
+    int slot = mix(value) & mask;
+    while (table[slot] != EMPTY && table[slot] != value) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int mix(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private void grow() {
+    long[] grown = new long[table.length * 2];
+    for (long value : table) {
+      if (value != EMPTY) {
+        grown[slotOf(value, grown)] = value;
+      }
+    }
+    table = grown;
+  }
+}
@@ -0,0 +1,138 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last manifest export of a project per user.
+ *
+ * <p>An export is recorded with the latest status time of the exported samples, not with the
+ * time of the export. Samples whose status became valid before they reached the cache are then
+ * still part of the next "new data only" manifest.</p>
+ *
+ * <p>The history is kept in memory. It can be written to a file and restored from it, like the
+ * status snapshot, so that it survives a restart. The file has the following format:</p>
+ * <pre>
+ * header: int magic, short version, int user count
+ * user:   UTF user id, int export count, exports
+ * export: UTF project code, long epoch seconds, int nanos
+ * </pre>
+ *
+ * @since 1.2.0
+ */
+public class ManifestExportHistory {
+
+  private static final int MAGIC = 0x514d4548;
+  private static final short VERSION = 1;
+
+  private final Map<String, Map<String, Instant>> exportsPerUser = new ConcurrentHashMap<>();
+
+  /**
+   * @param userId      identifies the user
+   * @param projectCode the code of the exported project
+   * @return the latest status time of the samples last exported, if the user exported the
+   * project before
+   */
+  public Optional<Instant> lastExport(String userId, String projectCode) {
+    Map<String, Instant> exports = exportsPerUser.get(userId);
+    if (Objects.isNull(exports)) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(exports.get(projectCode));
+  }
+
+  /**
+   * Records an export. An earlier status time than the recorded one is ignored.
+   * @param userId           identifies the user
+   * @param projectCode      the code of the exported project
+   * @param latestStatusTime the latest status time of the exported samples
+   */
+  public void recordExport(String userId, String projectCode, Instant latestStatusTime) {
+    Objects.requireNonNull(latestStatusTime);
+    exportsPerUser.computeIfAbsent(userId, user -> new ConcurrentHashMap<>())
+        .merge(projectCode, latestStatusTime,
+            (recorded, latest) -> latest.isAfter(recorded) ? latest : recorded);
+  }
+
+  /**
+   * Writes the history to a file, replacing the file if it exists. The file is replaced
+   * atomically, so a reader never sees a partially written history.
+   * @param file the history file
+   * @throws IOException if the file could not be written
+   */
+  public void write(Path file) throws IOException {
+    Path directory = Objects.requireNonNull(file.toAbsolutePath().getParent());
+    Files.createDirectories(directory);
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        // copies, as exports may be recorded while the history is written
+        Map<String, Map<String, Instant>> users = new HashMap<>(exportsPerUser);
+        output.writeInt(users.size());
+        for (Entry<String, Map<String, Instant>> user : users.entrySet()) {
+          Map<String, Instant> exports = new HashMap<>(user.getValue());
+          output.writeUTF(user.getKey());
+          output.writeInt(exports.size());
+          for (Entry<String, Instant> export : exports.entrySet()) {
+            output.writeUTF(export.getKey());
+            output.writeLong(export.getValue().getEpochSecond());
+            output.writeInt(export.getValue().getNano());
+          }
+        }
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Restores the exports recorded in a file. Exports recorded in memory are kept if they are
+   * later than the restored ones.
+   * @param file the history file
+   * @return the number of restored exports
+   * @throws IOException if the file could not be read or is not a history of this version
+   */
+  public int restore(Path file) throws IOException {
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (input.readInt() != MAGIC) {
+        throw new IOException("Not a manifest export history");
+      }
+      short version = input.readShort();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unsupported export history version %s", version));
+      }
+      int restored = 0;
+      int userCount = input.readInt();
+      for (int i = 0; i < userCount; i++) {
+        String userId = input.readUTF();
+        int exportCount = input.readInt();
+        for (int j = 0; j < exportCount; j++) {
+          String projectCode = input.readUTF();
+          recordExport(userId, projectCode,
+              Instant.ofEpochSecond(input.readLong(), input.readInt()));
+          restored++;
+        }
+      }
+      return restored;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Provides download manifests for a user, including manifests of the data that became available
+ * since the user's last download.
+ *
+ * <p>Only providers that know the current user can write these manifests. Providers shared by
+ * all users implement {@link DownloadManifestProvider} only.</p>
+ *
+ * @since 1.2.0
+ */
+public interface NewDataManifestProvider extends DownloadManifestProvider {
+
+  /**
+   * Writes a manifest of the samples of a project that became available since the project was
+   * last exported by the current user. Without a previous export, all samples are written.
+   * @param projectCode the project code for the provided manifest
+   * @param outputStream the stream to write the manifest to. The stream is not closed.
+   * @throws IOException if writing to the stream fails
+   * @since 1.2.0
+   */
+  void writeNewDataManifestForProject(String projectCode, OutputStream outputStream)
+      throws IOException;
+}
@@ -1,6 +1,8 @@
 package life.qbic.portal.sampletracking.data;
 
 import java.util.List;
+import java.util.function.LongPredicate;
+import life.qbic.business.samples.SampleCode;
 
 /**
  * <b>Repository for loading NGS samples</b>
@@ -15,4 +17,23 @@ public interface NgsSampleRepository {
      * @return a list of sample codes from all NGS samples of that project
      */
     public List<String> findNGSSamplesForProject(String projectCode);
+
+    /**
+     * Finds all NGS samples for a given project as a test of packed sample codes. Repositories
+     * that keep the samples packed answer without unpacking them.
+     * @param projectCode the code specifying a project
+     * @return a test whether a sample code packed with {@link SampleCode#pack(CharSequence)} is an
+     * NGS sample of that project
+     * @since 1.2.0
+     */
+    default LongPredicate findPackedNGSSamplesForProject(String projectCode) {
+        List<String> sampleCodes = findNGSSamplesForProject(projectCode);
+        LongHashSet packedCodes = new LongHashSet(sampleCodes.size());
+        for (String sampleCode : sampleCodes) {
+            if (SampleCode.isValid(sampleCode)) {
+                packedCodes.add(SampleCode.pack(sampleCode));
+            }
+        }
+        return packedCodes::contains;
+    }
 }
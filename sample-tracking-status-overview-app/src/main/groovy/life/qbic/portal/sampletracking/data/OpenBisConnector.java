@@ -1,121 +1,436 @@
 package life.qbic.portal.sampletracking.data;
 
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi;
 import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.SearchResult;
-import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.fetchoptions.ProjectFetchOptions;
 import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.search.ProjectSearchCriteria;
-import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions;
 import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.search.SampleSearchCriteria;
-import ch.systemsx.cisd.common.spring.HttpInvokerUtils;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
+import life.qbic.business.samples.SampleCode;
 import life.qbic.datamodel.dtos.portal.PortalUser;
 import life.qbic.portal.sampletracking.view.projects.viewmodel.Project;
 import life.qbic.portal.sampletracking.view.samples.viewmodel.Sample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class OpenBisConnector implements ProjectRepository, SampleRepository, NgsSampleRepository {
+public class OpenBisConnector implements ProjectRepository, SampleRepository, NgsSampleRepository,
+    Closeable {
 
-  private final String sessionToken;
+  private static final Logger log = LoggerFactory.getLogger(OpenBisConnector.class);
+
+  private final OpenBisSession session;
 
   private final IApplicationServerApi api;
 
-  private static final int TIMEOUT = 10_000;
-  private final Map<String, List<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample>> sampleCache = new HashMap<>();
-  private final Map<String, ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project> projectCache = new HashMap<>();
+  private static final int DEFAULT_SAMPLE_PAGE_SIZE = 5_000;
+  private final int samplePageSize;
+  private final SampleLoading sampleLoading;
+  private final List<String> ngsSampleTypes;
+  private final PartitionedSampleLoader partitionedSampleLoader;
+  private final AtomicReference<OpenBisIndex> index = new AtomicReference<>();
+  private volatile ScheduledFuture<?> scheduledRefresh;
 
 
 
   public OpenBisConnector(Credentials credentials, PortalUser portalUser,
       String openBisUrl) {
-    this.api = HttpInvokerUtils.createServiceStub(IApplicationServerApi.class,
-        openBisUrl + "/rmi-application-server-v3", TIMEOUT);
-    this.sessionToken = api.loginAs(credentials.getUser(), credentials.getPassword(),
-        portalUser.getAuthProviderId());
+    this(credentials, portalUser, openBisUrl, DEFAULT_SAMPLE_PAGE_SIZE, SampleLoading.EAGER);
+  }
+
+  /**
+   * Connects to openBIS on behalf of a portal user.
+   *
+   * @param credentials the credentials of the openBIS user
+   * @param portalUser the portal user the connection acts for
+   * @param openBisUrl the url of the openBIS application server
+   * @param samplePageSize the number of samples requested at once when the cache is loaded
+   * @param sampleLoading whether the samples of all projects are loaded at once or on demand
+   * @since 1.2.0
+   */
+  public OpenBisConnector(Credentials credentials, PortalUser portalUser,
+      String openBisUrl, int samplePageSize, SampleLoading sampleLoading) {
+    this(new OpenBisSessionManager(openBisUrl, credentials).sessionOf(portalUser),
+        samplePageSize, sampleLoading, OpenBisQueries.DEFAULT_NGS_SAMPLE_TYPES, null);
+  }
+
+  /**
+   * Connects to openBIS as the given user and not on behalf of a portal user. The connector sees
+   * everything the user can see, so it must only be used for lookups that are authorized
+   * elsewhere.
+   *
+   * @param credentials the credentials of the openBIS user
+   * @param openBisUrl the url of the openBIS application server
+   * @since 1.2.0
+   */
+  public OpenBisConnector(Credentials credentials, String openBisUrl) {
+    this(credentials, openBisUrl, DEFAULT_SAMPLE_PAGE_SIZE, SampleLoading.EAGER);
+  }
+
+  /**
+   * Connects to openBIS as the given user and not on behalf of a portal user.
+   *
+   * @param credentials the credentials of the openBIS user
+   * @param openBisUrl the url of the openBIS application server
+   * @param samplePageSize the number of samples requested at once when the cache is loaded
+   * @param sampleLoading whether the samples of all projects are loaded at once or on demand
+   * @see #OpenBisConnector(Credentials, String)
+   * @since 1.2.0
+   */
+  public OpenBisConnector(Credentials credentials, String openBisUrl, int samplePageSize,
+      SampleLoading sampleLoading) {
+    this(new OpenBisSessionManager(openBisUrl, credentials).serviceSession(), samplePageSize,
+        sampleLoading, OpenBisQueries.DEFAULT_NGS_SAMPLE_TYPES, null);
+  }
+
+  /**
+   * Connects to openBIS with a session that can be shared with other connectors of the same
+   * user. The connector does not log in; the session logs in when openBIS is first read.
+   *
+   * @param session the openBIS session of the user
+   * @param samplePageSize the number of samples requested at once when the cache is loaded
+   * @param sampleLoading whether the samples of all projects are loaded at once or on demand
+   * @param ngsSampleTypes the Q_SAMPLE_TYPE values of NGS samples
+   * @param searchExecutor runs the searches of the sample types in parallel, only required for
+   *     {@link SampleLoading#PARTITIONED}
+   * @see OpenBisSessionManager
+   * @since 1.2.0
+   */
+  public OpenBisConnector(OpenBisSession session, int samplePageSize,
+      SampleLoading sampleLoading, List<String> ngsSampleTypes, Executor searchExecutor) {
+    if (samplePageSize < 1) {
+      throw new IllegalArgumentException(
+          String.format("The sample page size must be positive but was %s", samplePageSize));
+    }
+    if (ngsSampleTypes.isEmpty()) {
+      throw new IllegalArgumentException("At least one NGS sample type must be provided");
+    }
+    if (sampleLoading == SampleLoading.PARTITIONED && Objects.isNull(searchExecutor)) {
+      throw new IllegalArgumentException("Partitioned sample loading requires an executor");
+    }
+    this.session = Objects.requireNonNull(session);
+    this.api = session.api();
+    this.samplePageSize = samplePageSize;
+    this.sampleLoading = Objects.requireNonNull(sampleLoading);
+    this.ngsSampleTypes = Collections.unmodifiableList(new ArrayList<>(ngsSampleTypes));
+    this.partitionedSampleLoader = sampleLoading == SampleLoading.PARTITIONED
+        ? new PartitionedSampleLoader(this.ngsSampleTypes, searchExecutor,
+        sampleType -> loadProjectSamples(OpenBisQueries.ngsSamplesOfType(sampleType)))
+        : null;
+  }
+
+  /**
+   * @param api the openBIS application server to connect to
+   * @param login logs in to the api and returns the session token
+   * @param samplePageSize the number of samples requested at once when the cache is loaded
+   * @param sampleLoading whether the samples of all projects are loaded at once or on demand
+   * @since 1.2.0
+   */
+  OpenBisConnector(IApplicationServerApi api, Function<IApplicationServerApi, String> login,
+      int samplePageSize, SampleLoading sampleLoading) {
+    this(api, login, samplePageSize, sampleLoading, OpenBisQueries.DEFAULT_NGS_SAMPLE_TYPES,
+        null);
+  }
+
+  /**
+   * @param api the openBIS application server to connect to
+   * @param login logs in to the api and returns the session token
+   * @param samplePageSize the number of samples requested at once when the cache is loaded
+   * @param sampleLoading whether the samples of all projects are loaded at once or on demand
+   * @param ngsSampleTypes the Q_SAMPLE_TYPE values of NGS samples
+   * @param searchExecutor runs the searches of the sample types in parallel, only required for
+   *     {@link SampleLoading#PARTITIONED}
+   * @since 1.2.0
+   */
+  OpenBisConnector(IApplicationServerApi api, Function<IApplicationServerApi, String> login,
+      int samplePageSize, SampleLoading sampleLoading, List<String> ngsSampleTypes,
+      Executor searchExecutor) {
+    this(new OpenBisSession(api, login, Duration.ofMinutes(1)), samplePageSize, sampleLoading,
+        ngsSampleTypes, searchExecutor);
+  }
+
+  /*
+   * Readers use the index published last. Only the first reader waits until an index was read
+   * from openBIS; later refreshes build a new index in the background and replace the old one
+   * at once, so readers never see a partially loaded index.
+   */
+  private OpenBisIndex currentIndex() {
+    OpenBisIndex current = index.get();
+    return Objects.nonNull(current) ? current : loadFirstIndex();
+  }
+
+  private synchronized OpenBisIndex loadFirstIndex() {
+    if (Objects.isNull(index.get())) {
+      index.compareAndSet(null, buildIndex());
+    }
+    return index.get();
+  }
+
+  /**
+   * Reads the projects and samples from openBIS again and replaces the current index once the
+   * new one is complete. In lazy mode the samples of a project are loaded again when they are
+   * next needed.
+   *
+   * @since 1.2.0
+   */
+  public void refresh() {
+    index.set(buildIndex());
+  }
+
+  /**
+   * Searches the samples of one sample type again and replaces the current index with one that
+   * contains the new samples of this type and the samples of the other types read before.
+   *
+   * @param sampleType one of the configured NGS sample types
+   * @throws IllegalStateException if the samples are not loaded partitioned by sample type
+   * @throws IllegalArgumentException if the sample type is not one of the configured types
+   * @since 1.2.0
+   */
+  public void refreshSampleType(String sampleType) {
+    if (Objects.isNull(partitionedSampleLoader)) {
+      throw new IllegalStateException(
+          String.format("The samples are not loaded by sample type but %s", sampleLoading));
+    }
+    if (!partitionedSampleLoader.isLoaded()) {
+      // nothing was read yet or the index was restored from a snapshot
+      index.set(completeIndex(partitionedSampleLoader.loadAll()));
+      return;
+    }
+    index.set(completeIndex(partitionedSampleLoader.reload(sampleType)));
+  }
+
+  /**
+   * Writes the current index to a snapshot file. Nothing is written before the index was first
+   * read.
+   *
+   * @param file the snapshot file, replaced if it exists
+   * @throws IOException if the snapshot could not be written
+   * @see OpenBisIndexSnapshot
+   * @since 1.2.0
+   */
+  public void writeSnapshot(Path file) throws IOException {
+    OpenBisIndex current = index.get();
+    if (Objects.nonNull(current)) {
+      OpenBisIndexSnapshot.write(file, current);
+    }
+  }
+
+  /**
+   * Restores the index from a snapshot file, unless an index was read already. The restored
+   * index is served right away and replaced by the next refresh.
+   *
+   * @param file the snapshot file
+   * @return the number of restored projects, 0 if an index was read already
+   * @throws IOException if the snapshot could not be read
+   * @since 1.2.0
+   */
+  public int restoreSnapshot(Path file) throws IOException {
+    OpenBisIndex restored = OpenBisIndexSnapshot.read(file);
+    return index.compareAndSet(null, restored) ? restored.projectDescriptions().size() : 0;
+  }
+
+  /**
+   * Refreshes the index periodically. A failed refresh is logged and the current index is kept
+   * until the next refresh. A refresh started before is cancelled.
+   *
+   * @param scheduler runs the refreshes
+   * @param interval the time between the end of a refresh and the start of the next one
+   * @since 1.2.0
+   */
+  public void startRefreshing(ScheduledExecutorService scheduler, Duration interval) {
+    stopRefreshing();
+    long intervalMillis = interval.toMillis();
+    scheduledRefresh = scheduler.scheduleWithFixedDelay(this::refreshQuietly, intervalMillis,
+        intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      log.warn(String.format("Could not refresh the openBIS projects and samples: %s",
+          e.getMessage()));
+    }
+  }
+
+  private void stopRefreshing() {
+    ScheduledFuture<?> refresh = scheduledRefresh;
+    if (Objects.nonNull(refresh)) {
+      refresh.cancel(false);
+    }
+  }
+
+  /**
+   * Stops refreshing the index
+   * @since 1.2.0
+   */
+  @Override
+  public void close() {
+    stopRefreshing();
   }
 
   @Override
   public List<Project> findAllProjects() {
-    if (projectCache.isEmpty()) {
-      updateCache();
-    }
-    return projectCache.entrySet().stream()
-        .map(it -> new Project(it.getKey(), Optional.ofNullable(it.getValue().getDescription()).orElse("")))
+    return currentIndex().projectDescriptions().entrySet().stream()
+        .map(it -> new Project(it.getKey(), it.getValue()))
         .collect(toList());
   }
 
+  /*
+   * Answers from the current index, so projects added or removed by a refresh are seen at once.
+   */
+  @Override
+  public boolean containsProject(String projectCode) {
+    return currentIndex().projectDescriptions().containsKey(projectCode);
+  }
+
   @Override
   public List<String> findNGSSamplesForProject(String projectCode){
+    return cachedSamplesOfProject(projectCode).sampleCodes();
+  }
 
-    return findAllSamplesForProject(projectCode).stream()
-            .map(Sample::code)
-            .collect(toList());
+  /*
+   * The cached samples are kept packed, so no sample code is unpacked for the lookup.
+   */
+  @Override
+  public LongPredicate findPackedNGSSamplesForProject(String projectCode) {
+    return cachedSamplesOfProject(projectCode)::containsPacked;
   }
 
   @Override
   public List<Sample> findAllSamplesForProject(String projectCode) {
+    return cachedSamplesOfProject(projectCode).toSamples();
+  }
+
+  private CompactProjectSamples cachedSamplesOfProject(String projectCode) {
+    OpenBisIndex current = currentIndex();
+    return current.samplesOf(projectCode, code -> loadSamplesOfProject(code, current));
+  }
 
-    List<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample> cachedProjectSamples = sampleCache
-        .entrySet().stream()
-        .filter(it -> it.getKey().equals(projectCode)).map(Entry::getValue).findAny().orElse(new ArrayList<>());
-    return cachedProjectSamples.stream().map(convertToSample()).collect(toList());
-  }
-
-  private void updateCache() {
-
-    SampleSearchCriteria isNgs = new SampleSearchCriteria();
-    isNgs.withOrOperator();
-    //search for all sample types that are related to NGS
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("DNA");
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("RNA");
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("AMPLICON");
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("R_RNA");
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("M_RNA");
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("SINGLE_NUCLEI");
-    isNgs.withProperty("Q_SAMPLE_TYPE").thatContains("CF_DNA");
-    // this guarantees that no q-entity is contained as only test samples have Q_SAMPLE_TYPE
-
-    SampleFetchOptions fetchOptions = new SampleFetchOptions();
-    fetchOptions.withType();
-    fetchOptions.withProperties();
-    SearchResult<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample> sampleSearchResult = api.searchSamples(
-        sessionToken, isNgs, fetchOptions);
-    Map<String, List<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample>> projectSampleMap = sampleSearchResult.getObjects()
-        .stream()
-        .filter(hasValidSampleCode())
-        .collect(groupingBy(this::getProject));
-    sampleCache.putAll(projectSampleMap);
-
-    ProjectFetchOptions projectFetchOptions = new ProjectFetchOptions();
-    projectFetchOptions.withSpace();
-    ProjectSearchCriteria projectSearchCriteria = new ProjectSearchCriteria();
-
-    SearchResult<ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project> projectSearchResult = api.searchProjects(
-        sessionToken, projectSearchCriteria, projectFetchOptions);
-    List<ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project> projects = projectSearchResult.getObjects()
-        .stream().filter(it -> sampleCache.containsKey(it.getCode())).collect(toList());
-    projects.forEach(it -> projectCache.put(it.getCode(), it));
+  private OpenBisIndex buildIndex() {
+    switch (sampleLoading) {
+      case LAZY:
+        return OpenBisIndex.withoutSamples(visibleProjects());
+      case PARTITIONED:
+        return completeIndex(partitionedSampleLoader.loadAll());
+      default:
+        return completeIndex(loadProjectSamples(OpenBisQueries.ngsSamples(ngsSampleTypes)));
+    }
+  }
+
+  /*
+   * Only the code and the secondary name of a sample are kept. The openBIS objects of a page
+   * can be collected as soon as the page was read.
+   */
+  private Map<String, CompactProjectSamples> loadProjectSamples(SampleSearchCriteria criteria) {
+    // equal labels share one string, e.g. the secondary names of replicates
+    Map<String, String> labels = new HashMap<>();
+    Map<String, CompactProjectSamples.Builder> projectSamples = new HashMap<>();
+    loadSamplesPageByPage(criteria, sample -> {
+      String label = sample.getProperty("Q_SECONDARY_NAME");
+      projectSamples.computeIfAbsent(getProject(sample), CompactProjectSamples.Builder::new)
+          .add(sample.getCode(), Objects.isNull(label) ? null
+              : labels.computeIfAbsent(label, Function.identity()));
+    });
+    Map<String, CompactProjectSamples> samples = new HashMap<>();
+    projectSamples.forEach((projectCode, builder) -> samples.put(projectCode, builder.build()));
+    return samples;
+  }
+
+  private OpenBisIndex completeIndex(Map<String, CompactProjectSamples> samples) {
+    // only the projects with NGS samples are requested
+    return OpenBisIndex.complete(projectDescriptions(samples.keySet()), samples);
+  }
+
+  private Map<String, String> projectDescriptions(Collection<String> projectCodes) {
+    Map<String, String> projectDescriptions = new HashMap<>();
+    for (ProjectSearchCriteria projectsWithCodes : OpenBisQueries.projectsWithCodes(
+        projectCodes)) {
+      session.call(token -> api.searchProjects(token, projectsWithCodes,
+          OpenBisQueries.projects())).getObjects().forEach(it -> projectDescriptions.put(it.getCode(), descriptionOf(it)));
+    }
+    return projectDescriptions;
+  }
+
+  private static String descriptionOf(
+      ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project project) {
+    return Optional.ofNullable(project.getDescription()).orElse("");
+  }
+
+  /*
+   * Lists the projects without searching any sample: all projects the session can see are found
+   * with one project search. Projects without NGS samples are listed as well; their samples are
+   * empty once they are loaded.
+   */
+  private Map<String, String> visibleProjects() {
+    Map<String, String> projectDescriptions = new HashMap<>();
+    session.call(token -> api.searchProjects(token, OpenBisQueries.allProjects(),
+        OpenBisQueries.projects())).getObjects()
+        .forEach(it -> projectDescriptions.put(it.getCode(), descriptionOf(it)));
+    return projectDescriptions;
+  }
+
+  private CompactProjectSamples loadSamplesOfProject(String projectCode, OpenBisIndex index) {
+    CompactProjectSamples.Builder samples = new CompactProjectSamples.Builder(projectCode);
+    loadSamplesPageByPage(OpenBisQueries.ngsSamplesOfProject(projectCode, ngsSampleTypes),
+        sample -> samples.add(sample.getCode(),
+            index.label(sample.getProperty("Q_SECONDARY_NAME"))));
+    return samples.build();
+  }
+
+  /*
+   * The samples are requested in pages sorted by code, so that consecutive pages neither
+   * overlap nor skip samples. Each page is passed on before the next page is requested and can
+   * be collected afterwards; the whole search result is never held at once.
+   */
+  private void loadSamplesPageByPage(SampleSearchCriteria criteria,
+      Consumer<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample> sampleConsumer) {
+    int from = 0;
+    int totalCount;
+    do {
+      int pageStart = from;
+      SearchResult<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample> page = session.call(
+          token -> api.searchSamples(token, criteria,
+              OpenBisQueries.samplePage(pageStart, samplePageSize)));
+      List<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample> samples = page.getObjects();
+      if (samples.isEmpty()) {
+        return;
+      }
+      samples.stream()
+          .filter(hasValidSampleCode())
+          .forEach(sampleConsumer);
+      from += samples.size();
+      totalCount = page.getTotalCount();
+    } while (from < totalCount);
   }
 
   private String getProject(
       ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample sample) {
-    return sample.getCode().substring(0, 5);
+    return SampleCode.projectCodeOf(sample.getCode());
   }
 
   private Predicate<? super ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample> hasValidSampleCode() {
-    return sample -> sample.getCode().matches("Q[A-X0-9]{4}[0-9]{3}[A-X0-9]{2}$");
-  }
-
-  private static Function<ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample, Sample> convertToSample() {
-    return it -> new Sample(it.getCode(), it.getProperty("Q_SECONDARY_NAME"));
+    return sample -> SampleCode.isValid(sample.getCode());
   }
 
 }
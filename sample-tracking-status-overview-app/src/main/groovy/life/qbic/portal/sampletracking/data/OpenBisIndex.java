@@ -0,0 +1,149 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The projects and NGS samples read from openBIS at one point in time.
+ *
+ * <p>A complete index contains the samples of all projects and never changes. An index without
+ * samples only lists the projects; the samples of a project are loaded into it when they are
+ * first needed. Indices are replaced as a whole when openBIS is read again.</p>
+ *
+ * <p>Samples loaded on demand are read outside of any map operation: the first reader of a
+ * project loads its samples, concurrent readers of the same project wait for that load. A load
+ * that fails is not kept, so the next reader of the project loads it again.</p>
+ *
+ * @since 1.2.0
+ */
+final class OpenBisIndex {
+
+  private final Map<String, String> projectDescriptions;
+  private final Map<String, CompactProjectSamples> samples;
+  private final boolean complete;
+  private final Map<String, CompletableFuture<CompactProjectSamples>> loadedSamples =
+      new ConcurrentHashMap<>();
+  private final Map<String, String> labels = new ConcurrentHashMap<>();
+
+  private OpenBisIndex(Map<String, String> projectDescriptions,
+      Map<String, CompactProjectSamples> samples, boolean complete) {
+    this.projectDescriptions = Collections.unmodifiableMap(projectDescriptions);
+    this.samples = samples;
+    this.complete = complete;
+  }
+
+  /**
+   * @param projectDescriptions the description of every project by project code
+   * @param samples             the samples of every project by project code
+   * @return an index that contains the samples of all projects
+   */
+  static OpenBisIndex complete(Map<String, String> projectDescriptions,
+      Map<String, CompactProjectSamples> samples) {
+    return new OpenBisIndex(projectDescriptions, Collections.unmodifiableMap(samples), true);
+  }
+
+  /**
+   * @param projectDescriptions the description of every project by project code
+   * @return an index that loads the samples of a project on demand
+   */
+  static OpenBisIndex withoutSamples(Map<String, String> projectDescriptions) {
+    return new OpenBisIndex(projectDescriptions, Collections.emptyMap(), false);
+  }
+
+  /**
+   * @param projectDescriptions the description of every project by project code
+   * @param loadedSamples       the samples of the projects that were loaded already
+   * @return an index that loads the samples of the other projects on demand
+   */
+  static OpenBisIndex withoutSamples(Map<String, String> projectDescriptions,
+      Map<String, CompactProjectSamples> loadedSamples) {
+    OpenBisIndex index = withoutSamples(projectDescriptions);
+    loadedSamples.forEach((projectCode, samples) -> index.loadedSamples.put(projectCode,
+        CompletableFuture.completedFuture(samples)));
+    return index;
+  }
+
+  /**
+   * @return the description of every project by project code
+   */
+  Map<String, String> projectDescriptions() {
+    return projectDescriptions;
+  }
+
+  /**
+   * @return true if the index contains the samples of all projects, false if they are loaded on
+   * demand
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * @return the samples of every project that are loaded, by project code. Loads that are in
+   * progress or failed are left out.
+   */
+  Map<String, CompactProjectSamples> loadedSamples() {
+    if (complete) {
+      return samples;
+    }
+    Map<String, CompactProjectSamples> loaded = new HashMap<>();
+    loadedSamples.forEach((projectCode, loading) -> {
+      if (loading.isDone() && !loading.isCompletedExceptionally()) {
+        loaded.put(projectCode, loading.join());
+      }
+    });
+    return loaded;
+  }
+
+  /**
+   * Returns the samples of a project. An index without samples loads them once per project.
+   * @param projectCode the code of the project
+   * @param loader      loads the samples of a project
+   * @return the samples of the project, empty if the project is not known
+   */
+  CompactProjectSamples samplesOf(String projectCode,
+      Function<String, CompactProjectSamples> loader) {
+    CompactProjectSamples projectSamples = complete ? samples.get(projectCode)
+        : loadedSamplesOf(projectCode, loader);
+    return Objects.nonNull(projectSamples) ? projectSamples
+        : CompactProjectSamples.empty(projectCode);
+  }
+
+  private CompactProjectSamples loadedSamplesOf(String projectCode,
+      Function<String, CompactProjectSamples> loader) {
+    CompletableFuture<CompactProjectSamples> loading = new CompletableFuture<>();
+    CompletableFuture<CompactProjectSamples> loaded = loadedSamples.putIfAbsent(projectCode,
+        loading);
+    if (Objects.isNull(loaded)) {
+      try {
+        loading.complete(loader.apply(projectCode));
+      } catch (RuntimeException | Error e) {
+        loadedSamples.remove(projectCode, loading);
+        loading.completeExceptionally(e);
+        throw e;
+      }
+      return loading.join();
+    }
+    try {
+      return loaded.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Equal labels of the samples in this index share one string, e.g. the secondary names of
+   * replicates.
+   * @param label a label read from openBIS, can be null
+   * @return an equal label that is already in use, or the provided label
+   */
+  String label(String label) {
+    return Objects.isNull(label) ? null : labels.computeIfAbsent(label, Function.identity());
+  }
+}
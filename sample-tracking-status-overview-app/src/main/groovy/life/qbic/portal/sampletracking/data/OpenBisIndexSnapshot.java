@@ -0,0 +1,146 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Writes and reads the projects and NGS samples read from openBIS in a compact binary file.
+ *
+ * <p>The file starts with a header, followed by one record per project:</p>
+ * <pre>
+ * header:  int magic, short version, long written at (epoch milliseconds), byte complete,
+ *          int project count
+ * project: string code, string description, int sample count (-1 if not loaded), samples
+ * sample:  long packed code, string label
+ * string:  short length (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * <p>Sample codes are written packed as in {@link CompactProjectSamples}. Files are read through
+ * a memory mapping and written to a temporary file that replaces the previous snapshot
+ * atomically, like the {@link StatusSnapshot}.</p>
+ *
+ * @since 1.2.0
+ */
+final class OpenBisIndexSnapshot {
+
+  private static final int MAGIC = 0x5153494e;
+  private static final short VERSION = 1;
+  private static final int NOT_LOADED = -1;
+
+  private OpenBisIndexSnapshot() {
+  }
+
+  /**
+   * Writes the projects and the loaded samples of an index to a file, replacing the file if it
+   * exists
+   * @param file  the snapshot file
+   * @param index the index to write
+   * @throws IOException if the file could not be written
+   */
+  static void write(Path file, OpenBisIndex index) throws IOException {
+    Path directory = Objects.requireNonNull(file.toAbsolutePath().getParent());
+    Files.createDirectories(directory);
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        Map<String, CompactProjectSamples> samples = index.loadedSamples();
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeLong(System.currentTimeMillis());
+        output.writeBoolean(index.isComplete());
+        output.writeInt(index.projectDescriptions().size());
+        for (Entry<String, String> project : index.projectDescriptions().entrySet()) {
+          StatusSnapshot.writeString(output, project.getKey());
+          StatusSnapshot.writeString(output, project.getValue());
+          writeSamples(output, samples.get(project.getKey()));
+        }
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private static void writeSamples(DataOutputStream output, CompactProjectSamples samples)
+      throws IOException {
+    if (Objects.isNull(samples)) {
+      output.writeInt(NOT_LOADED);
+      return;
+    }
+    output.writeInt(samples.size());
+    for (int i = 0; i < samples.size(); i++) {
+      output.writeLong(samples.packedCodeAt(i));
+      StatusSnapshot.writeString(output, samples.labelAt(i));
+    }
+  }
+
+  /**
+   * Reads an index from a file
+   * @param file the snapshot file
+   * @return the index with the projects and samples of the file
+   * @throws IOException if the file could not be read or is not a snapshot of this version
+   */
+  static OpenBisIndex read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      try {
+        return readIndex(buffer);
+      } catch (RuntimeException e) {
+        // e.g. a truncated file
+        throw new IOException(String.format("Snapshot %s is corrupt", file), e);
+      }
+    }
+  }
+
+  private static OpenBisIndex readIndex(ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Not a snapshot of the openBIS index");
+    }
+    short version = buffer.getShort();
+    if (version != VERSION) {
+      throw new IOException(String.format("Unsupported snapshot version %s", version));
+    }
+    buffer.getLong(); // written at
+    boolean complete = buffer.get() != 0;
+    int projectCount = buffer.getInt();
+    Map<String, String> projectDescriptions = new HashMap<>();
+    Map<String, CompactProjectSamples> samples = new HashMap<>();
+    // equal labels share one string, e.g. the secondary names of replicates
+    Map<String, String> labels = new HashMap<>();
+    for (int i = 0; i < projectCount; i++) {
+      String projectCode = StatusSnapshot.readString(buffer);
+      projectDescriptions.put(projectCode, StatusSnapshot.readString(buffer));
+      int sampleCount = buffer.getInt();
+      if (sampleCount == NOT_LOADED) {
+        continue;
+      }
+      CompactProjectSamples.Builder projectSamples = new CompactProjectSamples.Builder(
+          projectCode);
+      for (int j = 0; j < sampleCount; j++) {
+        long packedCode = buffer.getLong();
+        String label = StatusSnapshot.readString(buffer);
+        projectSamples.addPacked(packedCode, Objects.isNull(label) ? null
+            : labels.computeIfAbsent(label, Function.identity()));
+      }
+      samples.put(projectCode, projectSamples.build());
+    }
+    return complete ? OpenBisIndex.complete(projectDescriptions, samples)
+        : OpenBisIndex.withoutSamples(projectDescriptions, samples);
+  }
+}
@@ -0,0 +1,132 @@
+package life.qbic.portal.sampletracking.data;
+
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.fetchoptions.ProjectFetchOptions;
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.search.ProjectSearchCriteria;
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions;
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.search.SampleSearchCriteria;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plans the openBIS queries of the {@link OpenBisConnector} so that they fetch no more than the
+ * connector reads.
+ *
+ * <p>Samples are selected by their Q_SAMPLE_TYPE on the server, so the type is not fetched. Of
+ * each sample only the code and the Q_SECONDARY_NAME property are read. The v3 API can only
+ * fetch all properties of a sample or none, so the properties are fetched but nothing else.
+ * Projects are searched by the codes found in the sample results, or all at once when the samples
+ * are loaded on demand, and always without their space.</p>
+ *
+ * @since 1.2.0
+ */
+final class OpenBisQueries {
+
+  /**
+   * The maximal number of project codes in one project search
+   */
+  static final int PROJECT_CODE_BATCH_SIZE = 500;
+
+  /**
+   * The Q_SAMPLE_TYPE values of NGS samples that are used if no other types are configured
+   */
+  static final List<String> DEFAULT_NGS_SAMPLE_TYPES = Collections.unmodifiableList(
+      Arrays.asList("DNA", "RNA", "AMPLICON", "R_RNA", "M_RNA", "SINGLE_NUCLEI", "CF_DNA"));
+
+  private static final String SAMPLE_TYPE_PROPERTY = "Q_SAMPLE_TYPE";
+
+  private OpenBisQueries() {
+    //This is a static helper and not meant to be instantiated
+  }
+
+  /**
+   * @param sampleTypes the Q_SAMPLE_TYPE values of NGS samples
+   * @return criteria matching all NGS samples
+   */
+  static SampleSearchCriteria ngsSamples(Collection<String> sampleTypes) {
+    SampleSearchCriteria isNgs = new SampleSearchCriteria();
+    addNgsSampleTypes(isNgs, sampleTypes);
+    return isNgs;
+  }
+
+  /**
+   * @param sampleType one Q_SAMPLE_TYPE value of NGS samples
+   * @return criteria matching the NGS samples of this type
+   */
+  static SampleSearchCriteria ngsSamplesOfType(String sampleType) {
+    return ngsSamples(Collections.singletonList(sampleType));
+  }
+
+  /**
+   * @param projectCode the code of the project
+   * @param sampleTypes the Q_SAMPLE_TYPE values of NGS samples
+   * @return criteria matching the NGS samples of a project
+   */
+  static SampleSearchCriteria ngsSamplesOfProject(String projectCode,
+      Collection<String> sampleTypes) {
+    SampleSearchCriteria criteria = new SampleSearchCriteria();
+    criteria.withAndOperator();
+    criteria.withProject().withCode().thatEquals(projectCode);
+    addNgsSampleTypes(criteria.withSubcriteria(), sampleTypes);
+    return criteria;
+  }
+
+  private static void addNgsSampleTypes(SampleSearchCriteria isNgs,
+      Collection<String> sampleTypes) {
+    isNgs.withOrOperator();
+    //search for all sample types that are related to NGS
+    for (String sampleType : sampleTypes) {
+      isNgs.withProperty(SAMPLE_TYPE_PROPERTY).thatContains(sampleType);
+    }
+    // this guarantees that no q-entity is contained as only test samples have Q_SAMPLE_TYPE
+  }
+
+  /**
+   * Fetch options for one page of samples, sorted by code
+   * @param from  the index of the first sample of the page
+   * @param count the number of samples of the page
+   * @return fetch options fetching the properties of the samples only
+   */
+  static SampleFetchOptions samplePage(int from, int count) {
+    SampleFetchOptions fetchOptions = new SampleFetchOptions();
+    fetchOptions.withProperties();
+    fetchOptions.sortBy().code();
+    fetchOptions.from(from);
+    fetchOptions.count(count);
+    return fetchOptions;
+  }
+
+  /**
+   * Splits the project codes into searches of at most {@link #PROJECT_CODE_BATCH_SIZE} codes
+   * @param projectCodes the codes of the projects to search for
+   * @return one search criteria per batch of codes
+   */
+  static List<ProjectSearchCriteria> projectsWithCodes(Collection<String> projectCodes) {
+    List<String> codes = new ArrayList<>(projectCodes);
+    List<ProjectSearchCriteria> batches = new ArrayList<>();
+    for (int start = 0; start < codes.size(); start += PROJECT_CODE_BATCH_SIZE) {
+      List<String> batch = codes.subList(start,
+          Math.min(start + PROJECT_CODE_BATCH_SIZE, codes.size()));
+      ProjectSearchCriteria criteria = new ProjectSearchCriteria();
+      criteria.withCodes().thatIn(new ArrayList<>(batch));
+      batches.add(criteria);
+    }
+    return batches;
+  }
+
+  /**
+   * @return criteria matching all projects the session can see
+   */
+  static ProjectSearchCriteria allProjects() {
+    return new ProjectSearchCriteria();
+  }
+
+  /**
+   * @return fetch options fetching the projects only, without their space or other objects
+   */
+  static ProjectFetchOptions projects() {
+    return new ProjectFetchOptions();
+  }
+}
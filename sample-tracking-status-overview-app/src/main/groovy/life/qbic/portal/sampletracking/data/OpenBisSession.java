@@ -0,0 +1,154 @@
+package life.qbic.portal.sampletracking.data;
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An openBIS session of one user that is reused by all connections of this user.
+ *
+ * <p>The session logs in when its token is first needed, not when it is created. A token that
+ * was not confirmed for the check interval is checked with
+ * {@link IApplicationServerApi#isSessionActive(String)} before it is used again. A call that
+ * fails because the session expired in the meantime is repeated once with a new token.</p>
+ *
+ * <p>openBIS accepts concurrent calls with the same token, so all threads share one token.</p>
+ *
+ * @since 1.2.0
+ */
+public final class OpenBisSession {
+
+  private static final Logger log = LoggerFactory.getLogger(OpenBisSession.class);
+
+  private final IApplicationServerApi api;
+  private final Function<IApplicationServerApi, String> login;
+  private final long checkIntervalNanos;
+  private final LongSupplier nanoClock;
+  private volatile String token;
+  private volatile long confirmedAt;
+
+  /**
+   * @param api           the openBIS application server
+   * @param login         logs in to the api and returns the session token
+   * @param checkInterval the time after which an unused token is checked before it is used
+   */
+  OpenBisSession(IApplicationServerApi api, Function<IApplicationServerApi, String> login,
+      Duration checkInterval) {
+    this(api, login, checkInterval, System::nanoTime);
+  }
+
+  OpenBisSession(IApplicationServerApi api, Function<IApplicationServerApi, String> login,
+      Duration checkInterval, LongSupplier nanoClock) {
+    this.api = Objects.requireNonNull(api);
+    this.login = Objects.requireNonNull(login);
+    this.checkIntervalNanos = checkInterval.toNanos();
+    this.nanoClock = Objects.requireNonNull(nanoClock);
+  }
+
+  /**
+   * @return the openBIS application server of this session
+   */
+  IApplicationServerApi api() {
+    return api;
+  }
+
+  /**
+   * Calls openBIS with a valid session token. If the call fails and the session turns out to be
+   * expired, the call is repeated once after logging in again.
+   * @param call the call to openBIS given the session token
+   * @param <T>  the type of the result
+   * @return the result of the call
+   */
+  <T> T call(Function<String, T> call) {
+    String usedToken = validToken();
+    T result;
+    try {
+      result = call.apply(usedToken);
+    } catch (RuntimeException e) {
+      if (isActive(usedToken)) {
+        throw e;
+      }
+      log.info("The openBIS session expired, logging in again.");
+      result = call.apply(renew(usedToken));
+    }
+    confirmedAt = nanoClock.getAsLong();
+    return result;
+  }
+
+  /**
+   * Logs in ahead of the first call, so that it does not wait for the login. A failed login is
+   * logged and repeated by the first call.
+   * @param executor runs the login
+   */
+  public void prepare(Executor executor) {
+    executor.execute(() -> {
+      try {
+        validToken();
+      } catch (RuntimeException e) {
+        log.warn(String.format("Could not log in to openBIS: %s", e.getMessage()));
+      }
+    });
+  }
+
+  /**
+   * Logs out of openBIS. The next call logs in again.
+   */
+  synchronized void logout() {
+    String current = token;
+    token = null;
+    if (Objects.isNull(current)) {
+      return;
+    }
+    try {
+      api.logout(current);
+    } catch (RuntimeException e) {
+      log.warn(String.format("Could not log out of openBIS: %s", e.getMessage()));
+    }
+  }
+
+  private String validToken() {
+    String current = token;
+    if (Objects.isNull(current)) {
+      return renew(null);
+    }
+    if (nanoClock.getAsLong() - confirmedAt < checkIntervalNanos) {
+      return current;
+    }
+    if (!api.isSessionActive(current)) {
+      return renew(current);
+    }
+    confirmedAt = nanoClock.getAsLong();
+    return current;
+  }
+
+  /*
+   * A failing check says nothing about the session, e.g. if openBIS is not reachable. The
+   * session is then regarded as active and the original failure is reported.
+   */
+  private boolean isActive(String checkedToken) {
+    try {
+      return api.isSessionActive(checkedToken);
+    } catch (RuntimeException e) {
+      return true;
+    }
+  }
+
+  /*
+   * Threads that find the same expired token log in only once; the others use the new token.
+   */
+  private synchronized String renew(String expiredToken) {
+    String current = token;
+    if (!Objects.equals(current, expiredToken)) {
+      return current;
+    }
+    String renewed = login.apply(api);
+    confirmedAt = nanoClock.getAsLong();
+    token = renewed;
+    return renewed;
+  }
+}
@@ -0,0 +1,90 @@
+package life.qbic.portal.sampletracking.data;
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi;
+import ch.systemsx.cisd.common.spring.HttpInvokerUtils;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import life.qbic.datamodel.dtos.portal.PortalUser;
+
+/**
+ * Keeps the openBIS sessions of the service user and of the portal users it acts for.
+ *
+ * <p>There is one {@link OpenBisSession} per user. It is created on first request and reused by
+ * every later connection of the same user, so opening a page does not log in again.</p>
+ *
+ * @since 1.2.0
+ */
+public final class OpenBisSessionManager implements Closeable {
+
+  private static final int TIMEOUT = 10_000;
+  private static final Duration DEFAULT_CHECK_INTERVAL = Duration.ofMinutes(1);
+  // the service user acting for itself
+  private static final String SERVICE_USER = "";
+
+  private final IApplicationServerApi api;
+  private final Credentials credentials;
+  private final Duration checkInterval;
+  private final ConcurrentMap<String, OpenBisSession> sessions = new ConcurrentHashMap<>();
+
+  /**
+   * @param openBisUrl  the url of the openBIS application server
+   * @param credentials the credentials of the openBIS service user
+   */
+  public OpenBisSessionManager(String openBisUrl, Credentials credentials) {
+    this(openBisUrl, credentials, DEFAULT_CHECK_INTERVAL);
+  }
+
+  /**
+   * @param openBisUrl    the url of the openBIS application server
+   * @param credentials   the credentials of the openBIS service user
+   * @param checkInterval the time after which an unused session is checked before it is used
+   */
+  public OpenBisSessionManager(String openBisUrl, Credentials credentials,
+      Duration checkInterval) {
+    this(createApi(openBisUrl), credentials, checkInterval);
+  }
+
+  OpenBisSessionManager(IApplicationServerApi api, Credentials credentials,
+      Duration checkInterval) {
+    this.api = Objects.requireNonNull(api);
+    this.credentials = Objects.requireNonNull(credentials);
+    this.checkInterval = Objects.requireNonNull(checkInterval);
+  }
+
+  private static IApplicationServerApi createApi(String openBisUrl) {
+    return HttpInvokerUtils.createServiceStub(IApplicationServerApi.class,
+        openBisUrl + "/rmi-application-server-v3", TIMEOUT);
+  }
+
+  /**
+   * @param portalUser the portal user the service user acts for
+   * @return the session of the service user acting for the portal user
+   */
+  public OpenBisSession sessionOf(PortalUser portalUser) {
+    String userId = portalUser.getAuthProviderId();
+    return sessions.computeIfAbsent(userId, id -> new OpenBisSession(api,
+        it -> it.loginAs(credentials.getUser(), credentials.getPassword(), id), checkInterval));
+  }
+
+  /**
+   * The session of the service user sees everything the service user can see, so it must only
+   * be used for lookups that are authorized elsewhere.
+   * @return the session of the service user acting for itself
+   */
+  public OpenBisSession serviceSession() {
+    return sessions.computeIfAbsent(SERVICE_USER, id -> new OpenBisSession(api,
+        it -> it.login(credentials.getUser(), credentials.getPassword()), checkInterval));
+  }
+
+  /**
+   * Logs out of all sessions
+   */
+  @Override
+  public void close() {
+    sessions.values().forEach(OpenBisSession::logout);
+    sessions.clear();
+  }
+}
@@ -0,0 +1,115 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Loads the NGS samples with one search per sample type instead of one search for all types.
+ *
+ * <p>The searches of all sample types run in parallel on the provided executor, which bounds the
+ * number of concurrent searches. The samples found for each type are kept as one partition, so a
+ * single type can be loaded again without searching the others. The partitions are merged into
+ * the samples of each project; a sample found by several searches is kept once.</p>
+ *
+ * @since 1.2.0
+ */
+final class PartitionedSampleLoader {
+
+  private final List<String> sampleTypes;
+  private final Executor executor;
+  private final Function<String, Map<String, CompactProjectSamples>> partitionLoader;
+  private final Map<String, Map<String, CompactProjectSamples>> partitions = new HashMap<>();
+
+  /**
+   * @param sampleTypes     the Q_SAMPLE_TYPE values, one partition is loaded per type
+   * @param executor        runs the searches of the partitions
+   * @param partitionLoader loads the samples of one type by project code
+   */
+  PartitionedSampleLoader(List<String> sampleTypes, Executor executor,
+      Function<String, Map<String, CompactProjectSamples>> partitionLoader) {
+    if (sampleTypes.isEmpty()) {
+      throw new IllegalArgumentException("At least one sample type must be provided");
+    }
+    this.sampleTypes = Collections.unmodifiableList(new ArrayList<>(sampleTypes));
+    this.executor = Objects.requireNonNull(executor);
+    this.partitionLoader = Objects.requireNonNull(partitionLoader);
+  }
+
+  /**
+   * Loads the partitions of all sample types in parallel. The loaded partitions are only kept if
+   * every partition could be loaded.
+   * @return the merged samples of all partitions by project code
+   */
+  synchronized Map<String, CompactProjectSamples> loadAll() {
+    Map<String, CompletableFuture<Map<String, CompactProjectSamples>>> searches =
+        new LinkedHashMap<>();
+    for (String sampleType : sampleTypes) {
+      searches.put(sampleType,
+          CompletableFuture.supplyAsync(() -> partitionLoader.apply(sampleType), executor));
+    }
+    Map<String, Map<String, CompactProjectSamples>> loaded = new HashMap<>();
+    for (Map.Entry<String, CompletableFuture<Map<String, CompactProjectSamples>>> search :
+        searches.entrySet()) {
+      loaded.put(search.getKey(), await(search.getValue()));
+    }
+    partitions.putAll(loaded);
+    return merged();
+  }
+
+  /**
+   * @return true if the partitions of all sample types were loaded, false otherwise
+   */
+  synchronized boolean isLoaded() {
+    return partitions.keySet().containsAll(sampleTypes);
+  }
+
+  /**
+   * Loads the partition of one sample type again and keeps the others.
+   * @param sampleType the sample type to load
+   * @return the merged samples of all partitions by project code
+   * @throws IllegalArgumentException if the sample type is not one of the partitions
+   */
+  synchronized Map<String, CompactProjectSamples> reload(String sampleType) {
+    if (!sampleTypes.contains(sampleType)) {
+      throw new IllegalArgumentException(
+          String.format("%s is not one of the sample types %s", sampleType, sampleTypes));
+    }
+    partitions.put(sampleType, await(
+        CompletableFuture.supplyAsync(() -> partitionLoader.apply(sampleType), executor)));
+    return merged();
+  }
+
+  private static Map<String, CompactProjectSamples> await(
+      CompletableFuture<Map<String, CompactProjectSamples>> search) {
+    try {
+      return search.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private Map<String, CompactProjectSamples> merged() {
+    Map<String, List<CompactProjectSamples>> parts = new HashMap<>();
+    for (Map<String, CompactProjectSamples> partition : partitions.values()) {
+      partition.forEach((projectCode, samples) ->
+          parts.computeIfAbsent(projectCode, code -> new ArrayList<>()).add(samples));
+    }
+    Map<String, CompactProjectSamples> samples = new HashMap<>();
+    parts.forEach((projectCode, projectParts) -> samples.put(projectCode,
+        projectParts.size() == 1 ? projectParts.get(0)
+            : CompactProjectSamples.merge(projectCode, projectParts)));
+    return samples;
+  }
+}
@@ -7,4 +7,15 @@ public interface ProjectRepository {
 
   List<Project> findAllProjects();
 
+  /**
+   * Checks whether a project is listed by the repository. Repositories that index their projects
+   * answer without listing them all.
+   * @param projectCode the code of the project
+   * @return true, if {@link #findAllProjects()} lists the project
+   * @since 1.2.0
+   */
+  default boolean containsProject(String projectCode) {
+    return findAllProjects().stream().anyMatch(project -> project.code().equals(projectCode));
+  }
+
 }
@@ -0,0 +1,331 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the tracked samples of projects.
+ *
+ * <p>Readers are not blocked by writers: the cache holds immutable {@link ProjectSamples}
+ * snapshots that are read without locking the entries. Writers replace whole snapshots. An update
+ * of a cached project only locks the entry of that project, so updates of different projects do
+ * not wait for each other.</p>
+ *
+ * <p>The cache holds at most {@link CacheSettings#maximumSize()} projects and discards the least
+ * recently read ones beyond that. The order of reads is kept in an access-ordered map under its
+ * own short lock, so a read moves one project and an eviction removes the first one. Projects are discarded {@link CacheSettings#expireAfterWrite()}
+ * after they were loaded. A project read later than {@link CacheSettings#refreshAfterWrite()}
+ * after it was loaded is reloaded in the background, while readers keep getting the cached
+ * samples. The loader receives the cached samples, so it can ask the service whether they
+ * changed; returning the same samples keeps them cached for another period.</p>
+ *
+ * @since 1.2.0
+ */
+final class ProjectSampleCache {
+
+  private static final Logger log = LoggerFactory.getLogger(ProjectSampleCache.class);
+
+  private final ConcurrentMap<String, CacheEntry> projects = new ConcurrentHashMap<>();
+  /*
+   * The codes of the cached projects from the least to the most recently read. Guarded by itself.
+   */
+  private final LinkedHashMap<String, Boolean> readOrder = new LinkedHashMap<>(16, 0.75f, true);
+  private final int maximumSize;
+  private final long expireAfterWriteNanos;
+  private final long refreshAfterWriteNanos;
+  private final BiFunction<String, ProjectSamples,
+      CompletableFuture<Optional<ProjectSamples>>> loader;
+  private final LongSupplier nanoClock;
+  private final CacheMetrics metrics = new CacheMetrics();
+
+  /**
+   * @param settings the size bound and expiry of the cache
+   * @param loader   reloads the samples of a project given the cached ones, used to refresh
+   *                 entries in the background
+   */
+  ProjectSampleCache(CacheSettings settings,
+      BiFunction<String, ProjectSamples, CompletableFuture<Optional<ProjectSamples>>> loader) {
+    this(settings, loader, System::nanoTime);
+  }
+
+  ProjectSampleCache(CacheSettings settings,
+      BiFunction<String, ProjectSamples, CompletableFuture<Optional<ProjectSamples>>> loader,
+      LongSupplier nanoClock) {
+    this.maximumSize = settings.maximumSize();
+    this.expireAfterWriteNanos = settings.expireAfterWrite().toNanos();
+    this.refreshAfterWriteNanos = settings.refreshAfterWrite().toNanos();
+    this.loader = Objects.requireNonNull(loader);
+    this.nanoClock = Objects.requireNonNull(nanoClock);
+  }
+
+  /*
+   * A cached project. Updates replace the samples but keep the write time, the refresh state and
+   * the last read of the entry. Updates made while a refresh is running are recorded, so they can
+   * be applied again to the refreshed samples.
+   */
+  private static final class CacheEntry {
+
+    private final ProjectSamples samples;
+    private final long writtenAt;
+    private final AtomicBoolean refreshing;
+    private final List<UnaryOperator<ProjectSamples>> updatesDuringRefresh;
+
+    CacheEntry(ProjectSamples samples, long writtenAt) {
+      this(samples, writtenAt, new AtomicBoolean(false), Collections.emptyList());
+    }
+
+    private CacheEntry(ProjectSamples samples, long writtenAt, AtomicBoolean refreshing,
+        List<UnaryOperator<ProjectSamples>> updatesDuringRefresh) {
+      this.samples = samples;
+      this.writtenAt = writtenAt;
+      this.refreshing = refreshing;
+      this.updatesDuringRefresh = updatesDuringRefresh;
+    }
+
+    CacheEntry withUpdate(UnaryOperator<ProjectSamples> update) {
+      List<UnaryOperator<ProjectSamples>> updates = Collections.emptyList();
+      if (refreshing.get()) {
+        updates = new ArrayList<>(updatesDuringRefresh);
+        updates.add(update);
+      }
+      return new CacheEntry(update.apply(samples), writtenAt, refreshing, updates);
+    }
+
+    /*
+     * Must be called while the entry is locked, so no update is recorded after the refresh
+     * ended.
+     */
+    CacheEntry withRefreshEnded() {
+      refreshing.set(false);
+      return new CacheEntry(samples, writtenAt, refreshing, Collections.emptyList());
+    }
+
+    /*
+     * Whether both entries hold the same load of the project, possibly with different updates
+     */
+    boolean isSameLoadAs(CacheEntry other) {
+      return refreshing == other.refreshing;
+    }
+  }
+
+  /**
+   * @param projectCode the code of the project
+   * @return the cached samples of the project, Optional::empty if the project is not cached
+   */
+  Optional<ProjectSamples> get(String projectCode) {
+    CacheEntry entry = projects.get(projectCode);
+    if (Objects.isNull(entry)) {
+      metrics.recordMiss();
+      return Optional.empty();
+    }
+    long now = nanoClock.getAsLong();
+    long age = now - entry.writtenAt;
+    if (age >= expireAfterWriteNanos) {
+      if (projects.remove(projectCode, entry)) {
+        forgetRead(projectCode);
+        metrics.recordExpiration();
+      }
+      metrics.recordMiss();
+      return Optional.empty();
+    }
+    recordRead(projectCode);
+    if (age >= refreshAfterWriteNanos && entry.refreshing.compareAndSet(false, true)) {
+      refresh(projectCode, entry);
+    }
+    metrics.recordHit();
+    return Optional.of(entry.samples);
+  }
+
+  /**
+   * Reloads a cached project in the background, unless a reload is already running
+   * @param projectCode the code of the project
+   * @return completes when the reload completed, successfully or not
+   */
+  CompletableFuture<Void> refresh(String projectCode) {
+    CacheEntry entry = projects.get(projectCode);
+    if (Objects.isNull(entry) || !entry.refreshing.compareAndSet(false, true)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return refresh(projectCode, entry);
+  }
+
+  private CompletableFuture<Void> refresh(String projectCode, CacheEntry entry) {
+    metrics.recordRefresh();
+    CompletableFuture<Optional<ProjectSamples>> reload;
+    try {
+      reload = loader.apply(projectCode, entry.samples);
+    } catch (RuntimeException e) {
+      reload = new CompletableFuture<>();
+      reload.completeExceptionally(e);
+    }
+    return reload.handle((samples, error) -> {
+      if (Objects.nonNull(error)) {
+        metrics.recordFailedRefresh();
+        log.warn(String.format("Refresh of project %s failed: %s", projectCode, error.getMessage()));
+        projects.computeIfPresent(projectCode, (code, current) ->
+            current.isSameLoadAs(entry) ? current.withRefreshEnded() : current);
+        entry.refreshing.set(false);
+      } else if (samples.isPresent()) {
+        putRefreshed(projectCode, entry, samples.get());
+      } else {
+        projects.computeIfPresent(projectCode, (code, current) ->
+            current.isSameLoadAs(entry) ? null : current);
+        if (!projects.containsKey(projectCode)) {
+          forgetRead(projectCode);
+        }
+      }
+      return null;
+    });
+  }
+
+  /*
+   * Replaces the refreshed entry. Updates of the entry made while the refresh was running are
+   * applied to the refreshed samples, so they are not lost. If the project was loaded again in
+   * the meantime, the newer load is kept.
+   */
+  private void putRefreshed(String projectCode, CacheEntry refreshedEntry,
+      ProjectSamples refreshedSamples) {
+    projects.compute(projectCode, (code, current) -> {
+      if (Objects.nonNull(current) && !current.isSameLoadAs(refreshedEntry)) {
+        return current;
+      }
+      ProjectSamples samples = refreshedSamples;
+      if (Objects.nonNull(current)) {
+        for (UnaryOperator<ProjectSamples> update : current.updatesDuringRefresh) {
+          samples = update.apply(samples);
+        }
+      }
+      return new CacheEntry(samples, nanoClock.getAsLong());
+    });
+    recordWrite(projectCode);
+  }
+
+  /**
+   * Caches the samples of a project, replacing any samples cached before
+   * @param projectCode the code of the project
+   * @param samples     the samples of the project
+   */
+  void put(String projectCode, ProjectSamples samples) {
+    projects.put(projectCode, new CacheEntry(samples, nanoClock.getAsLong()));
+    recordWrite(projectCode);
+  }
+
+  /**
+   * Caches the samples of a project as if they were loaded a while ago, so that they are
+   * refreshed with the next read. Nothing happens if the project is already cached.
+   * @param projectCode the code of the project
+   * @param samples     the samples of the project, e.g. restored from a snapshot
+   */
+  void putStale(String projectCode, ProjectSamples samples) {
+    long loadedAt = nanoClock.getAsLong() - refreshAfterWriteNanos;
+    if (Objects.isNull(projects.putIfAbsent(projectCode, new CacheEntry(samples, loadedAt)))) {
+      recordWrite(projectCode);
+    }
+  }
+
+  /**
+   * @return the samples of all projects that are cached and not expired
+   */
+  Map<String, ProjectSamples> snapshot() {
+    long now = nanoClock.getAsLong();
+    Map<String, ProjectSamples> snapshot = new HashMap<>();
+    for (Entry<String, CacheEntry> cached : projects.entrySet()) {
+      if (now - cached.getValue().writtenAt < expireAfterWriteNanos) {
+        snapshot.put(cached.getKey(), cached.getValue().samples);
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Updates the samples of a cached project. Nothing happens if the project is not cached. The
+   * update does not extend the lifetime of the cached project.
+   *
+   * <p>Concurrent updates of the same project are applied one after the other. The update should
+   * be cheap, as it holds the lock of the project entry. An update made while the project is
+   * refreshed is applied to the refreshed samples again.</p>
+   *
+   * @param projectCode the code of the project
+   * @param update      creates the new samples from the cached ones
+   */
+  void update(String projectCode, UnaryOperator<ProjectSamples> update) {
+    projects.computeIfPresent(projectCode,
+        (code, entry) -> entry.withUpdate(update));
+  }
+
+  private void recordRead(String projectCode) {
+    synchronized (readOrder) {
+      // moves the project to the end; also adds it again if it was removed by a concurrent
+      // writer, codes of projects that are no longer cached are skipped by the eviction
+      readOrder.put(projectCode, Boolean.TRUE);
+    }
+  }
+
+  private void forgetRead(String projectCode) {
+    synchronized (readOrder) {
+      readOrder.remove(projectCode);
+    }
+  }
+
+  /*
+   * A written project counts as read, then projects are evicted until the cache is within its
+   * bound again
+   */
+  private void recordWrite(String projectCode) {
+    synchronized (readOrder) {
+      readOrder.put(projectCode, Boolean.TRUE);
+      evict();
+    }
+  }
+
+  /*
+   * Removes the least recently read projects until the cache is within its bound again. Expired
+   * projects that were not read since they expired are counted as expirations. Must be called
+   * while the read order is locked.
+   */
+  private void evict() {
+    long now = nanoClock.getAsLong();
+    Iterator<String> leastRecentlyRead = readOrder.keySet().iterator();
+    while (projects.size() > maximumSize && leastRecentlyRead.hasNext()) {
+      String projectCode = leastRecentlyRead.next();
+      leastRecentlyRead.remove();
+      CacheEntry entry = projects.remove(projectCode);
+      if (Objects.isNull(entry)) {
+        continue;
+      }
+      if (now - entry.writtenAt >= expireAfterWriteNanos) {
+        metrics.recordExpiration();
+      } else {
+        metrics.recordEviction();
+      }
+    }
+  }
+
+  int size() {
+    return projects.size();
+  }
+
+  /**
+   * @return hit, miss and eviction counts of this cache
+   */
+  CacheMetrics metrics() {
+    return metrics;
+  }
+}
@@ -0,0 +1,135 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
+
+/**
+ * An immutable snapshot of the tracked samples of a project, indexed by sample code.
+ *
+ * <p>Samples are iterated in the order they were first added. The aggregated project status is
+ * computed once for the snapshot. Changes create a new snapshot, so readers can keep using a
+ * snapshot without any locking. Only the status counts of changed samples are updated for a new
+ * snapshot.</p>
+ *
+ * <p>The snapshot keeps the validators of the response it was read from, so it can be
+ * revalidated with a conditional request.</p>
+ *
+ * @since 1.2.0
+ */
+final class ProjectSamples implements Iterable<TrackedSample> {
+
+  private final Map<String, TrackedSample> samplesByCode;
+  /*
+   * never changed after construction
+   */
+  private final ProjectStatusAggregator aggregator;
+  private final ProjectStatus status;
+  private final CacheValidators validators;
+
+  /**
+   * @param samplesByCode the samples indexed by their code. The map must not be changed
+   *                      afterwards.
+   * @param aggregator    the aggregated statuses of the samples. The aggregator must not be
+   *                      changed afterwards.
+   * @param validators    the validators of the response the samples were read from
+   */
+  ProjectSamples(LinkedHashMap<String, TrackedSample> samplesByCode,
+      ProjectStatusAggregator aggregator, CacheValidators validators) {
+    this.samplesByCode = Collections.unmodifiableMap(samplesByCode);
+    this.aggregator = Objects.requireNonNull(aggregator);
+    this.status = aggregator.toProjectStatus();
+    this.validators = Objects.requireNonNull(validators);
+  }
+
+  /**
+   * @param samplesByCode the samples indexed by their code. The map must not be changed
+   *                      afterwards.
+   * @param validators    the validators of the response the samples were read from
+   */
+  ProjectSamples(LinkedHashMap<String, TrackedSample> samplesByCode,
+      CacheValidators validators) {
+    this(samplesByCode, ProjectStatusAggregator.of(samplesByCode.values()), validators);
+  }
+
+  /**
+   * @param samplesByCode the samples indexed by their code. The map must not be changed
+   *                      afterwards.
+   */
+  ProjectSamples(LinkedHashMap<String, TrackedSample> samplesByCode) {
+    this(samplesByCode, CacheValidators.none());
+  }
+
+  /**
+   * Adds a sample or replaces the sample with the same code
+   * @param sample the sample to add
+   * @return a new snapshot containing the sample
+   */
+  ProjectSamples withSample(TrackedSample sample) {
+    return withChanges(Collections.singletonList(sample), validators);
+  }
+
+  /**
+   * Adds samples or replaces the samples with the same codes
+   * @param changes    the changed samples
+   * @param validators the validators of the response the changes were read from
+   * @return a new snapshot containing the changes
+   */
+  ProjectSamples withChanges(Collection<TrackedSample> changes, CacheValidators validators) {
+    LinkedHashMap<String, TrackedSample> samples = new LinkedHashMap<>(samplesByCode);
+    ProjectStatusAggregator changedAggregator = new ProjectStatusAggregator(aggregator);
+    for (TrackedSample sample : changes) {
+      TrackedSample replaced = samples.put(Objects.requireNonNull(sample.code()), sample);
+      if (Objects.nonNull(replaced)) {
+        changedAggregator.remove(replaced.sampleStatus());
+      }
+      changedAggregator.add(sample.sampleStatus(), sample.statusValidSince());
+    }
+    return new ProjectSamples(samples, changedAggregator, validators);
+  }
+
+  /**
+   * @param sampleCode the code of the sample
+   * @return the sample with this code, Optional::empty if the project has no such sample
+   */
+  Optional<TrackedSample> get(String sampleCode) {
+    return Optional.ofNullable(samplesByCode.get(sampleCode));
+  }
+
+  int size() {
+    return samplesByCode.size();
+  }
+
+  /**
+   * @return the aggregated status of all samples
+   */
+  ProjectStatus status() {
+    return status;
+  }
+
+  /**
+   * @return the latest time a sample status was set, Optional::empty if no sample has a time
+   */
+  Optional<Instant> watermark() {
+    Instant lastModified = status.getLastModified();
+    return Instant.MIN.equals(lastModified) ? Optional.empty() : Optional.of(lastModified);
+  }
+
+  /**
+   * @return the validators of the response the samples were read from
+   */
+  CacheValidators validators() {
+    return validators;
+  }
+
+  @Override
+  public Iterator<TrackedSample> iterator() {
+    return samplesByCode.values().iterator();
+  }
+}
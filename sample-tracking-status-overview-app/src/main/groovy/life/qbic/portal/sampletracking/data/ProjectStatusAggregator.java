@@ -0,0 +1,111 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.time.Instant;
+import java.util.Objects;
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
+
+/**
+ * Aggregates sample statuses to a {@link ProjectStatus} in a single pass.
+ *
+ * <p>Samples are counted per {@link SampleStatus} in an array indexed by the ordinal of the
+ * status. The cumulative counts of the project status are derived from these counts, as a sample
+ * that has reached a status has passed all previous ones.</p>
+ *
+ * <p>Samples can be removed again to apply changes of single samples without counting all
+ * samples again. The time of the last modification only moves forward.</p>
+ *
+ * @since 1.2.0
+ */
+final class ProjectStatusAggregator {
+
+  private static final int STATUS_COUNT = SampleStatus.values().length;
+
+  private final int[] counts = new int[STATUS_COUNT];
+  private int totalCount;
+  private Instant lastModified = Instant.MIN;
+
+  ProjectStatusAggregator() {
+  }
+
+  /**
+   * Creates an aggregator continuing from the counts of another one
+   * @param other the aggregator to copy
+   */
+  ProjectStatusAggregator(ProjectStatusAggregator other) {
+    System.arraycopy(other.counts, 0, counts, 0, STATUS_COUNT);
+    this.totalCount = other.totalCount;
+    this.lastModified = other.lastModified;
+  }
+
+  /**
+   * Counts the statuses of all samples
+   * @param samples the samples to count
+   * @return an aggregator containing all samples
+   */
+  static ProjectStatusAggregator of(Iterable<TrackedSample> samples) {
+    ProjectStatusAggregator aggregator = new ProjectStatusAggregator();
+    for (TrackedSample sample : samples) {
+      aggregator.add(sample.sampleStatus(), sample.statusValidSince());
+    }
+    return aggregator;
+  }
+
+  /**
+   * Aggregates the statuses of all samples
+   * @param samples the samples to aggregate
+   * @return the project status of the samples
+   */
+  static ProjectStatus aggregate(Iterable<TrackedSample> samples) {
+    return of(samples).toProjectStatus();
+  }
+
+  /**
+   * Adds a sample to the aggregate
+   * @param status the status of the sample, null if the status is unknown
+   * @param statusValidSince the time the sample status was set
+   */
+  void add(SampleStatus status, Instant statusValidSince) {
+    totalCount++;
+    if (Objects.nonNull(status)) {
+      counts[status.ordinal()]++;
+    }
+    if (Objects.nonNull(statusValidSince) && statusValidSince.isAfter(lastModified)) {
+      lastModified = statusValidSince;
+    }
+  }
+
+  /**
+   * Removes a sample that was added before
+   * @param status the status the sample was added with
+   */
+  void remove(SampleStatus status) {
+    totalCount--;
+    if (Objects.nonNull(status)) {
+      counts[status.ordinal()]--;
+    }
+  }
+
+  /**
+   * @return the project status of all samples added so far
+   */
+  ProjectStatus toProjectStatus() {
+    return new ProjectStatus(totalCount,
+        countFrom(SampleStatus.SAMPLE_RECEIVED),
+        countFrom(SampleStatus.SAMPLE_QC_PASS),
+        counts[SampleStatus.SAMPLE_QC_FAIL.ordinal()],
+        countFrom(SampleStatus.LIBRARY_PREP_FINISHED),
+        counts[SampleStatus.DATA_AVAILABLE.ordinal()],
+        lastModified);
+  }
+
+  /*
+   * the number of samples with the given status or any later status
+   */
+  private int countFrom(SampleStatus status) {
+    int count = 0;
+    for (int i = status.ordinal(); i < STATUS_COUNT; i++) {
+      count += counts[i];
+    }
+    return count;
+  }
+}
@@ -1,6 +1,9 @@
 package life.qbic.portal.sampletracking.data;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
 
 /**
@@ -17,4 +20,30 @@ public interface ProjectStatusProvider {
    */
   Optional<ProjectStatus> getForProject(String projectCode);
 
+  /**
+   * Provide the project status for a project without blocking the calling thread
+   * @param projectCode the project code
+   * @return a future completing with the project status if exists, Optional::empty otherwise.
+   * @since 1.2.0
+   */
+  CompletableFuture<Optional<ProjectStatus>> getForProjectAsync(String projectCode);
+
+  /**
+   * Provide the project statuses for several projects at once
+   * @param projectCodes the project codes
+   * @return the project statuses by project code. Projects without status are not contained.
+   * @since 1.2.0
+   */
+  Map<String, ProjectStatus> getForProjects(Collection<String> projectCodes);
+
+  /**
+   * Provide the project statuses for several projects at once without blocking the calling thread
+   * @param projectCodes the project codes
+   * @return a future completing with the project statuses by project code. Projects without status
+   * are not contained.
+   * @since 1.2.0
+   */
+  CompletableFuture<Map<String, ProjectStatus>> getForProjectsAsync(
+      Collection<String> projectCodes);
+
 }
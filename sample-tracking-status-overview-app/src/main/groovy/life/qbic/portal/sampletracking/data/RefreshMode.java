@@ -0,0 +1,18 @@
+package life.qbic.portal.sampletracking.data;
+
+/**
+ * How cached sample statuses of a project are refreshed.
+ *
+ * @since 1.2.0
+ */
+public enum RefreshMode {
+  /**
+   * All samples of the project are requested again.
+   */
+  FULL,
+  /**
+   * Only samples with a status set after the latest cached status are requested and merged into
+   * the cached samples.
+   */
+  INCREMENTAL
+}
@@ -0,0 +1,25 @@
+package life.qbic.portal.sampletracking.data;
+
+/**
+ * When the NGS samples are loaded from openBIS.
+ *
+ * @since 1.2.0
+ */
+public enum SampleLoading {
+  /**
+   * The samples of all projects are loaded at once, before the first project is listed.
+   */
+  EAGER,
+  /**
+   * The projects are listed with one project search, without searching any sample. Projects
+   * without NGS samples are listed as well. The samples of a project are loaded when they are
+   * first needed.
+   */
+  LAZY,
+  /**
+   * The samples of all projects are loaded at once, before the first project is listed, with one
+   * search per sample type. The searches run in parallel and each sample type can be refreshed
+   * on its own.
+   */
+  PARTITIONED
+}
@@ -0,0 +1,37 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The statuses a sample can have in the sample tracking service, in the order a sample passes
+ * through them.
+ *
+ * @since 1.2.0
+ */
+public enum SampleStatus {
+  METADATA_REGISTERED,
+  SAMPLE_RECEIVED,
+  SAMPLE_QC_FAIL,
+  SAMPLE_QC_PASS,
+  LIBRARY_PREP_FINISHED,
+  DATA_AVAILABLE;
+
+  private static final Map<String, SampleStatus> byName = new HashMap<>();
+
+  static {
+    for (SampleStatus status : values()) {
+      byName.put(status.name(), status);
+    }
+  }
+
+  /**
+   * Looks up the status for a status name as used by the sample tracking service
+   * @param name the name of the status
+   * @return the status with this name, Optional::empty if there is no such status
+   */
+  public static Optional<SampleStatus> fromName(String name) {
+    return Optional.ofNullable(byName.get(name));
+  }
+}
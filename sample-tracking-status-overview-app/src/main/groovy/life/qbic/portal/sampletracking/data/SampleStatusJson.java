@@ -0,0 +1,75 @@
+package life.qbic.portal.sampletracking.data;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads sample statuses from the JSON returned by the sample tracking service.
+ *
+ * <p>The reader is configured once and shared, as it is thread-safe. Lists of samples are read
+ * element by element from the stream, so neither the whole response text nor a list of all samples
+ * has to be held in memory.</p>
+ *
+ * @since 1.2.0
+ */
+final class SampleStatusJson {
+
+  static final ObjectReader SAMPLE_READER = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .readerFor(TrackedSample.class);
+
+  private SampleStatusJson() {
+  }
+
+  /**
+   * Reads a single sample
+   * @param inputStream the stream containing the JSON object of a sample
+   * @return the sample
+   * @throws IOException if the stream cannot be read or does not contain a sample
+   */
+  static TrackedSample readSample(InputStream inputStream) throws IOException {
+    return SAMPLE_READER.readValue(inputStream);
+  }
+
+  /**
+   * Reads a single sample
+   * @param json the JSON object of a sample
+   * @return the sample
+   * @throws IOException if the content does not contain a sample
+   */
+  static TrackedSample readSample(byte[] json) throws IOException {
+    return SAMPLE_READER.readValue(json);
+  }
+
+  /**
+   * Reads a JSON array of samples and passes every sample to the consumer as soon as it was read.
+   * @param inputStream the stream containing the JSON array
+   * @param sampleConsumer receives the samples in the order of the array
+   * @return false if the stream was empty, true otherwise
+   * @throws IOException if the stream cannot be read or does not contain an array of samples
+   */
+  static boolean readSamples(InputStream inputStream, Consumer<TrackedSample> sampleConsumer)
+      throws IOException {
+    try (JsonParser parser = SAMPLE_READER.getFactory().createParser(inputStream)) {
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        return false;
+      }
+      if (token != JsonToken.START_ARRAY) {
+        throw new JsonParseException(parser,
+            String.format("Expected an array of samples but found %s", token));
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        sampleConsumer.accept(SAMPLE_READER.readValue(parser));
+      }
+      return true;
+    }
+  }
+}
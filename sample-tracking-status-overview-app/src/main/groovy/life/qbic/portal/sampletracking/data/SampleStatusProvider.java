@@ -1,6 +1,7 @@
 package life.qbic.portal.sampletracking.data;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface SampleStatusProvider {
 
@@ -10,4 +11,12 @@ public interface SampleStatusProvider {
    * @return the sample status of the sample. If not found, Optional::empty
    */
   Optional<String> getForSample(String sampleCode);
+
+  /**
+   * Provides the sample status of a sample without blocking the calling thread
+   * @param sampleCode the sample code
+   * @return a future completing with the sample status of the sample. If not found, Optional::empty
+   * @since 1.2.0
+   */
+  CompletableFuture<Optional<String>> getForSampleAsync(String sampleCode);
 }
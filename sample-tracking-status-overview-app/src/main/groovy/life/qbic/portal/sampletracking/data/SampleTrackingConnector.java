@@ -1,36 +1,71 @@
 package life.qbic.portal.sampletracking.data;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import life.qbic.business.download.DownloadManifest;
-import life.qbic.business.download.DownloadManifestFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import life.qbic.business.download.DownloadManifestWriter;
+import life.qbic.business.download.ManifestFilter;
+import life.qbic.business.samples.SampleCode;
 import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
 import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,93 +74,463 @@ import org.slf4j.LoggerFactory;
  *
  * @since 1.1.4
  */
-public class SampleTrackingConnector implements ProjectStatusProvider, SampleStatusProvider, DownloadManifestProvider {
+public class SampleTrackingConnector implements ProjectStatusProvider, SampleStatusProvider,
+    DownloadManifestProvider, Closeable {
 
   private static final Logger log = LoggerFactory.getLogger(SampleTrackingConnector.class);
 
+  /*
+   * A single event loop is enough to keep hundreds of requests in flight.
+   */
+  private static final int IO_THREAD_COUNT = 1;
+
+  private static final int DEFAULT_MAX_CONCURRENT_PROJECT_REQUESTS = 16;
+
+  /*
+   * Restricts the project status response to samples with a status set at or after the given
+   * time. A service ignoring the parameter answers with all samples, which are merged as well.
+   */
+  private static final String STATUS_CHANGED_SINCE_PARAMETER = "since";
+
   public final String samplesSuffix;
   public final String statusSuffix;
   public final String projectsSuffix;
 
   private final String serviceAddress;
-  private final String serviceUser;
-  private final String userPass;
   private final NgsSampleRepository ngsSampleRepository;
+  private final int maxConcurrentProjectRequests;
+  private final RefreshMode refreshMode;
+  private final Executor lookupExecutor;
+  private final ExecutorService ownedLookupExecutor;
+
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient httpClient;
+  private final PoolingAsyncClientConnectionManager asyncConnectionManager;
+  private final CloseableHttpAsyncClient asyncHttpClient;
+  private final ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+  private final ProjectSampleCache cachedProjects;
+  private final SingleFlight<String, Optional<ProjectSamples>> projectRequests =
+      new SingleFlight<>();
+  private final SingleFlight<String, Optional<TrackedSample>> sampleRequests =
+      new SingleFlight<>();
 
   public SampleTrackingConnector(String serviceUrlBase, String samplesSuffix, String statusSuffix,
                                  String projectsSuffix, Credentials credentials, NgsSampleRepository ngsSampleRepository) {
+    this(serviceUrlBase, samplesSuffix, statusSuffix, projectsSuffix, credentials,
+        ngsSampleRepository, ConnectionPoolSettings.defaults(),
+        DEFAULT_MAX_CONCURRENT_PROJECT_REQUESTS, CacheSettings.defaults());
+  }
+
+  /**
+   * @param maxConcurrentProjectRequests the maximal number of requests in flight when the status
+   *                                     of several projects is requested at once
+   * @param cacheSettings                the size bound and expiry of the cached sample statuses
+   */
+  public SampleTrackingConnector(String serviceUrlBase, String samplesSuffix, String statusSuffix,
+      String projectsSuffix, Credentials credentials, NgsSampleRepository ngsSampleRepository,
+      ConnectionPoolSettings poolSettings, int maxConcurrentProjectRequests,
+      CacheSettings cacheSettings) {
+    this(serviceUrlBase, samplesSuffix, statusSuffix, projectsSuffix, credentials,
+        ngsSampleRepository, poolSettings, maxConcurrentProjectRequests, cacheSettings, null);
+  }
+
+  /**
+   * @param maxConcurrentProjectRequests the maximal number of requests in flight when the status
+   *                                     of several projects is requested at once
+   * @param cacheSettings                the size bound and expiry of the cached sample statuses
+   * @param lookupExecutor               runs the blocking lookups of NGS samples for non-blocking
+   *                                     requests. If null, the connector uses its own threads.
+   *                                     Must not run tasks that wait for the repository's own
+   *                                     executor.
+   * @since 1.2.0
+   */
+  public SampleTrackingConnector(String serviceUrlBase, String samplesSuffix, String statusSuffix,
+      String projectsSuffix, Credentials credentials, NgsSampleRepository ngsSampleRepository,
+      ConnectionPoolSettings poolSettings, int maxConcurrentProjectRequests,
+      CacheSettings cacheSettings, Executor lookupExecutor) {
+    if (maxConcurrentProjectRequests < 1) {
+      throw new IllegalArgumentException(String.format(
+          "The number of concurrent project requests must be positive but was %s",
+          maxConcurrentProjectRequests));
+    }
     this.samplesSuffix = samplesSuffix;
     this.statusSuffix = statusSuffix;
     this.projectsSuffix = projectsSuffix;
     this.serviceAddress = Objects.requireNonNull(serviceUrlBase);
-    this.serviceUser = Objects.requireNonNull(credentials.getUser());
-    this.userPass = Objects.requireNonNull(credentials.getPassword());
     this.ngsSampleRepository = ngsSampleRepository;
+    this.maxConcurrentProjectRequests = maxConcurrentProjectRequests;
+    this.refreshMode = cacheSettings.refreshMode();
+    this.ownedLookupExecutor = Objects.isNull(lookupExecutor) ? Executors
+        .newFixedThreadPool(maxConcurrentProjectRequests, daemonThreads("ngs-sample-lookup"))
+        : null;
+    this.lookupExecutor = Objects.isNull(lookupExecutor) ? ownedLookupExecutor : lookupExecutor;
+    this.cachedProjects = new ProjectSampleCache(cacheSettings, this::revalidateProjectAsync);
+    BasicCredentialsProvider credentialsProvider = credentialsProvider(credentials);
+    // uses httpclient5 https://hc.apache.org/httpcomponents-client-5.1.x/quickstart.html
+    this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(poolSettings.maxTotal())
+        .setMaxConnPerRoute(poolSettings.maxPerRoute())
+        .setConnPoolListener(poolMetrics)
+        .build();
+    this.httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultCredentialsProvider(credentialsProvider)
+        .setDefaultRequestConfig(requestConfig(poolSettings))
+        .setKeepAliveStrategy(keepAliveStrategy(poolSettings))
+        .evictExpiredConnections()
+        .evictIdleConnections(toTimeValue(poolSettings.idleEviction()))
+        .build();
+    // uses httpclient5 https://hc.apache.org/httpcomponents-client-5.1.x/async.html
+    this.asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(poolSettings.maxTotal())
+        .setMaxConnPerRoute(poolSettings.maxPerRoute())
+        .setConnPoolListener(poolMetrics)
+        .build();
+    this.asyncHttpClient = HttpAsyncClients.custom()
+        .setConnectionManager(asyncConnectionManager)
+        .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(IO_THREAD_COUNT).build())
+        .setDefaultCredentialsProvider(credentialsProvider)
+        .setDefaultRequestConfig(requestConfig(poolSettings))
+        .setKeepAliveStrategy(keepAliveStrategy(poolSettings))
+        .evictExpiredConnections()
+        .evictIdleConnections(toTimeValue(poolSettings.idleEviction()))
+        .build();
+    this.asyncHttpClient.start();
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static BasicCredentialsProvider credentialsProvider(Credentials credentials) {
+    final BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
+    credsProvider.setCredentials(
+        new AuthScope(null, -1),
+        new UsernamePasswordCredentials(Objects.requireNonNull(credentials.getUser()),
+            Objects.requireNonNull(credentials.getPassword()).toCharArray()));
+    return credsProvider;
+  }
+
+  private static RequestConfig requestConfig(ConnectionPoolSettings poolSettings) {
+    return RequestConfig.custom()
+        .setConnectTimeout(toTimeout(poolSettings.connectTimeout()))
+        .setResponseTimeout(toTimeout(poolSettings.responseTimeout()))
+        .setConnectionRequestTimeout(toTimeout(poolSettings.leaseTimeout()))
+        .build();
+  }
+
+  /*
+   * Honours the Keep-Alive header of the service and falls back to the configured duration
+   * if the service does not send one.
+   */
+  private static DefaultConnectionKeepAliveStrategy keepAliveStrategy(
+      ConnectionPoolSettings poolSettings) {
+    TimeValue defaultKeepAlive = toTimeValue(poolSettings.keepAlive());
+    return new DefaultConnectionKeepAliveStrategy() {
+      @Override
+      public TimeValue getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        TimeValue announced = super.getKeepAliveDuration(response, context);
+        return TimeValue.isPositive(announced)
+            && announced.toMilliseconds() < defaultKeepAlive.toMilliseconds()
+            ? announced : defaultKeepAlive;
+      }
+    };
+  }
+
+  private static TimeValue toTimeValue(Duration duration) {
+    return TimeValue.of(duration.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private static Timeout toTimeout(Duration duration) {
+    return Timeout.of(duration.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return usage metrics of the connection pool shared by all requests of this connector
+   */
+  public ConnectionPoolMetrics poolMetrics() {
+    return poolMetrics;
+  }
+
+  /**
+   * @return hit, miss and eviction counts of the cached sample statuses
+   */
+  public CacheMetrics cacheMetrics() {
+    return cachedProjects.metrics();
+  }
+
+  /**
+   * @return how many project lookups joined a request already in flight
+   */
+  public CoalescingMetrics projectRequestMetrics() {
+    return projectRequests.metrics();
+  }
+
+  /**
+   * @return how many sample lookups joined a request already in flight
+   */
+  public CoalescingMetrics sampleRequestMetrics() {
+    return sampleRequests.metrics();
+  }
+
+  /**
+   * Writes the cached sample statuses to a snapshot file
+   * @param file the snapshot file, replaced if it exists
+   * @throws IOException if the snapshot could not be written
+   * @since 1.2.0
+   */
+  public void writeSnapshot(Path file) throws IOException {
+    StatusSnapshot.write(file, cachedProjects.snapshot());
+  }
+
+  /**
+   * Restores cached sample statuses from a snapshot file. The restored statuses are served right
+   * away. They are revalidated with the next read, or by {@link #revalidateCachedProjects()}.
+   * @param file the snapshot file
+   * @return the number of restored projects
+   * @throws IOException if the snapshot could not be read
+   * @since 1.2.0
+   */
+  public int restoreSnapshot(Path file) throws IOException {
+    Map<String, ProjectSamples> projects = StatusSnapshot.read(file);
+    projects.forEach(cachedProjects::putStale);
+    return projects.size();
+  }
+
+  /**
+   * Revalidates all cached projects with the service, with a bounded number of requests in
+   * flight. Projects that are refreshed already are skipped.
+   * @return completes when all projects were revalidated, successfully or not
+   * @since 1.2.0
+   */
+  public CompletableFuture<Void> revalidateCachedProjects() {
+    return BoundedFanOut.forEach(cachedProjects.snapshot().keySet(),
+        maxConcurrentProjectRequests, cachedProjects::refresh);
+  }
+
+  /**
+   * Closes all pooled connections. The connector cannot be used after it was closed.
+   */
+  @Override
+  public void close() {
+    log.info(String.format("Closing sample tracking connection pools: %s, blocking %s, async %s",
+        poolMetrics, connectionManager.getTotalStats(), asyncConnectionManager.getTotalStats()));
+    log.info(String.format("Sample tracking cache: %s, project requests %s, sample requests %s",
+        cachedProjects.metrics(), projectRequests.metrics(), sampleRequests.metrics()));
+    httpClient.close(CloseMode.GRACEFUL);
+    asyncHttpClient.close(CloseMode.GRACEFUL);
+    if (Objects.nonNull(ownedLookupExecutor)) {
+      ownedLookupExecutor.shutdownNow();
+    }
   }
 
   @Override
   public ByteArrayInputStream getManifestForProject(String projectCode) {
-    if (!cachedProjects.containsKey(projectCode)) {
-      return new ByteArrayInputStream("".getBytes());
+    ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+    try {
+      writeManifestForProject(projectCode, manifest);
+    } catch (IOException e) {
+      // writing to memory does not fail
+      throw new UncheckedIOException(e);
     }
-    List<String> sampleCodes = cachedProjects.get(projectCode).stream()
-        .filter(sample -> sample.status.equals("DATA_AVAILABLE"))
-        .map(Sample::code).collect(Collectors.toList());
-    DownloadManifest downloadManifest = DownloadManifest.from(sampleCodes);
-    return new ByteArrayInputStream(DownloadManifestFormatter.format(downloadManifest).getBytes());
+    return new ByteArrayInputStream(manifest.toByteArray());
   }
 
-  private static class Project extends ArrayList<Sample> {
+  @Override
+  public void writeManifestForProject(String projectCode, OutputStream outputStream)
+      throws IOException {
+    writeManifest(projectCode, ManifestFilter.all(), outputStream);
   }
 
-  private static class Sample {
+  @Override
+  public void writeManifestForProject(String projectCode, ManifestFilter filter,
+      OutputStream outputStream) throws IOException {
+    writeManifest(projectCode, filter, outputStream);
+  }
 
-    @JsonProperty("status")
-    private String status;
-    @JsonProperty("sampleCode")
-    private String sampleCode;
-    @JsonProperty("statusValidSince")
-    private Instant statusValidSince;
+  @Override
+  public void writeManifestArchive(Collection<String> projectCodes, OutputStream outputStream)
+      throws IOException {
+    writeArchive(projectCodes, outputStream);
+  }
+
+  /**
+   * Writes a ZIP archive with the manifest of each project. Only projects missing in the cache
+   * are requested from the service before, all manifests are then written from the cache.
+   * @param projectCodes the codes of the projects to export
+   * @param outputStream the stream to write the archive to. The stream is not closed.
+   * @return the latest status time of the written samples per project. Projects without a
+   * written sample with known status time are missing.
+   * @throws IOException if writing to the stream fails
+   * @since 1.2.0
+   */
+  public Map<String, Instant> writeArchive(Collection<String> projectCodes,
+      OutputStream outputStream) throws IOException {
+    getForProjectsAsync(projectCodes).join();
+    Map<String, Instant> latestStatusTimes = new LinkedHashMap<>();
+    ZipOutputStream archive = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+    for (String projectCode : new LinkedHashSet<>(projectCodes)) {
+      archive.putNextEntry(new ZipEntry(String.format("%s-manifest.txt", projectCode)));
+      writeManifest(projectCode, ManifestFilter.all(), archive)
+          .ifPresent(statusTime -> latestStatusTimes.put(projectCode, statusTime));
+      archive.closeEntry();
+    }
+    // completes the archive without closing the stream
+    archive.finish();
+    return latestStatusTimes;
+  }
+
+  /**
+   * Writes the available samples of a project that pass the filter to a manifest. The sample
+   * codes are written while the cached samples are iterated. A project that is not cached, e.g.
+   * because it expired or was evicted, is requested from the service first; concurrent requests
+   * for the same project share one request. The manifest is empty if the service does not know
+   * the project.
+   * @param projectCode the code of the project
+   * @param filter limits the samples of the manifest
+   * @param outputStream the stream to write the manifest to. The stream is not closed.
+   * @return the latest status time of the written samples, empty if no sample with a known
+   * status time was written
+   * @throws IOException if writing to the stream fails
+   * @since 1.2.0
+   */
+  public Optional<Instant> writeManifest(String projectCode, ManifestFilter filter,
+      OutputStream outputStream) throws IOException {
+    Optional<ProjectSamples> cachedProject = cachedProjects.get(projectCode);
+    if (!cachedProject.isPresent()) {
+      cachedProject = askServiceForProject(projectCode);
+    }
+    DownloadManifestWriter manifestWriter = new DownloadManifestWriter(outputStream);
+    Instant latestStatusTime = null;
+    if (cachedProject.isPresent()) {
+      for (TrackedSample sample : cachedProject.get()) {
+        if (sample.sampleStatus() == SampleStatus.DATA_AVAILABLE
+            && filter.includes(sample.code(), sample.statusValidSince())) {
+          manifestWriter.writeSampleCode(sample.code());
+          Instant statusTime = sample.statusValidSince();
+          if (Objects.nonNull(statusTime)
+              && (Objects.isNull(latestStatusTime) || statusTime.isAfter(latestStatusTime))) {
+            latestStatusTime = statusTime;
+          }
+        }
+      }
+    }
+    manifestWriter.flush();
+    return Optional.ofNullable(latestStatusTime);
+  }
 
-    private Sample() {
+  /*
+   * Collects the NGS samples of a project while they are read from a response and aggregates
+   * their statuses on the way. Samples with a code that is not a valid sample code cannot be NGS
+   * samples; they are counted and reported once the response was read.
+   */
+  private static class ProjectReader {
+
+    private final String projectCode;
+    private final LongPredicate ngsSamples;
+    private final LinkedHashMap<String, TrackedSample> samples = new LinkedHashMap<>();
+    private final ProjectStatusAggregator aggregator = new ProjectStatusAggregator();
+    private int invalidCodeCount;
+    private String firstInvalidCode;
+
+    ProjectReader(String projectCode, LongPredicate ngsSamples) {
+      this.projectCode = projectCode;
+      this.ngsSamples = ngsSamples;
     }
 
-    private Sample(String status, String sampleCode, Instant statusValidSince) {
-      this.status = status;
-      this.sampleCode = sampleCode;
-      this.statusValidSince = statusValidSince;
+    /*
+     * The code of every sample in a response is looked up. Packing the code does not allocate,
+     * so the lookup neither creates garbage nor computes a string hash.
+     */
+    void add(TrackedSample sample) {
+      String code = sample.code();
+      if (!SampleCode.isValid(code)) {
+        if (invalidCodeCount++ == 0) {
+          firstInvalidCode = code;
+        }
+        return;
+      }
+      if (ngsSamples.test(SampleCode.pack(code))) {
+        TrackedSample replaced = samples.put(sample.code(), sample);
+        if (Objects.nonNull(replaced)) {
+          aggregator.remove(replaced.sampleStatus());
+        }
+        aggregator.add(sample.sampleStatus(), sample.statusValidSince());
+      }
     }
 
-    public String status() {
-      return status;
+    ProjectSamples project(CacheValidators validators) {
+      reportInvalidCodes();
+      return new ProjectSamples(samples, aggregator, validators);
     }
 
-    public String code() {
-      return sampleCode;
+    Collection<TrackedSample> samples() {
+      reportInvalidCodes();
+      return samples.values();
     }
 
-    public Instant statusValidSince() {
-      return statusValidSince;
+    private void reportInvalidCodes() {
+      if (invalidCodeCount > 0) {
+        log.warn(String.format(
+            "Ignored %s samples of project %s without a valid sample code, e.g. '%s'",
+            invalidCodeCount, projectCode, firstInvalidCode));
+      }
     }
   }
 
-  private final Map<String, Project> cachedProjects = Collections.synchronizedMap(new HashMap<>());
 
   @Override
   public Optional<ProjectStatus> getForProject(String projectCode) {
     Optional<ProjectStatus> cachedStatusForProject = getCachedStatusForProject(projectCode);
     return cachedStatusForProject.isPresent() ? cachedStatusForProject
-        : askServiceForProject(projectCode).map(ProjectStatusMapper::toProjectStatus);
+        : askServiceForProject(projectCode).map(ProjectSamples::status);
   }
 
-  private Optional<ProjectStatus> getCachedStatusForProject(String projectCode) {
-    synchronized (cachedProjects) {
-      if (cachedProjects.containsKey(projectCode)) {
-        Project project = cachedProjects.get(projectCode);
-        return Optional.of(ProjectStatusMapper.toProjectStatus(project));
+  @Override
+  public CompletableFuture<Optional<ProjectStatus>> getForProjectAsync(String projectCode) {
+    Optional<ProjectStatus> cachedStatusForProject = getCachedStatusForProject(projectCode);
+    if (cachedStatusForProject.isPresent()) {
+      return CompletableFuture.completedFuture(cachedStatusForProject);
+    }
+    return askServiceForProjectAsync(projectCode)
+        .thenApply(project -> project.map(ProjectSamples::status));
+  }
+
+  @Override
+  public Map<String, ProjectStatus> getForProjects(Collection<String> projectCodes) {
+    return getForProjectsAsync(projectCodes).join();
+  }
+
+  /*
+   * The sample tracking service only offers a status endpoint for single projects. Missing
+   * projects are therefore requested one by one, with a bounded number of requests in flight.
+   */
+  @Override
+  public CompletableFuture<Map<String, ProjectStatus>> getForProjectsAsync(
+      Collection<String> projectCodes) {
+    Map<String, ProjectStatus> statuses = new ConcurrentHashMap<>();
+    List<String> uncachedProjectCodes = new ArrayList<>();
+    for (String projectCode : new LinkedHashSet<>(projectCodes)) {
+      Optional<ProjectStatus> cachedStatus = getCachedStatusForProject(projectCode);
+      if (cachedStatus.isPresent()) {
+        statuses.put(projectCode, cachedStatus.get());
+      } else {
+        uncachedProjectCodes.add(projectCode);
       }
     }
-    return Optional.empty();
+    return BoundedFanOut.forEach(uncachedProjectCodes, maxConcurrentProjectRequests,
+            projectCode -> askServiceForProjectAsync(projectCode)
+                .thenAccept(project -> project
+                    .ifPresent(it -> statuses.put(projectCode, it.status()))))
+        .thenApply(done -> statuses);
+  }
+
+  private Optional<ProjectStatus> getCachedStatusForProject(String projectCode) {
+    return cachedProjects.get(projectCode).map(ProjectSamples::status);
   }
 
   @Override
@@ -135,171 +540,285 @@ public class SampleTrackingConnector implements ProjectStatusProvider, SampleSta
         : askServiceForSample(sampleCode).map(SampleStatusMapper::toSampleStatus);
   }
 
-  private synchronized Optional<String> getCachedStatusForSample(String sampleCode) {
-    String projectCode = sampleCode.substring(0, 5);
-    synchronized (cachedProjects) {
-      if (cachedProjects.containsKey(projectCode)) {
-        Project project = cachedProjects.get(projectCode);
-        return project.stream()
-            .filter(it -> it.code().equals(sampleCode))
-            .map(Sample::status)
-            .findAny();
-      }
+  @Override
+  public CompletableFuture<Optional<String>> getForSampleAsync(String sampleCode) {
+    Optional<String> cachedStatusForSample = getCachedStatusForSample(sampleCode);
+    if (cachedStatusForSample.isPresent()) {
+      return CompletableFuture.completedFuture(cachedStatusForSample);
     }
-    return Optional.empty();
+    return askServiceForSampleAsync(sampleCode)
+        .thenApply(sample -> sample.map(SampleStatusMapper::toSampleStatus));
   }
 
-  private Optional<Project> askServiceForProject(String projectCode) {
-    String projectJson = requestProjectOverHttp(projectCode);
-    if (projectJson.isEmpty()) {
+  private Optional<String> getCachedStatusForSample(String sampleCode) {
+    if (!SampleCode.isValid(sampleCode)) {
       return Optional.empty();
     }
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new JavaTimeModule());
-    objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-    try {
-      List<Sample> samples = objectMapper.readValue(projectJson, new TypeReference<ArrayList<Sample>>() {
-      });
+    String projectCode = SampleCode.projectCodeOf(sampleCode);
+    return cachedProjects.get(projectCode)
+        .flatMap(project -> project.get(sampleCode))
+        .map(TrackedSample::status);
+  }
 
-      List<String> ngsSamples = ngsSampleRepository.findNGSSamplesForProject(projectCode);
-      samples = samples.stream().filter(sample -> ngsSamples.contains(sample.sampleCode)).collect(Collectors.toList());
+  /*
+   * Concurrent lookups of the same project share one request, which caches the project before
+   * the lookups are answered.
+   */
+  private Optional<ProjectSamples> askServiceForProject(String projectCode) {
+    return join(projectRequests.execute(projectCode, () -> CompletableFuture
+        .completedFuture(cacheProject(projectCode, requestProjectOverHttp(projectCode)))));
+  }
+
+  private CompletableFuture<Optional<ProjectSamples>> askServiceForProjectAsync(
+      String projectCode) {
+    return projectRequests.execute(projectCode, () -> requestProjectAsync(projectCode)
+        .thenApply(project -> cacheProject(projectCode, project)));
+  }
 
-      Project project = new Project();
-      project.addAll(samples);
-      synchronized (cachedProjects) {
-        cachedProjects.put(projectCode, project);
+  /*
+   * Rethrows the failure of a request as it was thrown by the request
+   */
+  private static <T> T join(CompletableFuture<T> request) {
+    try {
+      return request.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
-      return Optional.of(project);
-    } catch (JsonProcessingException e) {
-      log.error(e.getMessage(), e);
-      return Optional.empty();
+      throw e;
     }
   }
 
-  private String requestProjectOverHttp(String projectCode) {
+  private Optional<ProjectSamples> cacheProject(String projectCode,
+      Optional<ProjectSamples> project) {
+    project.ifPresent(it -> cachedProjects.put(projectCode, it));
+    return project;
+  }
+
+  private ProjectReader projectReader(String projectCode) {
+    return new ProjectReader(projectCode,
+        ngsSampleRepository.findPackedNGSSamplesForProject(projectCode));
+  }
+
+  /*
+   * Looking up the NGS samples may block on openBIS. Non-blocking requests therefore look them up
+   * on the lookup executor, never on the calling thread or the event loop of the async client.
+   */
+  private CompletableFuture<ProjectReader> projectReaderAsync(String projectCode) {
+    return CompletableFuture.supplyAsync(() -> projectReader(projectCode), lookupExecutor);
+  }
+
+  private String projectStatusUri(String projectCode) {
     String changingProjectSuffix = String.format("/%s", projectCode);
-    // uses httpclient5 https://hc.apache.org/httpcomponents-client-5.1.x/quickstart.html
-    final BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
-    credsProvider.setCredentials(
-        new AuthScope(null, -1),
-        new UsernamePasswordCredentials(serviceUser, userPass.toCharArray()));
-    try (CloseableHttpClient httpclient = HttpClients.custom()
-        .setDefaultCredentialsProvider(credsProvider).build()) {
-      HttpGet httpGet = new HttpGet(
-          serviceAddress + projectsSuffix + changingProjectSuffix + statusSuffix);
-      try (CloseableHttpResponse response = httpclient.execute(httpGet)) {
-        if (response.getCode() != 200) {
-          throw new RuntimeException(
-              String.format("Unsuccessful response for project %s: %s %s", projectCode, response.getCode(),
-                  response.getReasonPhrase()));
-        }
-        HttpEntity entity = response.getEntity();
-        String responseBody = EntityUtils.toString(entity);
-        EntityUtils.consume(entity);
+    return serviceAddress + projectsSuffix + changingProjectSuffix + statusSuffix;
+  }
 
-        return responseBody;
-      } catch (ParseException e) {
-        throw new RuntimeException(e);
-      }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+  private String projectChangesUri(String projectCode, Instant watermark) {
+    return projectStatusUri(projectCode) + "?" + STATUS_CHANGED_SINCE_PARAMETER + "=" + watermark;
   }
 
-  private Optional<String> requestSampleOverHttp(String sampleCode) {
+  private String sampleStatusUri(String sampleCode) {
     String changingSampleSuffix = String.format("/%s", sampleCode);
-    // uses httpclient5 https://hc.apache.org/httpcomponents-client-5.1.x/quickstart.html
-    final BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
-    credsProvider.setCredentials(
-        new AuthScope(null, -1),
-        new UsernamePasswordCredentials(serviceUser, userPass.toCharArray()));
-    try (CloseableHttpClient httpclient = HttpClients.custom()
-        .setDefaultCredentialsProvider(credsProvider).build()) {
-      HttpGet httpGet = new HttpGet(
-          serviceAddress + samplesSuffix + changingSampleSuffix + statusSuffix);
-      try (CloseableHttpResponse response = httpclient.execute(httpGet)) {
-        if (response.getCode() == 404) {
-          return Optional.empty();
-        }
-        if (response.getCode() != 200) {
-          throw new RuntimeException(String.format("Unsuccessful response for sample %s: %s %s", sampleCode,
-              response.getCode(),
-              response.getReasonPhrase()));
-        }
-        HttpEntity entity = response.getEntity();
-        String responseBody = EntityUtils.toString(entity);
-        EntityUtils.consume(entity);
+    return serviceAddress + samplesSuffix + changingSampleSuffix + statusSuffix;
+  }
 
-        return Optional.of(responseBody);
-      } catch (ParseException e) {
-        throw new RuntimeException(e);
+  private Optional<ProjectSamples> requestProjectOverHttp(String projectCode) {
+    HttpGet httpGet = new HttpGet(projectStatusUri(projectCode));
+    try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+      if (response.getCode() != 200) {
+        throw new RuntimeException(
+            String.format("Unsuccessful response for project %s: %s %s", projectCode, response.getCode(),
+                response.getReasonPhrase()));
+      }
+      HttpEntity entity = response.getEntity();
+      if (Objects.isNull(entity)) {
+        return Optional.empty();
+      }
+      ProjectReader projectReader = projectReader(projectCode);
+      try (InputStream content = entity.getContent()) {
+        boolean hasContent = SampleStatusJson.readSamples(content, projectReader::add);
+        return hasContent ? Optional.of(projectReader.project(CacheValidators.from(response)))
+            : Optional.empty();
       }
+    } catch (JsonProcessingException e) {
+      log.error(e.getMessage(), e);
+      return Optional.empty();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private Optional<Sample> askServiceForSample(String sampleCode) {
-
-    Optional<String> sampleJson = requestSampleOverHttp(sampleCode);
-    if (!sampleJson.isPresent()) {
-      return Optional.empty();
-    }
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new JavaTimeModule());
-    objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-    try {
-      Sample sample = objectMapper.readValue(sampleJson.get(), Sample.class);
-      String projectCode = sampleCode.substring(0, 5);
-      synchronized (cachedProjects) {
-        if (cachedProjects.containsKey(projectCode)) {
-          Project cachedProject = cachedProjects.get(projectCode);
-          cachedProject.add(sample);
-          cachedProjects.put(projectCode, cachedProject);
-        }
+  private Optional<TrackedSample> requestSampleOverHttp(String sampleCode) {
+    HttpGet httpGet = new HttpGet(sampleStatusUri(sampleCode));
+    try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+      if (response.getCode() == 404) {
+        EntityUtils.consume(response.getEntity());
+        return Optional.empty();
+      }
+      if (response.getCode() != 200) {
+        throw new RuntimeException(String.format("Unsuccessful response for sample %s: %s %s", sampleCode,
+            response.getCode(),
+            response.getReasonPhrase()));
+      }
+      try (InputStream content = response.getEntity().getContent()) {
+        return Optional.of(SampleStatusJson.readSample(content));
       }
-      return Optional.of(sample);
     } catch (JsonProcessingException e) {
       log.error(e.getMessage(), e);
       return Optional.empty();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
     }
   }
 
-  static private class ProjectStatusMapper {
-
-    static ProjectStatus toProjectStatus(Project project) {
-      int totalCount = project.size();
-      int receivedCount = (int) project.stream()
-          .filter(it -> it.status.equals("SAMPLE_RECEIVED"))
-          .count();
-      int sampleQcFailedCount = (int) project.stream()
-          .filter(it -> it.status.equals("SAMPLE_QC_FAIL"))
-          .count();
-      int sampleQcPassedCount = (int) project.stream()
-          .filter(it -> it.status.equals("SAMPLE_QC_PASS"))
-          .count();
-      int libraryPreparedCount = (int) project.stream()
-          .filter(it -> it.status.equals("LIBRARY_PREP_FINISHED"))
-          .count();
-      int dataAvailableCount = (int) project.stream()
-          .filter(it -> it.status.equals("DATA_AVAILABLE"))
-          .count();
-      Instant lastModified = project.stream().map(Sample::statusValidSince)
-          .max(Comparator.naturalOrder()).orElse(Instant.MIN);
-
-      return new ProjectStatus(totalCount,
-          receivedCount + sampleQcFailedCount + sampleQcPassedCount + libraryPreparedCount + dataAvailableCount,
-          sampleQcPassedCount + libraryPreparedCount + dataAvailableCount,
-          sampleQcFailedCount,
-          libraryPreparedCount + dataAvailableCount,
-          dataAvailableCount,
-          lastModified);
+  private CompletableFuture<Optional<ProjectSamples>> requestProjectAsync(String projectCode) {
+    return requestProjectAsync(projectCode, Optional.empty());
+  }
+
+  /*
+   * Asks the service whether the cached samples changed. If not, the cached samples are returned
+   * as they are and the response has no body to parse. In incremental mode, only the samples
+   * changed since the latest cached status are requested.
+   */
+  private CompletableFuture<Optional<ProjectSamples>> revalidateProjectAsync(String projectCode,
+      ProjectSamples cachedProject) {
+    Optional<Instant> watermark = cachedProject.watermark();
+    if (refreshMode == RefreshMode.INCREMENTAL && watermark.isPresent()) {
+      return requestChangesAsync(projectCode, cachedProject, watermark.get());
+    }
+    return requestProjectAsync(projectCode, Optional.of(cachedProject));
+  }
+
+  /*
+   * Merges the samples changed since the watermark into the cached samples. Only the status
+   * counts of the changed samples are updated. The validators of the cached samples belong to
+   * the full project resource, so they are neither sent with the request for the changes nor
+   * replaced by the validators of its response; the watermark alone selects the changes.
+   */
+  private CompletableFuture<Optional<ProjectSamples>> requestChangesAsync(String projectCode,
+      ProjectSamples cachedProject, Instant watermark) {
+    return projectReaderAsync(projectCode)
+        .thenCompose(
+            changes -> requestChangesAsync(projectCode, cachedProject, watermark, changes));
+  }
+
+  private CompletableFuture<Optional<ProjectSamples>> requestChangesAsync(String projectCode,
+      ProjectSamples cachedProject, Instant watermark, ProjectReader changes) {
+    StreamingSamplesConsumer responseConsumer = new StreamingSamplesConsumer(changes::add);
+    SimpleHttpRequest request = SimpleRequestBuilder
+        .get(projectChangesUri(projectCode, watermark)).build();
+    return executeAsync(SimpleRequestProducer.create(request), responseConsumer)
+        .thenApply(response -> {
+          if (response.getCode() != 200) {
+            throw new RuntimeException(
+                String.format("Unsuccessful response for changes of project %s: %s %s",
+                    projectCode, response.getCode(), response.getReasonPhrase()));
+          }
+          return Optional.of(
+              cachedProject.withChanges(changes.samples(), cachedProject.validators()));
+        });
+  }
+
+  /*
+   * The samples are parsed while the response body arrives. The request is conditional if
+   * cached samples are given.
+   */
+  private CompletableFuture<Optional<ProjectSamples>> requestProjectAsync(String projectCode,
+      Optional<ProjectSamples> cachedProject) {
+    return projectReaderAsync(projectCode)
+        .thenCompose(
+            projectReader -> requestProjectAsync(projectCode, cachedProject, projectReader));
+  }
+
+  private CompletableFuture<Optional<ProjectSamples>> requestProjectAsync(String projectCode,
+      Optional<ProjectSamples> cachedProject, ProjectReader projectReader) {
+    StreamingSamplesConsumer responseConsumer = new StreamingSamplesConsumer(projectReader::add);
+    SimpleHttpRequest request = SimpleRequestBuilder.get(projectStatusUri(projectCode)).build();
+    cachedProject.ifPresent(it -> it.validators().applyTo(request));
+    return executeAsync(SimpleRequestProducer.create(request), responseConsumer)
+        .thenApply(response -> {
+          if (response.getCode() == HttpStatus.SC_NOT_MODIFIED && cachedProject.isPresent()) {
+            return cachedProject;
+          }
+          if (response.getCode() != 200) {
+            throw new RuntimeException(
+                String.format("Unsuccessful response for project %s: %s %s", projectCode,
+                    response.getCode(), response.getReasonPhrase()));
+          }
+          return responseConsumer.isEmpty() ? Optional.<ProjectSamples>empty()
+              : Optional.of(projectReader.project(CacheValidators.from(response)));
+        });
+  }
+
+  private CompletableFuture<Optional<TrackedSample>> requestSampleAsync(String sampleCode) {
+    SimpleHttpRequest request = SimpleRequestBuilder.get(sampleStatusUri(sampleCode)).build();
+    return executeAsync(SimpleRequestProducer.create(request), SimpleResponseConsumer.create())
+        .thenApply(response -> {
+          if (response.getCode() == 404) {
+            return Optional.empty();
+          }
+          if (response.getCode() != 200) {
+            throw new RuntimeException(
+                String.format("Unsuccessful response for sample %s: %s %s", sampleCode,
+                    response.getCode(), response.getReasonPhrase()));
+          }
+          try {
+            return Optional.of(SampleStatusJson.readSample(response.getBodyBytes()));
+          } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return Optional.empty();
+          }
+        });
+  }
+
+  /*
+   * Sends the request on the event loop of the async client. No thread is blocked while waiting
+   * for the response.
+   */
+  private <T> CompletableFuture<T> executeAsync(AsyncRequestProducer requestProducer,
+      AsyncResponseConsumer<T> responseConsumer) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    asyncHttpClient.execute(requestProducer, responseConsumer, new FutureCallback<T>() {
+      @Override
+      public void completed(T response) {
+        result.complete(response);
+      }
+
+      @Override
+      public void failed(Exception e) {
+        result.completeExceptionally(e);
+      }
+
+      @Override
+      public void cancelled() {
+        result.cancel(false);
+      }
+    });
+    return result;
+  }
+
+  private Optional<TrackedSample> askServiceForSample(String sampleCode) {
+    return join(sampleRequests.execute(sampleCode, () -> CompletableFuture
+        .completedFuture(cacheSample(sampleCode, requestSampleOverHttp(sampleCode)))));
+  }
+
+  private CompletableFuture<Optional<TrackedSample>> askServiceForSampleAsync(String sampleCode) {
+    return sampleRequests.execute(sampleCode, () -> requestSampleAsync(sampleCode)
+        .thenApply(sample -> cacheSample(sampleCode, sample)));
+  }
+
+  private Optional<TrackedSample> cacheSample(String sampleCode, Optional<TrackedSample> sample) {
+    if (!sample.isPresent() || !SampleCode.isValid(sampleCode)) {
+      return sample;
     }
+    String projectCode = SampleCode.projectCodeOf(sampleCode);
+    cachedProjects.update(projectCode, project -> project.withSample(sample.get()));
+    return sample;
   }
 
   static private class SampleStatusMapper {
 
-    static String toSampleStatus(Sample sample) {
+    static String toSampleStatus(TrackedSample sample) {
       return sample.status();
     }
   }
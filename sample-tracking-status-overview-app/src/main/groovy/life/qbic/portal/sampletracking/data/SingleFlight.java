@@ -0,0 +1,67 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares one call among all concurrent lookups of the same key.
+ *
+ * <p>The first lookup of a key starts the call. Lookups of the same key arriving before the call
+ * completed get the result of that call instead of starting their own. The key is released once
+ * the call completed, so the call should store its result, e.g. in a cache, before it
+ * completes.</p>
+ *
+ * @since 1.2.0
+ */
+final class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final CoalescingMetrics metrics = new CoalescingMetrics();
+
+  /**
+   * Runs the call for the key unless a call for the key is already in flight
+   *
+   * <p>The returned future is shared by all lookups of the key. Callers that want to cancel
+   * should cancel a dependent future instead.</p>
+   *
+   * @param key  the key of the lookup
+   * @param call the call to run. It runs on the calling thread and returns the pending result.
+   * @return the result of the call in flight for the key
+   */
+  CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+    CompletableFuture<V> result = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, result);
+    if (Objects.nonNull(running)) {
+      metrics.recordCoalesced();
+      return running;
+    }
+    metrics.recordRequest();
+    CompletableFuture<V> pending;
+    try {
+      pending = call.get();
+    } catch (RuntimeException e) {
+      inFlight.remove(key, result);
+      result.completeExceptionally(e);
+      return result;
+    }
+    pending.whenComplete((value, error) -> {
+      inFlight.remove(key, result);
+      if (Objects.nonNull(error)) {
+        result.completeExceptionally(error);
+      } else {
+        result.complete(value);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @return the number of requests started and the number of lookups that joined one
+   */
+  CoalescingMetrics metrics() {
+    return metrics;
+  }
+}
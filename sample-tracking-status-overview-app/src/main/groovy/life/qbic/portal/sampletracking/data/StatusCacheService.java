@@ -0,0 +1,325 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <b>Shares one sample tracking connector between all portlet sessions</b>
+ *
+ * <p>The connector holds the connection pools and the caches of project and sample statuses. As
+ * all sessions use the same connector, a project loaded for one user is served from memory to
+ * all other users. The connector does not check authorization; sessions must access it through
+ * an {@link AuthorizedStatusProvider}.</p>
+ *
+ * <p>If a snapshot file is given, the cached statuses are restored from it when the connector
+ * is created, and written to it periodically and on shutdown. A restart then starts with warm
+ * caches, which are revalidated with the service in the background. The manifest export history
+ * is kept in a file next to the snapshot, written and restored together with it. So is the
+ * shared openBIS index, which is served from the file until it is read from openBIS again.</p>
+ *
+ * @since 1.2.0
+ */
+public final class StatusCacheService {
+
+  private static final Logger log = LoggerFactory.getLogger(StatusCacheService.class);
+
+  private static final ManifestExportHistory EXPORT_HISTORY = new ManifestExportHistory();
+  private static volatile SampleTrackingConnector INSTANCE;
+  private static ScheduledExecutorService snapshotScheduler;
+  private static ScheduledExecutorService refreshScheduler;
+  private static ExecutorService searchExecutor;
+  private static ExecutorService lookupExecutor;
+  private static OpenBisSessionManager openBisSessions;
+  private static volatile OpenBisConnector openBisIndex;
+  private static Path snapshotFile;
+  private static Path exportHistoryFile;
+  private static Path openBisIndexFile;
+
+  private StatusCacheService() {
+    //This is a static holder and not meant to be instantiated
+  }
+
+  /**
+   * Creates the shared connector. The connector is only created if there is no other existing.
+   * @param connectorFactory creates the connector
+   */
+  public static synchronized void init(Supplier<SampleTrackingConnector> connectorFactory) {
+    if (Objects.isNull(INSTANCE)) {
+      INSTANCE = Objects.requireNonNull(connectorFactory.get());
+      log.info("Created shared sample tracking connector.");
+    }
+  }
+
+  /**
+   * Creates the shared connector with caches restored from a snapshot. The connector is only
+   * created if there is no other existing.
+   * @param connectorFactory creates the connector
+   * @param snapshotFile     the file the cached statuses are restored from and written to
+   * @param snapshotInterval how often the cached statuses are written
+   */
+  public static synchronized void init(Supplier<SampleTrackingConnector> connectorFactory,
+      Path snapshotFile, Duration snapshotInterval) {
+    if (Objects.nonNull(INSTANCE)) {
+      return;
+    }
+    init(connectorFactory);
+    StatusCacheService.snapshotFile = Objects.requireNonNull(snapshotFile);
+    StatusCacheService.exportHistoryFile = exportHistoryFileNextTo(snapshotFile);
+    StatusCacheService.openBisIndexFile = snapshotFile.resolveSibling("openbis-index.bin");
+    restoreSnapshot(INSTANCE, snapshotFile);
+    restoreExportHistory(exportHistoryFile);
+    if (Objects.nonNull(openBisIndex)) {
+      restoreOpenBisIndex(openBisIndex, openBisIndexFile);
+    }
+    snapshotScheduler = Executors.newSingleThreadScheduledExecutor(
+        daemonThreads("status-cache-snapshot"));
+    long intervalMillis = snapshotInterval.toMillis();
+    SampleTrackingConnector connector = INSTANCE;
+    Path historyFile = exportHistoryFile;
+    Path indexFile = openBisIndexFile;
+    snapshotScheduler.scheduleWithFixedDelay(() -> {
+      writeSnapshot(connector, snapshotFile);
+      writeExportHistory(historyFile);
+      writeOpenBisIndex(openBisIndex, indexFile);
+    }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private static Path exportHistoryFileNextTo(Path snapshotFile) {
+    return snapshotFile.resolveSibling("manifest-export-history.bin");
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Returns the scheduler that runs periodic refreshes of caches, e.g. of the openBIS projects.
+   * The scheduler is shared by all sessions and stopped on shutdown.
+   * @return the shared refresh scheduler
+   */
+  public static synchronized ScheduledExecutorService refreshScheduler() {
+    if (Objects.isNull(refreshScheduler)) {
+      refreshScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("cache-refresh"));
+    }
+    return refreshScheduler;
+  }
+
+  /**
+   * Returns the executor that runs searches in parallel, e.g. the openBIS sample searches of
+   * several sample types. The executor is shared by all sessions and stopped on shutdown.
+   * @param threads the number of searches that run at once, only used when the executor is
+   *                created
+   * @return the shared search executor
+   */
+  public static synchronized ExecutorService searchExecutor(int threads) {
+    if (Objects.isNull(searchExecutor)) {
+      searchExecutor = Executors.newFixedThreadPool(threads, daemonThreads("openbis-search"));
+    }
+    return searchExecutor;
+  }
+
+  /**
+   * Returns the executor that runs blocking lookups for non-blocking requests, e.g. the NGS
+   * samples of a project that are needed to read its status response. The lookups may wait for
+   * searches, so they do not share the search executor. The executor is shared by all sessions
+   * and stopped on shutdown.
+   * @param threads the number of lookups that run at once, only used when the executor is
+   *                created
+   * @return the shared lookup executor
+   */
+  public static synchronized ExecutorService lookupExecutor(int threads) {
+    if (Objects.isNull(lookupExecutor)) {
+      lookupExecutor = Executors.newFixedThreadPool(threads, daemonThreads("ngs-sample-lookup"));
+    }
+    return lookupExecutor;
+  }
+
+  /**
+   * Returns the openBIS sessions shared by all portlet sessions, so that a user is not logged in
+   * again for every page. The sessions are logged out on shutdown.
+   * @param sessionManagerFactory creates the session manager, only used when there is none
+   * @return the shared openBIS sessions
+   */
+  public static synchronized OpenBisSessionManager openBisSessions(
+      Supplier<OpenBisSessionManager> sessionManagerFactory) {
+    if (Objects.isNull(openBisSessions)) {
+      openBisSessions = sessionManagerFactory.get();
+    }
+    return openBisSessions;
+  }
+
+  /**
+   * Returns the openBIS projects and NGS samples shared by all portlet sessions. They are read
+   * with the service user, so sessions must access them through an
+   * {@link AuthorizedOpenBisRepository}. The connector is closed on shutdown.
+   * @param connectorFactory creates the connector, only used when there is none
+   * @return the shared openBIS connector
+   */
+  public static synchronized OpenBisConnector openBisIndex(
+      Supplier<OpenBisConnector> connectorFactory) {
+    if (Objects.isNull(openBisIndex)) {
+      openBisIndex = Objects.requireNonNull(connectorFactory.get());
+      if (Objects.nonNull(openBisIndexFile)) {
+        restoreOpenBisIndex(openBisIndex, openBisIndexFile);
+      }
+    }
+    return openBisIndex;
+  }
+
+  private static void restoreSnapshot(SampleTrackingConnector connector, Path file) {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      int projectCount = connector.restoreSnapshot(file);
+      log.info(String.format("Restored %s projects from status snapshot %s", projectCount, file));
+      // the restored projects are served right away, the service is asked in the background
+      refreshScheduler().execute(connector::revalidateCachedProjects);
+    } catch (IOException e) {
+      log.warn(String.format("Could not restore status snapshot %s: %s", file, e.getMessage()));
+    }
+  }
+
+  private static void restoreOpenBisIndex(OpenBisConnector connector, Path file) {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      int projectCount = connector.restoreSnapshot(file);
+      log.info(String.format("Restored %s openBIS projects from %s", projectCount, file));
+      // the restored index is served right away, openBIS is read in the background
+      refreshScheduler().execute(() -> {
+        try {
+          connector.refresh();
+        } catch (RuntimeException e) {
+          log.warn(String.format("Could not refresh the restored openBIS index: %s",
+              e.getMessage()));
+        }
+      });
+    } catch (IOException e) {
+      log.warn(String.format("Could not restore openBIS index %s: %s", file, e.getMessage()));
+    }
+  }
+
+  private static void writeOpenBisIndex(OpenBisConnector connector, Path file) {
+    if (Objects.isNull(connector)) {
+      return;
+    }
+    try {
+      connector.writeSnapshot(file);
+    } catch (IOException | RuntimeException e) {
+      log.warn(String.format("Could not write openBIS index %s: %s", file, e.getMessage()));
+    }
+  }
+
+  private static void restoreExportHistory(Path file) {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      int exportCount = EXPORT_HISTORY.restore(file);
+      log.info(String.format("Restored %s manifest exports from %s", exportCount, file));
+    } catch (IOException e) {
+      log.warn(String.format("Could not restore manifest export history %s: %s", file,
+          e.getMessage()));
+    }
+  }
+
+  private static void writeExportHistory(Path file) {
+    try {
+      EXPORT_HISTORY.write(file);
+    } catch (IOException | RuntimeException e) {
+      log.warn(String.format("Could not write manifest export history %s: %s", file,
+          e.getMessage()));
+    }
+  }
+
+  private static void writeSnapshot(SampleTrackingConnector connector, Path file) {
+    try {
+      connector.writeSnapshot(file);
+    } catch (IOException | RuntimeException e) {
+      log.warn(String.format("Could not write status snapshot %s: %s", file, e.getMessage()));
+    }
+  }
+
+  /**
+   * Returns the shared connector
+   * @return the connector shared by all sessions
+   */
+  public static SampleTrackingConnector getInstance() {
+    SampleTrackingConnector instance = INSTANCE;
+    if (Objects.isNull(instance)) {
+      throw new RuntimeException(
+          "Call the init method first. Instance has not been initialized.");
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the manifest export history shared by all sessions. The history survives restarts if
+   * the connector was created with a snapshot file.
+   * @return the export history of all users
+   */
+  public static ManifestExportHistory exportHistory() {
+    return EXPORT_HISTORY;
+  }
+
+  /**
+   * Closes the shared connector, e.g. when the application is undeployed. A snapshot is written
+   * before, if snapshots are enabled. A later call of init creates a new connector.
+   */
+  public static synchronized void shutdown() {
+    if (Objects.nonNull(refreshScheduler)) {
+      refreshScheduler.shutdownNow();
+      refreshScheduler = null;
+    }
+    if (Objects.nonNull(searchExecutor)) {
+      searchExecutor.shutdownNow();
+      searchExecutor = null;
+    }
+    if (Objects.nonNull(lookupExecutor)) {
+      lookupExecutor.shutdownNow();
+      lookupExecutor = null;
+    }
+    if (Objects.nonNull(openBisIndex)) {
+      if (Objects.nonNull(openBisIndexFile)) {
+        writeOpenBisIndex(openBisIndex, openBisIndexFile);
+      }
+      openBisIndex.close();
+      openBisIndex = null;
+    }
+    if (Objects.nonNull(openBisSessions)) {
+      openBisSessions.close();
+      openBisSessions = null;
+    }
+    if (Objects.isNull(INSTANCE)) {
+      return;
+    }
+    if (Objects.nonNull(snapshotScheduler)) {
+      snapshotScheduler.shutdownNow();
+      writeSnapshot(INSTANCE, snapshotFile);
+      writeExportHistory(exportHistoryFile);
+      snapshotScheduler = null;
+      snapshotFile = null;
+      exportHistoryFile = null;
+      openBisIndexFile = null;
+    }
+    INSTANCE.close();
+    INSTANCE = null;
+  }
+}
@@ -0,0 +1,181 @@
+package life.qbic.portal.sampletracking.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+/**
+ * Writes and reads the cached samples of projects in a compact binary file.
+ *
+ * <p>The file starts with a header, followed by one record per project:</p>
+ * <pre>
+ * header:  int magic, short version, long written at (epoch milliseconds), int project count
+ * project: string code, string ETag, string Last-Modified, int sample count, samples
+ * sample:  string code, byte status ordinal (-1 if unknown, followed by string status),
+ *          byte has time, [long epoch seconds, int nanos]
+ * string:  short length (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * <p>The sample codes of a project are its NGS samples known to the sample tracking service.
+ * Files are read through a memory mapping and written to a temporary file that replaces the
+ * previous snapshot atomically, so readers never see a partially written snapshot.</p>
+ *
+ * @since 1.2.0
+ */
+final class StatusSnapshot {
+
+  private static final int MAGIC = 0x51535453;
+  private static final short VERSION = 1;
+  private static final byte UNKNOWN_STATUS = -1;
+  private static final SampleStatus[] STATUSES = SampleStatus.values();
+
+  private StatusSnapshot() {
+  }
+
+  /**
+   * Writes the samples of the projects to a file, replacing the file if it exists
+   * @param file     the snapshot file
+   * @param projects the samples by project code
+   * @throws IOException if the file could not be written
+   */
+  static void write(Path file, Map<String, ProjectSamples> projects) throws IOException {
+    Path directory = Objects.requireNonNull(file.toAbsolutePath().getParent());
+    Files.createDirectories(directory);
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeLong(System.currentTimeMillis());
+        output.writeInt(projects.size());
+        for (Entry<String, ProjectSamples> project : projects.entrySet()) {
+          writeProject(output, project.getKey(), project.getValue());
+        }
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private static void writeProject(DataOutputStream output, String projectCode,
+      ProjectSamples samples) throws IOException {
+    writeString(output, projectCode);
+    writeString(output, samples.validators().entityTag().orElse(null));
+    writeString(output, samples.validators().lastModified().orElse(null));
+    output.writeInt(samples.size());
+    for (TrackedSample sample : samples) {
+      writeString(output, sample.code());
+      if (Objects.isNull(sample.sampleStatus())) {
+        output.writeByte(UNKNOWN_STATUS);
+        writeString(output, sample.status());
+      } else {
+        output.writeByte(sample.sampleStatus().ordinal());
+      }
+      Instant statusValidSince = sample.statusValidSince();
+      output.writeBoolean(Objects.nonNull(statusValidSince));
+      if (Objects.nonNull(statusValidSince)) {
+        output.writeLong(statusValidSince.getEpochSecond());
+        output.writeInt(statusValidSince.getNano());
+      }
+    }
+  }
+
+  /*
+   * Strings are written and read the same way by the snapshot of the openBIS index.
+   */
+  static void writeString(DataOutputStream output, String value) throws IOException {
+    if (Objects.isNull(value)) {
+      output.writeShort(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > Short.MAX_VALUE) {
+      throw new IOException(String.format("Value too long for a snapshot: %s bytes", bytes.length));
+    }
+    output.writeShort(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads the samples of the projects from a file
+   * @param file the snapshot file
+   * @return the samples by project code
+   * @throws IOException if the file could not be read or is not a snapshot of this version
+   */
+  static Map<String, ProjectSamples> read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      try {
+        return readProjects(buffer);
+      } catch (RuntimeException e) {
+        // e.g. a truncated file
+        throw new IOException(String.format("Snapshot %s is corrupt", file), e);
+      }
+    }
+  }
+
+  private static Map<String, ProjectSamples> readProjects(ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Not a status snapshot");
+    }
+    short version = buffer.getShort();
+    if (version != VERSION) {
+      throw new IOException(String.format("Unsupported snapshot version %s", version));
+    }
+    buffer.getLong(); // written at
+    int projectCount = buffer.getInt();
+    Map<String, ProjectSamples> projects = new HashMap<>();
+    for (int i = 0; i < projectCount; i++) {
+      String projectCode = readString(buffer);
+      CacheValidators validators = CacheValidators.of(readString(buffer), readString(buffer));
+      int sampleCount = buffer.getInt();
+      LinkedHashMap<String, TrackedSample> samples = new LinkedHashMap<>();
+      for (int j = 0; j < sampleCount; j++) {
+        TrackedSample sample = readSample(buffer);
+        samples.put(sample.code(), sample);
+      }
+      projects.put(projectCode, new ProjectSamples(samples, validators));
+    }
+    return projects;
+  }
+
+  private static TrackedSample readSample(ByteBuffer buffer) {
+    String sampleCode = readString(buffer);
+    byte statusOrdinal = buffer.get();
+    String status = statusOrdinal == UNKNOWN_STATUS ? readString(buffer)
+        : STATUSES[statusOrdinal].name();
+    Instant statusValidSince = null;
+    if (buffer.get() != 0) {
+      statusValidSince = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+    return new TrackedSample(status, sampleCode, statusValidSince);
+  }
+
+  static String readString(ByteBuffer buffer) {
+    short length = buffer.getShort();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
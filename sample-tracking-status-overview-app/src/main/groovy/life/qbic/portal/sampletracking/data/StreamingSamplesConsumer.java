@@ -0,0 +1,127 @@
+package life.qbic.portal.sampletracking.data;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+
+/**
+ * Reads a JSON array of samples from an asynchronous response while the body arrives.
+ *
+ * <p>Every chunk of the body is fed to a non-blocking JSON parser. As soon as an array element is
+ * complete, it is read as {@link TrackedSample} and passed on. The response body is never held in
+ * memory as a whole. Bodies of unsuccessful responses are discarded.</p>
+ *
+ * @since 1.2.0
+ */
+final class StreamingSamplesConsumer extends AbstractBinResponseConsumer<HttpResponse> {
+
+  private static final int SUCCESS = 200;
+
+  private final Consumer<TrackedSample> sampleConsumer;
+  private JsonParser parser;
+  private ByteArrayFeeder feeder;
+  private HttpResponse response;
+  private TokenBuffer currentSample;
+  private int depth;
+  private boolean empty = true;
+
+  /**
+   * @param sampleConsumer receives the samples in the order of the array
+   */
+  StreamingSamplesConsumer(Consumer<TrackedSample> sampleConsumer) {
+    this.sampleConsumer = Objects.requireNonNull(sampleConsumer);
+  }
+
+  /**
+   * @return true if the response did not contain any JSON content
+   */
+  boolean isEmpty() {
+    return empty;
+  }
+
+  @Override
+  protected void start(HttpResponse response, ContentType contentType) throws IOException {
+    this.response = response;
+    if (response.getCode() == SUCCESS) {
+      parser = SampleStatusJson.SAMPLE_READER.getFactory().createNonBlockingByteArrayParser();
+      feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+  }
+
+  @Override
+  protected int capacityIncrement() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+    if (Objects.isNull(parser)) {
+      return;
+    }
+    if (src.hasRemaining()) {
+      byte[] chunk = new byte[src.remaining()];
+      src.get(chunk);
+      feeder.feedInput(chunk, 0, chunk.length);
+      readAvailableTokens();
+    }
+    if (endOfStream) {
+      feeder.endOfInput();
+      readAvailableTokens();
+    }
+  }
+
+  private void readAvailableTokens() throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      if (depth == 0 && token != JsonToken.START_ARRAY) {
+        throw new JsonParseException(parser,
+            String.format("Expected an array of samples but found %s", token));
+      }
+      empty = false;
+      if (token.isStructStart()) {
+        depth++;
+      } else if (token.isStructEnd()) {
+        depth--;
+      }
+      if (Objects.isNull(currentSample) && token == JsonToken.START_OBJECT && depth == 2) {
+        currentSample = new TokenBuffer(parser);
+      }
+      if (Objects.nonNull(currentSample)) {
+        currentSample.copyCurrentEvent(parser);
+        if (depth == 1) {
+          try (JsonParser sampleParser = currentSample.asParser()) {
+            sampleConsumer.accept(SampleStatusJson.SAMPLE_READER.readValue(sampleParser));
+          }
+          currentSample = null;
+        }
+      }
+    }
+  }
+
+  @Override
+  protected HttpResponse buildResult() {
+    return response;
+  }
+
+  @Override
+  public void releaseResources() {
+    if (Objects.nonNull(parser)) {
+      try {
+        parser.close();
+      } catch (IOException ignored) {
+        // nothing left to release
+      }
+      parser = null;
+    }
+    currentSample = null;
+  }
+}
@@ -0,0 +1,53 @@
+package life.qbic.portal.sampletracking.data;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+
+/**
+ * A sample as reported by the sample tracking service.
+ *
+ * @since 1.2.0
+ */
+final class TrackedSample {
+
+  private String status;
+  private SampleStatus sampleStatus;
+  @JsonProperty("sampleCode")
+  private String sampleCode;
+  @JsonProperty("statusValidSince")
+  private Instant statusValidSince;
+
+  private TrackedSample() {
+  }
+
+  TrackedSample(String status, String sampleCode, Instant statusValidSince) {
+    setStatus(status);
+    this.sampleCode = sampleCode;
+    this.statusValidSince = statusValidSince;
+  }
+
+  @JsonProperty("status")
+  private void setStatus(String status) {
+    this.status = status;
+    this.sampleStatus = SampleStatus.fromName(status).orElse(null);
+  }
+
+  public String status() {
+    return status;
+  }
+
+  /**
+   * @return the status of the sample, null if the status is not known to this application
+   */
+  public SampleStatus sampleStatus() {
+    return sampleStatus;
+  }
+
+  public String code() {
+    return sampleCode;
+  }
+
+  public Instant statusValidSince() {
+    return statusValidSince;
+  }
+}
@@ -42,6 +42,17 @@ public class ResponsiveGrid<T> extends Grid<T> {
     filterData();
   }
 
+  /**
+   * Sets the items of the grid with a list data provider, e.g. one that loads additional data
+   * for the rows it provides. The current filter is applied to the provided items.
+   * @param dataProvider the provider of the items
+   * @since 1.2.0
+   */
+  public void setItems(ListDataProvider<T> dataProvider) {
+    setDataProvider(dataProvider);
+    filterData();
+  }
+
   private void filterData() {
     if (Objects.isNull(gridFilter)) {
       return;
@@ -0,0 +1,70 @@
+package life.qbic.portal.sampletracking.view.projects;
+
+import com.vaadin.server.FileDownloader;
+import com.vaadin.server.StreamResource;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinSession;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import life.qbic.portal.sampletracking.data.DownloadManifestProvider;
+
+/**
+ * Downloads the manifests of several projects as one ZIP archive.
+ *
+ * <p>The projects are determined when the download is requested, so the downloader can stay
+ * attached while the selection changes. The archive is written directly to the response.</p>
+ *
+ * @since 1.2.0
+ */
+class ManifestArchiveDownloader extends FileDownloader {
+
+  private static final String FILE_NAME = "project-manifests.zip";
+
+  private final Supplier<List<String>> projectCodes;
+  private final DownloadManifestProvider manifestProvider;
+
+  ManifestArchiveDownloader(Supplier<List<String>> projectCodes,
+      DownloadManifestProvider manifestProvider) {
+    // the resource only provides the file name to the client, the content is written below
+    super(new StreamResource(() -> null, FILE_NAME));
+    this.projectCodes = Objects.requireNonNull(projectCodes);
+    this.manifestProvider = Objects.requireNonNull(manifestProvider);
+  }
+
+  @Override
+  public boolean handleConnectorRequest(VaadinRequest request, VaadinResponse response,
+      String path) throws IOException {
+    if (!path.matches("dl(/.*)?")) {
+      // not a download request of this downloader
+      return false;
+    }
+    List<String> selectedProjectCodes = selectedProjectCodes();
+    response.setContentType("application/zip");
+    response.setHeader("Content-Disposition", String.format("attachment; filename=\"%s\"",
+        FILE_NAME));
+    response.setCacheTime(0);
+    try (OutputStream outputStream = response.getOutputStream()) {
+      manifestProvider.writeManifestArchive(selectedProjectCodes, outputStream);
+    }
+    return true;
+  }
+
+  /*
+   * The selection belongs to the UI state and is read while holding the session lock. The
+   * archive is written after the lock was released.
+   */
+  private List<String> selectedProjectCodes() {
+    VaadinSession session = getSession();
+    session.lock();
+    try {
+      return new ArrayList<>(projectCodes.get());
+    } finally {
+      session.unlock();
+    }
+  }
+}
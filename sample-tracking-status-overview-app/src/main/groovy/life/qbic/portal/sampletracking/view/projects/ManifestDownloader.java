@@ -0,0 +1,69 @@
+package life.qbic.portal.sampletracking.view.projects;
+
+import com.vaadin.server.FileDownloader;
+import com.vaadin.server.StreamResource;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import life.qbic.portal.sampletracking.data.NewDataManifestProvider;
+
+/**
+ * Downloads the manifest of a project by writing it directly to the response.
+ *
+ * <p>A {@link StreamResource} would need the whole manifest as input stream. This downloader
+ * writes the sample codes to the response while they are read from the cached samples.</p>
+ *
+ * <p>A downloader for new data only writes the samples that became available since the
+ * project was last exported by the user.</p>
+ *
+ * @since 1.2.0
+ */
+class ManifestDownloader extends FileDownloader {
+
+  private final String projectCode;
+  private final String fileName;
+  private final NewDataManifestProvider manifestProvider;
+  private final boolean newDataOnly;
+
+  ManifestDownloader(String projectCode, NewDataManifestProvider manifestProvider) {
+    this(projectCode, manifestProvider, false);
+  }
+
+  ManifestDownloader(String projectCode, NewDataManifestProvider manifestProvider,
+      boolean newDataOnly) {
+    // the resource only provides the file name to the client, the content is written below
+    super(new StreamResource(() -> null, manifestFileName(projectCode, newDataOnly)));
+    this.projectCode = Objects.requireNonNull(projectCode);
+    this.fileName = manifestFileName(projectCode, newDataOnly);
+    this.manifestProvider = Objects.requireNonNull(manifestProvider);
+    this.newDataOnly = newDataOnly;
+  }
+
+  private static String manifestFileName(String projectCode, boolean newDataOnly) {
+    return newDataOnly ? String.format("%s-new-data-manifest.txt", projectCode)
+        : String.format("%s-manifest.txt", projectCode);
+  }
+
+  @Override
+  public boolean handleConnectorRequest(VaadinRequest request, VaadinResponse response,
+      String path) throws IOException {
+    if (!path.matches("dl(/.*)?")) {
+      // not a download request of this downloader
+      return false;
+    }
+    response.setContentType("text/plain; charset=UTF-8");
+    response.setHeader("Content-Disposition", String.format("attachment; filename=\"%s\"",
+        fileName));
+    response.setCacheTime(0);
+    try (OutputStream outputStream = response.getOutputStream()) {
+      if (newDataOnly) {
+        manifestProvider.writeNewDataManifestForProject(projectCode, outputStream);
+      } else {
+        manifestProvider.writeManifestForProject(projectCode, outputStream);
+      }
+    }
+    return true;
+  }
+}
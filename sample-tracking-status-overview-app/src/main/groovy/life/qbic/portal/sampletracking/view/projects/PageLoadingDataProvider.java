@@ -0,0 +1,38 @@
+package life.qbic.portal.sampletracking.view.projects;
+
+import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.server.SerializablePredicate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link ListDataProvider} that reports each page of items a component fetches, e.g. the rows
+ * a grid is about to show. Data that is shown with the items can then be loaded for exactly
+ * these rows, all at once.
+ *
+ * @since 1.2.0
+ */
+class PageLoadingDataProvider<T> extends ListDataProvider<T> {
+
+  private final Consumer<List<T>> pageListener;
+
+  /**
+   * @param items        the items of the provider
+   * @param pageListener is called with each fetched page, before the page is returned
+   */
+  PageLoadingDataProvider(Collection<T> items, Consumer<List<T>> pageListener) {
+    super(items);
+    this.pageListener = pageListener;
+  }
+
+  @Override
+  public Stream<T> fetch(Query<T, SerializablePredicate<T>> query) {
+    List<T> page = super.fetch(query).collect(Collectors.toList());
+    pageListener.accept(page);
+    return page.stream();
+  }
+}
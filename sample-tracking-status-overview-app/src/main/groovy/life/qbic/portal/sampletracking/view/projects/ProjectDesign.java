@@ -3,6 +3,7 @@ package life.qbic.portal.sampletracking.view.projects;
 import com.vaadin.annotations.AutoGenerated;
 import com.vaadin.annotations.DesignRoot;
 import com.vaadin.ui.Button;
+import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.ComboBox;
 import com.vaadin.ui.HorizontalLayout;
 import com.vaadin.ui.TextField;
@@ -24,6 +25,9 @@ public class ProjectDesign extends VerticalLayout {
     protected TextField searchField;
     protected ComboBox<String> sort;
     protected Button downloadButton;
+    protected Button newDataDownloadButton;
+    protected CheckBox multiSelectCheckBox;
+    protected Button archiveDownloadButton;
     protected Button projectsButton;
     protected Button samplesButton;
 
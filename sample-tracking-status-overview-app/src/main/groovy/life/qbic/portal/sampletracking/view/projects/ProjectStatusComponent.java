@@ -7,16 +7,18 @@ import com.vaadin.ui.Label;
 import com.vaadin.ui.UI;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import life.qbic.portal.sampletracking.data.ProjectStatusProvider;
 import life.qbic.portal.sampletracking.view.Spinner;
 import life.qbic.portal.sampletracking.view.projects.viewmodel.Project;
 import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 public class ProjectStatusComponent extends Composite {
 
-  private final ExecutorService executorService;
+  private static final Logger log = LogManager.getLogger(ProjectStatusComponent.class);
+
   private final ProjectStatusProvider trackingStatusProvider;
   private final Label receivedCountLabel;
   private final Label sampleQcCountLabel;
@@ -31,16 +33,25 @@ public class ProjectStatusComponent extends Composite {
   private final HorizontalLayout libraryPreparedLayout;
   private final HorizontalLayout dataAvailableLayout;
   private final Label errorMessage;
-  private Future<?> loadingTask;
+  private CompletableFuture<?> loadingTask;
+  private CompletableFuture<Optional<ProjectStatus>> requestedStatus;
 
   private ProjectStatus loadedData;
 
 
-  public ProjectStatusComponent(Project project, ExecutorService executorService,
-      ProjectStatusProvider trackingStatusProvider) {
+  public ProjectStatusComponent(Project project, ProjectStatusProvider trackingStatusProvider) {
+    this(project, trackingStatusProvider, null);
+  }
+
+  /**
+   * @param requestedStatus a status that was already requested for this project, e.g. together
+   *                        with other projects. Can be null.
+   */
+  ProjectStatusComponent(Project project, ProjectStatusProvider trackingStatusProvider,
+      CompletableFuture<Optional<ProjectStatus>> requestedStatus) {
     this.project = project;
-    this.executorService = executorService;
     this.trackingStatusProvider = trackingStatusProvider;
+    this.requestedStatus = requestedStatus;
 
     spinner = new Spinner();
 
@@ -115,21 +126,33 @@ public class ProjectStatusComponent extends Composite {
     statusLayout.setVisible(false);
     errorMessage.setVisible(false);
     spinner.setVisible(true);
-    loadingTask = executorService.submit(() -> {
-      Optional<ProjectStatus> retrieved = trackingStatusProvider.getForProject(project.code());
-      ui.access(() -> {
-        retrieved.ifPresent(it -> {
-          showProjectStatus(it);
-          project.setProjectStatus(it);
-          statusLayout.setVisible(true);
-        });
-        if (!retrieved.isPresent()) {
-          errorMessage.setVisible(true);
-        }
-        spinner.setVisible(false);
-        this.setWidthFull();
-      });
-    });
+    loadingTask = requestStatus()
+        .whenComplete((retrieved, error) -> ui.access(() -> {
+          if (Objects.nonNull(error)) {
+            log.error(error.getMessage(), error);
+          }
+          if (Objects.nonNull(retrieved)) {
+            retrieved.ifPresent(it -> {
+              showProjectStatus(it);
+              project.setProjectStatus(it);
+              statusLayout.setVisible(true);
+            });
+          }
+          if (Objects.isNull(retrieved) || !retrieved.isPresent()) {
+            errorMessage.setVisible(true);
+          }
+          spinner.setVisible(false);
+          this.setWidthFull();
+        }));
+  }
+
+  private CompletableFuture<Optional<ProjectStatus>> requestStatus() {
+    if (Objects.nonNull(requestedStatus)) {
+      CompletableFuture<Optional<ProjectStatus>> status = requestedStatus;
+      requestedStatus = null;
+      return status;
+    }
+    return trackingStatusProvider.getForProjectAsync(project.code());
   }
 
   private void showProjectStatus(ProjectStatus projectStatus) {
@@ -195,7 +218,7 @@ public class ProjectStatusComponent extends Composite {
   @Override
   public void detach() {
     if (Objects.nonNull(loadingTask)) {
-      loadingTask.cancel(true);
+      loadingTask.cancel(false);
     }
     super.detach();
   }
@@ -1,10 +1,14 @@
 package life.qbic.portal.sampletracking.view.projects;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import life.qbic.portal.sampletracking.data.ProjectStatusProvider;
 import life.qbic.portal.sampletracking.view.projects.viewmodel.Project;
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus;
 
 /**
  * Provides {@link ProjectStatusComponent}s. Caches components to prevent duplicate creation.
@@ -12,14 +16,12 @@ import life.qbic.portal.sampletracking.view.projects.viewmodel.Project;
  * @since 1.1.4
  */
 public class ProjectStatusComponentProvider {
-  private final ExecutorService executorService;
   private final ProjectStatusProvider trackingStatusProvider;
 
   private final Map<String, ProjectStatusComponent> summaries = new HashMap<>();
+  private final Map<String, CompletableFuture<Optional<ProjectStatus>>> requestedStatuses = new HashMap<>();
 
-  public ProjectStatusComponentProvider(ExecutorService executorService,
-      ProjectStatusProvider trackingStatusProvider) {
-    this.executorService = executorService;
+  public ProjectStatusComponentProvider(ProjectStatusProvider trackingStatusProvider) {
     this.trackingStatusProvider = trackingStatusProvider;
   }
 
@@ -27,15 +29,36 @@ public class ProjectStatusComponentProvider {
     if (summaries.containsKey(project.code())) {
       return summaries.get(project.code());
     }
-    ProjectStatusComponent statusSummary = new ProjectStatusComponent(project, executorService,
-        trackingStatusProvider);
+    ProjectStatusComponent statusSummary = new ProjectStatusComponent(project,
+        trackingStatusProvider, requestedStatuses.remove(project.code()));
     summaries.put(project.code(), statusSummary);
     return statusSummary;
   }
 
-  @Override
-  protected void finalize() throws Throwable {
-    super.finalize();
-    executorService.shutdownNow();
+  /**
+   * Requests the statuses of the given projects at once, e.g. of the page of rows a grid is about
+   * to show. Components created for these projects afterwards use the result of this request
+   * instead of requesting their status one by one. Projects that already have a component or a
+   * requested status are skipped.
+   *
+   * <p>The request does not block the calling thread: the NGS samples are looked up on the
+   * lookup executor of the connector and the statuses are requested by its non-blocking HTTP
+   * client.</p>
+   *
+   * @param projects the projects to load the status for
+   * @since 1.2.0
+   */
+  public void loadStatuses(Collection<Project> projects) {
+    Collection<String> projectCodes = projects.stream()
+        .map(Project::code)
+        .filter(it -> !summaries.containsKey(it) && !requestedStatuses.containsKey(it))
+        .collect(Collectors.toList());
+    if (projectCodes.isEmpty()) {
+      return;
+    }
+    CompletableFuture<Map<String, ProjectStatus>> statuses = trackingStatusProvider
+        .getForProjectsAsync(projectCodes);
+    projectCodes.forEach(it -> requestedStatuses.put(it,
+        statuses.thenApply(loaded -> Optional.ofNullable(loaded.get(it)))));
   }
 }
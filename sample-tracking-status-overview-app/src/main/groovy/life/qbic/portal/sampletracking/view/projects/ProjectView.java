@@ -1,11 +1,11 @@
 package life.qbic.portal.sampletracking.view.projects;
 
+import com.vaadin.event.selection.MultiSelectionEvent;
 import com.vaadin.event.selection.SingleSelectionEvent;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.Extension;
 import com.vaadin.server.FileDownloader;
-import com.vaadin.server.StreamResource;
 import com.vaadin.shared.data.sort.SortDirection;
 import com.vaadin.shared.ui.ContentMode;
 import com.vaadin.shared.ui.ValueChangeMode;
@@ -22,7 +22,7 @@ import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
-import life.qbic.portal.sampletracking.data.DownloadManifestProvider;
+import life.qbic.portal.sampletracking.data.NewDataManifestProvider;
 import life.qbic.portal.sampletracking.data.ProjectRepository;
 import life.qbic.portal.sampletracking.data.Subscription;
 import life.qbic.portal.sampletracking.data.SubscriptionRepository;
@@ -47,14 +47,14 @@ public class ProjectView extends ProjectDesign {
   private final HorizontalLayout spinnerLayout;
 
   private final List<SampleViewRequestedListener> sampleViewRequestedListeners = new ArrayList<>();
-  private final DownloadManifestProvider manifestProvider;
+  private final NewDataManifestProvider manifestProvider;
 
 
   public ProjectView(ProjectRepository projectRepository,
       SubscriptionRepository subscriptionRepository,
       ProjectStatusComponentProvider projectStatusComponentProvider,
       SubscriptionCheckboxProvider subscriptionCheckboxProvider,
-      DownloadManifestProvider manifestProvider) {
+      NewDataManifestProvider manifestProvider) {
     this.projectStatusComponentProvider = projectStatusComponentProvider;
     this.subscriptionRepository = subscriptionRepository;
     this.subscriptionCheckboxProvider = subscriptionCheckboxProvider;
@@ -71,6 +71,7 @@ public class ProjectView extends ProjectDesign {
     addTooltips();
     listenToSampleViewButton();
     setupDownloadButton();
+    setupArchiveDownload();
   }
 
   private void setupDownloadButton() {
@@ -81,14 +82,48 @@ public class ProjectView extends ProjectDesign {
             + "Use <a href=\"https://github.com/qbicsoftware/postman-cli\" target=\"_blank\">"
             + VaadinIcons.EXTERNAL_LINK.getHtml() + " qpostman</a> to download the sample data.",
         ContentMode.HTML);
+    newDataDownloadButton.setIcon(VaadinIcons.DOWNLOAD);
+    newDataDownloadButton.setDescription(
+        "A manifest containing only the samples with data that became available since you last downloaded a manifest of this project.");
+  }
+
+  /*
+   * In multi-select mode the manifests of all selected projects are downloaded as one archive.
+   * The single project buttons only work with a single selection and are hidden meanwhile.
+   */
+  private void setupArchiveDownload() {
+    archiveDownloadButton.setIcon(VaadinIcons.DOWNLOAD);
+    archiveDownloadButton.setDescription(
+        "Downloads a ZIP archive containing the manifest of each selected project.");
+    FileDownloader archiveDownloader = new ManifestArchiveDownloader(
+        () -> projectGrid.getSelectedItems().stream()
+            .map(Project::code)
+            .collect(Collectors.toList()),
+        manifestProvider);
+    archiveDownloader.extend(archiveDownloadButton);
+    multiSelectCheckBox.addValueChangeListener(it -> {
+      clearSelectedProject();
+      if (Boolean.TRUE.equals(it.getValue())) {
+        projectGrid.setSelectionMode(SelectionMode.MULTI);
+        archiveDownloadButton.setVisible(true);
+      } else {
+        projectGrid.setSelectionMode(SelectionMode.SINGLE);
+        archiveDownloadButton.setVisible(false);
+      }
+      // selection listeners belong to the replaced selection model
+      listenToProjectSelection();
+      archiveDownloadButton.setEnabled(false);
+    });
   }
 
   private void updateDownloadableProject(String projectCode) {
     removeFileDownloaders(downloadButton);
-    FileDownloader fileDownloader = new FileDownloader(
-        new StreamResource(() -> manifestProvider.getManifestForProject(projectCode),
-            String.format("%s-manifest.txt", projectCode)));
+    removeFileDownloaders(newDataDownloadButton);
+    FileDownloader fileDownloader = new ManifestDownloader(projectCode, manifestProvider);
     fileDownloader.extend(downloadButton);
+    FileDownloader newDataDownloader = new ManifestDownloader(projectCode, manifestProvider,
+        true);
+    newDataDownloader.extend(newDataDownloadButton);
   }
 
   private static void removeFileDownloaders(ClientConnector clientConnector) {
@@ -112,6 +147,9 @@ public class ProjectView extends ProjectDesign {
           clearSelectedProject();
         }
       }
+      if (it instanceof MultiSelectionEvent) {
+        archiveDownloadButton.setEnabled(!it.getAllSelectedItems().isEmpty());
+      }
     });
   }
 
@@ -119,11 +157,13 @@ public class ProjectView extends ProjectDesign {
     hideDownloadButton();
     disableDownloadButton();
     removeFileDownloaders(downloadButton);
+    removeFileDownloaders(newDataDownloadButton);
     samplesButton.setEnabled(false);
   }
 
   private void disableDownloadButton() {
     downloadButton.setEnabled(false);
+    newDataDownloadButton.setEnabled(false);
   }
 
   private void selectProject(Project project) {
@@ -135,6 +175,7 @@ public class ProjectView extends ProjectDesign {
       hideDownloadButton();
       disableDownloadButton();
       removeFileDownloaders(downloadButton);
+      removeFileDownloaders(newDataDownloadButton);
     }
     if (project.projectStatus().totalCount() < 1) {
       samplesButton.setEnabled(false);
@@ -145,13 +186,16 @@ public class ProjectView extends ProjectDesign {
 
   private void enableDownloadButton() {
     downloadButton.setEnabled(true);
+    newDataDownloadButton.setEnabled(true);
   }
   private void showDownloadButton() {
     downloadButton.setVisible(true);
+    newDataDownloadButton.setVisible(true);
   }
 
   private void hideDownloadButton() {
     downloadButton.setVisible(false);
+    newDataDownloadButton.setVisible(false);
   }
 
   private void addSpinner() {
@@ -224,7 +268,9 @@ public class ProjectView extends ProjectDesign {
             projectGrid.setVisible(true);
             spinnerLayout.setVisible(false);
             loadSubscriptions(projects);
-            projectGrid.setItems(projects);
+            // the statuses are requested for the rows the grid fetches, a page at a time
+            projectGrid.setItems(new PageLoadingDataProvider<>(projects,
+                projectStatusComponentProvider::loadStatuses));
           });
         });
 
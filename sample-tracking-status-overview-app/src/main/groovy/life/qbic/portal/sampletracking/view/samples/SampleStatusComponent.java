@@ -6,9 +6,6 @@ import com.vaadin.ui.HorizontalLayout;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.UI;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import life.qbic.portal.sampletracking.data.SampleStatusProvider;
 import life.qbic.portal.sampletracking.view.Spinner;
 import life.qbic.portal.sampletracking.view.projects.State;
@@ -22,17 +19,14 @@ public class SampleStatusComponent extends Composite implements Comparable<Sampl
 
   private final SampleStatusProvider sampleStatusProvider;
 
-  private final ExecutorService executorService;
   private final Label label;
   private final Spinner spinner = new Spinner();
   private final Sample sample;
   private String loadedData = "";
 
-  public SampleStatusComponent(Sample sample, SampleStatusProvider sampleStatusProvider,
-      ExecutorService executorService) {
+  public SampleStatusComponent(Sample sample, SampleStatusProvider sampleStatusProvider) {
     this.sampleStatusProvider = sampleStatusProvider;
     this.sample = sample;
-    this.executorService = executorService;
     label = new Label();
     HorizontalLayout rootLayout = new HorizontalLayout();
     rootLayout.setMargin(new MarginInfo(false, true));
@@ -61,29 +55,29 @@ public class SampleStatusComponent extends Composite implements Comparable<Sampl
     getCompositionRoot().removeStyleNames(State.FAILED.getCssClass(), State.IN_PROGRESS.getCssClass(), State.COMPLETED.getCssClass());
     spinner.setVisible(true);
     label.setVisible(false);
-    Future<?> submit = executorService.submit(() -> {
-      try {
-        Optional<String> retrieved = sampleStatusProvider.getForSample(sample.code());
-        ui.access(() -> {
-          retrieved.ifPresent(it -> {
-            showSampleStatus(it);
-            sample.setSampleStatus(it);
-          });
-          if (!retrieved.isPresent()) {
-            showError();
+    sampleStatusProvider.getForSampleAsync(sample.code())
+        .whenComplete((retrieved, error) -> {
+          if (Objects.nonNull(error)) {
+            log.error(error.getMessage(), error);
+            ui.access(() -> {
+              showError();
+              spinner.setVisible(false);
+              label.setVisible(true);
+            });
+            return;
           }
-          spinner.setVisible(false);
-          label.setVisible(true);
-        });
-      } catch (Exception e) {
-        log.error(e.getMessage(), e);
-        ui.access(() -> {
-          showError();
-          spinner.setVisible(false);
-          label.setVisible(true);
+          ui.access(() -> {
+            retrieved.ifPresent(it -> {
+              showSampleStatus(it);
+              sample.setSampleStatus(it);
+            });
+            if (!retrieved.isPresent()) {
+              showError();
+            }
+            spinner.setVisible(false);
+            label.setVisible(true);
+          });
         });
-      }
-    });
   }
 
   private void showSampleStatus(String sampleStatus) {
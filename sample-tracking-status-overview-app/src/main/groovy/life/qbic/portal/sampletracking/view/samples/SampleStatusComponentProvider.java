@@ -2,7 +2,6 @@ package life.qbic.portal.sampletracking.view.samples;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import life.qbic.portal.sampletracking.data.SampleStatusProvider;
 import life.qbic.portal.sampletracking.view.samples.viewmodel.Sample;
 
@@ -13,14 +12,11 @@ import life.qbic.portal.sampletracking.view.samples.viewmodel.Sample;
  */
 public class SampleStatusComponentProvider {
 
-  private final ExecutorService executorService;
   private final SampleStatusProvider trackingStatusProvider;
 
   private final Map<Sample, SampleStatusComponent> components = new HashMap<>();
 
-  public SampleStatusComponentProvider(ExecutorService executorService,
-      SampleStatusProvider trackingStatusProvider) {
-    this.executorService = executorService;
+  public SampleStatusComponentProvider(SampleStatusProvider trackingStatusProvider) {
     this.trackingStatusProvider = trackingStatusProvider;
   }
 
@@ -28,15 +24,8 @@ public class SampleStatusComponentProvider {
     if (components.containsKey(sample)) {
       return components.get(sample);
     }
-    SampleStatusComponent component = new SampleStatusComponent(sample, trackingStatusProvider,
-        executorService);
+    SampleStatusComponent component = new SampleStatusComponent(sample, trackingStatusProvider);
     components.put(sample, component);
     return component;
   }
-
-  @Override
-  protected void finalize() throws Throwable {
-    super.finalize();
-    executorService.shutdownNow();
-  }
 }
@@ -0,0 +1,70 @@
+package life.qbic.portal.sampletracking
+
+import life.qbic.portal.sampletracking.data.RefreshMode
+import spock.lang.Specification
+
+import java.nio.file.Paths
+import java.time.Duration
+
+/**
+ * <p>Tests reading the optional settings of the portlet</p>
+ *
+ * @since 1.2.0
+ */
+class PortletSettingsSpec extends Specification {
+
+    def "Configured settings are read"() {
+        given:
+        PortletSettings settings = settings([
+                "sampletracking.pool.max-total"    : " 80 ",
+                "sampletracking.pool.keep-alive"   : "PT45S",
+                "sampletracking.cache.refresh-mode": "full",
+                "openbis.ngs-sample-types"         : "DNA, RNA,,",
+                "sampletracking.snapshot.file"     : "/var/data/status-snapshot.bin"
+        ])
+
+        expect:
+        settings.positiveInt("sampletracking.pool.max-total", 50) == 80
+        settings.duration("sampletracking.pool.keep-alive", Duration.ofSeconds(30)) == Duration.ofSeconds(45)
+        settings.enumValue("sampletracking.cache.refresh-mode", RefreshMode, RefreshMode.INCREMENTAL) == RefreshMode.FULL
+        settings.list("openbis.ngs-sample-types", ["DNA"]) == ["DNA", "RNA"]
+        settings.path("sampletracking.snapshot.file", Paths.get("snapshot.bin")) == Paths.get("/var/data/status-snapshot.bin")
+    }
+
+    def "Missing settings fall back to their default"() {
+        given:
+        PortletSettings settings = settings([:])
+
+        expect:
+        settings.positiveInt("sampletracking.pool.max-total", 50) == 50
+        settings.duration("sampletracking.pool.keep-alive", Duration.ofSeconds(30)) == Duration.ofSeconds(30)
+        settings.enumValue("sampletracking.cache.refresh-mode", RefreshMode, RefreshMode.INCREMENTAL) == RefreshMode.INCREMENTAL
+        settings.list("openbis.ngs-sample-types", ["DNA"]) == ["DNA"]
+        settings.path("sampletracking.snapshot.file", Paths.get("snapshot.bin")) == Paths.get("snapshot.bin")
+    }
+
+    def "Invalid settings fall back to their default"() {
+        given:
+        PortletSettings settings = settings([
+                "sampletracking.pool.max-total"    : value,
+                "sampletracking.pool.keep-alive"   : value,
+                "sampletracking.cache.refresh-mode": value,
+                "openbis.ngs-sample-types"         : ","
+        ])
+
+        expect:
+        settings.positiveInt("sampletracking.pool.max-total", 50) == 50
+        settings.duration("sampletracking.pool.keep-alive", Duration.ofSeconds(30)) == Duration.ofSeconds(30)
+        settings.enumValue("sampletracking.cache.refresh-mode", RefreshMode, RefreshMode.INCREMENTAL) == RefreshMode.INCREMENTAL
+        settings.list("openbis.ngs-sample-types", ["DNA"]) == ["DNA"]
+
+        where:
+        value << ["not a value", "0", "-PT1S"]
+    }
+
+    private static PortletSettings settings(Map<String, String> values) {
+        Properties properties = new Properties()
+        properties.putAll(values)
+        return new PortletSettings(properties)
+    }
+}
@@ -0,0 +1,48 @@
+package life.qbic.portal.sampletracking.components.projectoverview.download
+
+import life.qbic.business.download.DownloadManifest
+import life.qbic.business.download.DownloadManifestWriter
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * <p>Reports the time of streaming a download manifest compared with the previous formatter
+ * that concatenated the rows</p>
+ *
+ * <p>The timings depend on the machine and are not asserted. The benchmark runs with the
+ * benchmarks profile: <code>mvn test -P benchmarks</code></p>
+ *
+ * @since 1.2.0
+ */
+class DownloadManifestWriterBenchmark extends Specification {
+
+    private static final int SAMPLE_COUNT = 100_000
+    private static final int PREVIOUS_FORMATTER_SAMPLES = 20_000
+
+    /**
+     * The previous formatter is quadratic, it is measured with fewer sample codes.
+     */
+    def "Streaming a manifest of many sample codes is timed against concatenating the rows"() {
+        given:
+        List<String> sampleCodes = DownloadManifestWriterSpec.sampleCodes(SAMPLE_COUNT)
+        DownloadManifest manifest = DownloadManifest.from(sampleCodes)
+
+        when:
+        long start = System.nanoTime()
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream()
+        new DownloadManifestWriter(streamed).withCloseable { it.writeManifest(manifest) }
+        long streamingNanos = System.nanoTime() - start
+
+        List<String> fewerSampleCodes = sampleCodes.subList(0, PREVIOUS_FORMATTER_SAMPLES)
+        start = System.nanoTime()
+        String concatenated = fewerSampleCodes.collect { "${it}\n" }.sum("")
+        long concatenatingNanos = System.nanoTime() - start
+
+        then:
+        println String.format("manifest: streamed %d codes in %d ms, concatenated %d codes in %d ms",
+                SAMPLE_COUNT, streamingNanos.intdiv(1_000_000),
+                PREVIOUS_FORMATTER_SAMPLES, concatenatingNanos.intdiv(1_000_000))
+        streamed.toString(StandardCharsets.UTF_8.name()).startsWith(concatenated)
+    }
+}
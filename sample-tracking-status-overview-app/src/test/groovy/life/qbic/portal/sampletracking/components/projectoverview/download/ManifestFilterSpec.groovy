@@ -0,0 +1,64 @@
+package life.qbic.portal.sampletracking.components.projectoverview.download
+
+import life.qbic.business.download.DownloadManifest
+import life.qbic.business.download.ManifestFilter
+import spock.lang.Specification
+
+import java.time.Instant
+
+/**
+ * <p>Tests limiting download manifests to a subset of samples</p>
+ *
+ * @since 1.2.0
+ */
+class ManifestFilterSpec extends Specification {
+
+    static final Instant CUTOFF = Instant.parse("2022-10-01T12:00:00Z")
+
+    def "A filter without limits includes every sample"() {
+        expect:
+        ManifestFilter.all().includes("QABCD001A0", null)
+        ManifestFilter.all().includes("QABCD001A0", CUTOFF)
+        ManifestFilter.all().includesAll()
+        !ManifestFilter.all().withStatusValidAfter(CUTOFF).includesAll()
+        !ManifestFilter.all().withSampleCodes(["QABCD001A0"]).includesAll()
+    }
+
+    def "A cutoff includes only samples whose status became valid after it"() {
+        given:
+        ManifestFilter filter = ManifestFilter.all().withStatusValidAfter(CUTOFF)
+
+        expect:
+        filter.includes("QABCD001A0", statusValidSince) == included
+
+        where:
+        statusValidSince         | included
+        CUTOFF.plusSeconds(1)    | true
+        CUTOFF                   | false
+        CUTOFF.minusSeconds(1)   | false
+        null                     | false
+    }
+
+    def "A sample subset and a cutoff are both applied"() {
+        given:
+        ManifestFilter filter = ManifestFilter.all()
+                .withSampleCodes(["QABCD001A0", "QABCD002A8"])
+                .withStatusValidAfter(CUTOFF)
+
+        expect:
+        filter.includes("QABCD001A0", CUTOFF.plusSeconds(1))
+        !filter.includes("QABCD002A8", CUTOFF.minusSeconds(1))
+        !filter.includes("QABCD003AG", CUTOFF.plusSeconds(1))
+    }
+
+    def "A restricted manifest keeps the order of the selected sample codes"() {
+        given:
+        DownloadManifest manifest = DownloadManifest.from(["C", "A", "B", "D"])
+
+        when:
+        DownloadManifest restricted = manifest.restrictedTo(["D", "C", "B", "X"])
+
+        then:
+        restricted.listSampleCodes() == ["C", "B", "D"]
+    }
+}
@@ -0,0 +1,69 @@
+package life.qbic.portal.sampletracking.components.samples
+
+import life.qbic.business.samples.SampleCode
+import spock.lang.Specification
+
+/**
+ * <p>Tests validating and packing QBiC sample codes</p>
+ *
+ * @since 1.2.0
+ */
+class SampleCodeSpec extends Specification {
+
+    private static final String REGEX = "Q[A-X0-9]{4}[0-9]{3}[A-X0-9]{2}\$"
+
+    def "The validator agrees with the regular expression for #code"() {
+        expect:
+        SampleCode.isValid(code) == code.matches(REGEX)
+
+        where:
+        code << ["QABCD001A0", "QX0X9999XX", "Q000000000", "QABCD001AY", "QABCDA01A0", "qABCD001A0",
+                 "QABCD001A", "QABCD001A00", "QABCD", "", "QABCD001a0", "QYBCD001A0"]
+    }
+
+    def "A packed code is restored to the same code"() {
+        expect:
+        SampleCode.unpack(SampleCode.pack(code)) == code
+        SampleCode.parse(code).toString() == code
+
+        where:
+        code << ["QABCD001A0", "QX0X9999XX", "Q000000000", "QWXYZ123GH"]
+    }
+
+    def "Packed codes sort in the order of the codes"() {
+        given:
+        List<String> codes = ["QABCD002A8", "Q0BCD001A0", "QABCD001A0", "QABCE001A0", "QABCD001AX",
+                              "QABCD0019X"]
+
+        expect:
+        codes.sort(false) { SampleCode.pack(it) } == codes.sort(false)
+    }
+
+    def "Codes of the same project have the same project key"() {
+        expect:
+        SampleCode.projectKey(SampleCode.pack("QABCD001A0")) == SampleCode.projectKey(SampleCode.pack("QABCD999XX"))
+        SampleCode.projectKey(SampleCode.pack("QABCD001A0")) != SampleCode.projectKey(SampleCode.pack("QABCE001A0"))
+        SampleCode.parse("QABCD001A0").projectCode() == "QABCD"
+        SampleCode.projectCodeOf("QABCD001A0") == "QABCD"
+    }
+
+    def "Invalid codes and values are rejected"() {
+        when:
+        SampleCode.pack("QABCD001")
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        SampleCode.unpack(-1L)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        SampleCode.projectCodeOf("QAB")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,157 @@
+package life.qbic.portal.sampletracking.data
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.SearchResult
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.search.ProjectSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.search.SampleSearchCriteria
+import life.qbic.business.samples.SampleCode
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+import java.util.function.LongSupplier
+
+/**
+ * <p>Tests restricting the shared openBIS index to the projects a user can see</p>
+ *
+ * @since 1.2.0
+ */
+class AuthorizedOpenBisRepositorySpec extends Specification {
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(15)
+
+    // the service user sees the NGS samples of all projects
+    private List<String> sampleCodes = ["QABCD001A0", "QABCD002A8", "QEFGH001A0"]
+    private List<String> userProjects = ["QABCD", "QIJKL"]
+    private AtomicInteger userProjectSearches = new AtomicInteger()
+    private AtomicInteger sampleSearches = new AtomicInteger()
+    private long now = 0
+
+    private IApplicationServerApi serviceOpenBis() {
+        return [
+                login         : { String user, String password -> "service-token" },
+                searchSamples : { String token, SampleSearchCriteria criteria, SampleFetchOptions fetchOptions ->
+                    sampleSearches.incrementAndGet()
+                    List<String> page = sampleCodes.drop(fetchOptions.from).take(fetchOptions.count)
+                    return new SearchResult<Sample>(page.collect { sample(it, fetchOptions) }, sampleCodes.size())
+                },
+                searchProjects: { String token, ProjectSearchCriteria criteria, def fetchOptions ->
+                    List<Project> projects = ["QABCD", "QEFGH"].collect { project(it) }
+                    return new SearchResult<Project>(projects, projects.size())
+                }
+        ] as IApplicationServerApi
+    }
+
+    private IApplicationServerApi userOpenBis() {
+        return [
+                loginAs         : { String user, String password, String asUser -> "user-token" },
+                isSessionActive : { String token -> true },
+                searchProjects  : { String token, ProjectSearchCriteria criteria, def fetchOptions ->
+                    userProjectSearches.incrementAndGet()
+                    if (userProjects == null) {
+                        throw new RuntimeException("openBIS is not available")
+                    }
+                    List<Project> projects = userProjects.collect { project(it) }
+                    return new SearchResult<Project>(projects, projects.size())
+                }
+        ] as IApplicationServerApi
+    }
+
+    private static Project project(String code) {
+        Project project = new Project()
+        project.code = code
+        project.description = "Description of ${code}".toString()
+        return project
+    }
+
+    private static Sample sample(String code, SampleFetchOptions fetchOptions) {
+        Sample sample = new Sample()
+        sample.code = code
+        sample.fetchOptions = fetchOptions
+        sample.properties = [:]
+        return sample
+    }
+
+    private AuthorizedOpenBisRepository repository(OpenBisConnector sharedIndex) {
+        OpenBisSession userSession = new OpenBisSession(userOpenBis(),
+                { it.loginAs("service", "password", "user") } as Function, Duration.ofMinutes(1),
+                { now } as LongSupplier)
+        return new AuthorizedOpenBisRepository(sharedIndex, userSession, REFRESH_INTERVAL, { now } as LongSupplier)
+    }
+
+    private OpenBisConnector sharedIndex() {
+        return new OpenBisConnector(serviceOpenBis(), { it.login("service", "password") }, 10,
+                SampleLoading.EAGER)
+    }
+
+    def "Only the projects of the shared index the user can see are provided"() {
+        given:
+        AuthorizedOpenBisRepository repository = repository(sharedIndex())
+
+        expect:
+        repository.findAllProjects()*.code() == ["QABCD"]
+        repository.containsProject("QABCD")
+        !repository.containsProject("QEFGH")
+        !repository.containsProject("QIJKL")
+        repository.findNGSSamplesForProject("QABCD") == ["QABCD001A0", "QABCD002A8"]
+        repository.findNGSSamplesForProject("QEFGH").isEmpty()
+        repository.findAllSamplesForProject("QEFGH").isEmpty()
+        !repository.findPackedNGSSamplesForProject("QEFGH").test(SampleCode.pack("QEFGH001A0"))
+    }
+
+    def "Several users share the samples of the index"() {
+        given:
+        OpenBisConnector sharedIndex = sharedIndex()
+        AuthorizedOpenBisRepository firstUser = repository(sharedIndex)
+        AuthorizedOpenBisRepository secondUser = repository(sharedIndex)
+
+        when:
+        firstUser.findAllProjects()
+        secondUser.findAllProjects()
+        secondUser.findNGSSamplesForProject("QABCD")
+
+        then: "the samples were searched once for both users"
+        sampleSearches.get() == 1
+        userProjectSearches.get() == 2
+    }
+
+    def "The projects of the user are searched again when read after the refresh interval"() {
+        given:
+        AuthorizedOpenBisRepository repository = repository(sharedIndex())
+        repository.findAllProjects()
+
+        when: "the user gains access to a project and reads within the interval"
+        userProjects = ["QABCD", "QEFGH"]
+        now += REFRESH_INTERVAL.toNanos() - 1
+        List<String> withinInterval = repository.findAllProjects()*.code()
+
+        then:
+        withinInterval == ["QABCD"]
+        userProjectSearches.get() == 1
+
+        when: "the user reads after the interval"
+        now += 1
+        List<String> afterInterval = repository.findAllProjects()*.code()
+
+        then:
+        afterInterval.sort() == ["QABCD", "QEFGH"]
+        userProjectSearches.get() == 2
+    }
+
+    def "A failing search keeps the projects found before"() {
+        given:
+        AuthorizedOpenBisRepository repository = repository(sharedIndex())
+        repository.findAllProjects()
+
+        when:
+        userProjects = null
+        now += REFRESH_INTERVAL.toNanos()
+
+        then:
+        repository.findAllProjects()*.code() == ["QABCD"]
+    }
+}
@@ -0,0 +1,146 @@
+package life.qbic.portal.sampletracking.data
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import life.qbic.business.download.ManifestFilter
+import life.qbic.portal.sampletracking.view.projects.viewmodel.Project
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * <p>Tests the manifests written for a user and their export history</p>
+ *
+ * @since 1.2.0
+ */
+class AuthorizedStatusProviderSpec extends Specification {
+
+    private static final String PROJECT_CODE = "QABCD"
+    private static final List<String> SAMPLE_CODES = ["QABCD001A0", "QABCD002A8", "QABCD003AG", "QABCD004AO"]
+
+    private HttpServer server
+    private volatile List<Map<String, String>> samples = []
+    private SampleTrackingConnector connector
+    private ManifestExportHistory exportHistory = new ManifestExportHistory()
+    private AuthorizedStatusProvider provider
+
+    def setup() {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/v2/projects/${PROJECT_CODE}/status", { HttpExchange exchange ->
+            String json = "[" + samples.collect {
+                """{"sampleCode": "${it.code}", "status": "${it.status}", "statusValidSince": "${it.since}"}"""
+            }.join(",") + "]"
+            byte[] body = json.getBytes(StandardCharsets.UTF_8)
+            exchange.responseHeaders.add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.write(body)
+            exchange.close()
+        })
+        server.start()
+        NgsSampleRepository ngsSamples = new NgsSampleRepository() {
+            @Override
+            List<String> findNGSSamplesForProject(String projectCode) {
+                return SAMPLE_CODES
+            }
+        }
+        ProjectRepository userProjects = new ProjectRepository() {
+            @Override
+            List<Project> findAllProjects() {
+                return [new Project(PROJECT_CODE, "A project")]
+            }
+        }
+        // projects expire right away, so every manifest is written from a new response
+        connector = new SampleTrackingConnector("http://localhost:${server.address.port}",
+                "/v2/samples", "/status", "/v2/projects",
+                new Credentials("user", "password"), ngsSamples,
+                ConnectionPoolSettings.defaults(), 4,
+                new CacheSettings(10, Duration.ofMillis(5), Duration.ofMillis(1), RefreshMode.FULL))
+        provider = new AuthorizedStatusProvider(connector, userProjects, "user", exportHistory)
+    }
+
+    def cleanup() {
+        connector?.close()
+        server.stop(0)
+    }
+
+    private void dataAvailable(String code, String since) {
+        samples = samples + [[code: code, status: "DATA_AVAILABLE", since: since]]
+        // lets the cached project expire
+        Thread.sleep(20)
+    }
+
+    private List<String> newDataManifest() {
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream()
+        provider.writeNewDataManifestForProject(PROJECT_CODE, manifest)
+        return manifest.toString(StandardCharsets.UTF_8.name()).readLines()
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Each new data manifest is recorded and contains only the samples since the previous one"() {
+        given:
+        dataAvailable("QABCD001A0", "2022-03-01T10:00:00Z")
+        dataAvailable("QABCD002A8", "2022-03-02T10:00:00Z")
+
+        when: "the user downloads new data without a previous export"
+        List<String> first = newDataManifest()
+
+        then: "all samples are written and recorded"
+        first == ["QABCD001A0", "QABCD002A8"]
+        exportHistory.lastExport("user", PROJECT_CODE).get() == Instant.parse("2022-03-02T10:00:00Z")
+
+        when: "the user downloads new data again without changes"
+        List<String> second = newDataManifest()
+
+        then:
+        second.isEmpty()
+        exportHistory.lastExport("user", PROJECT_CODE).get() == Instant.parse("2022-03-02T10:00:00Z")
+
+        when: "another sample gets data"
+        dataAvailable("QABCD003AG", "2022-03-03T10:00:00Z")
+        List<String> third = newDataManifest()
+
+        then:
+        third == ["QABCD003AG"]
+        exportHistory.lastExport("user", PROJECT_CODE).get() == Instant.parse("2022-03-03T10:00:00Z")
+    }
+
+    /**
+     * The cutoff is exclusive: samples at the recorded time belong to the recorded export.
+     * @since 1.2.0
+     */
+    def "A sample whose status became valid at exactly the recorded time is not written again"() {
+        given:
+        dataAvailable("QABCD001A0", "2022-03-01T10:00:00Z")
+        newDataManifest()
+
+        when:
+        dataAvailable("QABCD002A8", "2022-03-01T10:00:00Z")
+        dataAvailable("QABCD003AG", "2022-03-01T10:00:00.001Z")
+        List<String> manifest = newDataManifest()
+
+        then:
+        manifest == ["QABCD003AG"]
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Manifests limited to a subset of samples are not recorded"() {
+        given:
+        dataAvailable("QABCD001A0", "2022-03-01T10:00:00Z")
+        dataAvailable("QABCD002A8", "2022-03-02T10:00:00Z")
+
+        when:
+        provider.writeManifestForProject(PROJECT_CODE,
+                ManifestFilter.all().withSampleCodes(["QABCD002A8"]),
+                new ByteArrayOutputStream())
+
+        then:
+        !exportHistory.lastExport("user", PROJECT_CODE).isPresent()
+        newDataManifest() == ["QABCD001A0", "QABCD002A8"]
+    }
+}
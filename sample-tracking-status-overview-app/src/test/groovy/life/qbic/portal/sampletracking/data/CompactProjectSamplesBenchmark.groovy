@@ -0,0 +1,82 @@
+package life.qbic.portal.sampletracking.data
+
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.SampleType
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.id.SampleIdentifier
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.id.SamplePermId
+import spock.lang.Specification
+
+/**
+ * <p>Reports the heap footprint of the samples of a project kept as openBIS objects compared
+ * with the compact representation</p>
+ *
+ * <p>The footprint is measured from the used heap after garbage collection. It depends on the
+ * JVM, which is reported with it, and is not asserted. The benchmark runs with the benchmarks
+ * profile: <code>mvn test -P benchmarks</code></p>
+ *
+ * @since 1.2.0
+ */
+class CompactProjectSamplesBenchmark extends Specification {
+
+    private static final int SAMPLE_COUNT = 100_000
+    private static final String SYMBOLS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWX"
+
+    def "The heap footprint per 100k samples is reported"() {
+        given:
+        long baseline = usedHeap()
+
+        when: "the openBIS objects are kept"
+        List<Sample> openBisSamples = (0..<SAMPLE_COUNT).collect { openBisSample(it) }
+        long openBisFootprint = usedHeap() - baseline
+
+        and: "only the compact samples are kept"
+        CompactProjectSamples.Builder builder = new CompactProjectSamples.Builder("QABCD")
+        openBisSamples.each { builder.add(it.code, it.getProperty("Q_SECONDARY_NAME")) }
+        CompactProjectSamples compactSamples = builder.build()
+        openBisSamples = null
+        builder = null
+        long compactFootprint = usedHeap() - baseline
+
+        then:
+        // the JVM is reported with the numbers, they differ between JVMs
+        println String.format("Heap per %,d samples: openBIS objects %,d KiB, compact %,d KiB (%s %s, max heap %,d MiB)",
+                SAMPLE_COUNT, openBisFootprint.intdiv(1024), compactFootprint.intdiv(1024),
+                System.getProperty("java.vm.name"), System.getProperty("java.version"),
+                Runtime.getRuntime().maxMemory().intdiv(1024 * 1024))
+        compactSamples.size() == SAMPLE_COUNT
+    }
+
+    private static Sample openBisSample(int index) {
+        int suffix = index.intdiv(1000)
+        String code = String.format("QABCD%03d%s%s", index % 1000,
+                SYMBOLS[suffix.intdiv(SYMBOLS.length())], SYMBOLS[suffix % SYMBOLS.length()])
+        SampleFetchOptions fetchOptions = new SampleFetchOptions()
+        fetchOptions.withType()
+        fetchOptions.withProperties()
+        SampleType type = new SampleType()
+        type.code = "Q_TEST_SAMPLE"
+        Sample sample = new Sample()
+        sample.fetchOptions = fetchOptions
+        sample.code = code
+        sample.permId = new SamplePermId("20220301000000000-${index}".toString())
+        sample.identifier = new SampleIdentifier("/SPACE/QABCD/${code}".toString())
+        sample.type = type
+        sample.properties = [
+                "Q_SAMPLE_TYPE"   : "DNA",
+                "Q_SECONDARY_NAME": "sample ${index}".toString(),
+                "Q_EXTERNALDB_ID" : "external ${index}".toString(),
+                "Q_ADDITIONAL_INFO": ""
+        ]
+        return sample
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime()
+        3.times {
+            System.gc()
+            Thread.sleep(50)
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+}
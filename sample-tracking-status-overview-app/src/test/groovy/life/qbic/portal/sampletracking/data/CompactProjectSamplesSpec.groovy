@@ -0,0 +1,61 @@
+package life.qbic.portal.sampletracking.data
+
+import life.qbic.business.samples.SampleCode
+import spock.lang.Specification
+
+/**
+ * <p>Tests the compact representation of the openBIS samples of a project</p>
+ *
+ * @since 1.2.0
+ */
+class CompactProjectSamplesSpec extends Specification {
+
+    def "The samples keep their codes, labels and order"() {
+        when:
+        CompactProjectSamples samples = new CompactProjectSamples.Builder(new String("QABCD"))
+                .add("QABCD002A8", "second")
+                .add("QABCD001A0", null)
+                .build()
+
+        then:
+        samples.projectCode().is("QABCD")
+        samples.sampleCodes() == ["QABCD002A8", "QABCD001A0"]
+        samples.toSamples()*.code() == ["QABCD002A8", "QABCD001A0"]
+        samples.toSamples()*.label() == ["second", null]
+        !samples.toSamples().is(samples.toSamples())
+    }
+
+    def "Packed sample codes are found in sorted and unsorted samples"() {
+        given:
+        CompactProjectSamples.Builder builder = new CompactProjectSamples.Builder("QABCD")
+        codes.each { builder.add(it, null) }
+        CompactProjectSamples samples = builder.build()
+
+        expect:
+        codes.every { samples.containsPacked(SampleCode.pack(it)) }
+        !samples.containsPacked(SampleCode.pack("QABCD004AW"))
+        !samples.containsPacked(SampleCode.pack("QEFGH001A0"))
+
+        where:
+        codes << [["QABCD001A0", "QABCD002A8", "QABCD003AG"], ["QABCD003AG", "QABCD001A0", "QABCD002A8"]]
+    }
+
+    def "Samples found by several searches are merged once and sorted by code"() {
+        given:
+        CompactProjectSamples dna = new CompactProjectSamples.Builder("QABCD")
+                .add("QABCD003AO", "dna")
+                .add("QABCD001A0", "first")
+                .build()
+        CompactProjectSamples rna = new CompactProjectSamples.Builder("QABCD")
+                .add("QABCD001A0", "duplicate")
+                .add("QABCD002A8", "rna")
+                .build()
+
+        when:
+        CompactProjectSamples merged = CompactProjectSamples.merge("QABCD", [dna, rna])
+
+        then:
+        merged.sampleCodes() == ["QABCD001A0", "QABCD002A8", "QABCD003AO"]
+        merged.toSamples()*.label() == ["first", "rna", "dna"]
+    }
+}
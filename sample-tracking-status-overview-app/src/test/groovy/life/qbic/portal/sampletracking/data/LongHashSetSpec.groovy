@@ -0,0 +1,32 @@
+package life.qbic.portal.sampletracking.data
+
+import spock.lang.Specification
+
+/**
+ * <p>Tests the primitive long set</p>
+ *
+ * @since 1.2.0
+ */
+class LongHashSetSpec extends Specification {
+
+    def "The set contains exactly the added values"() {
+        given:
+        LongHashSet set = new LongHashSet(2)
+        Random random = new Random(42)
+        Set<Long> expected = new HashSet<>()
+        expected.add(0L)
+        set.add(0L)
+
+        when: "more values are added than expected"
+        10_000.times {
+            long value = random.nextLong()
+            assert set.add(value) == expected.add(value)
+        }
+
+        then:
+        set.size() == expected.size()
+        expected.every { set.contains(it) }
+        !set.add(0L)
+        (0..<1000).count { set.contains(random.nextLong()) } == 0
+    }
+}
@@ -0,0 +1,74 @@
+package life.qbic.portal.sampletracking.data
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+
+/**
+ * <p>Tests recording manifest exports and keeping them across restarts</p>
+ *
+ * @since 1.2.0
+ */
+class ManifestExportHistorySpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    /**
+     * @since 1.2.0
+     */
+    def "Only a later status time replaces the recorded export"() {
+        given:
+        ManifestExportHistory history = new ManifestExportHistory()
+
+        when:
+        history.recordExport("user", "QABCD", Instant.parse("2022-03-02T10:00:00Z"))
+        history.recordExport("user", "QABCD", Instant.parse("2022-03-01T10:00:00Z"))
+
+        then:
+        history.lastExport("user", "QABCD").get() == Instant.parse("2022-03-02T10:00:00Z")
+        !history.lastExport("user", "QEFGH").isPresent()
+        !history.lastExport("other user", "QABCD").isPresent()
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "A written history restores the exports of all users"() {
+        given:
+        Path file = directory.resolve("manifest-export-history.bin")
+        ManifestExportHistory history = new ManifestExportHistory()
+        history.recordExport("user", "QABCD", Instant.parse("2022-03-01T10:00:00.123456789Z"))
+        history.recordExport("user", "QEFGH", Instant.parse("2022-03-02T10:00:00Z"))
+        history.recordExport("other user", "QABCD", Instant.parse("2022-03-03T10:00:00Z"))
+
+        when: "the history is restored after a restart"
+        history.write(file)
+        ManifestExportHistory restored = new ManifestExportHistory()
+        int exportCount = restored.restore(file)
+
+        then:
+        exportCount == 3
+        restored.lastExport("user", "QABCD").get() == Instant.parse("2022-03-01T10:00:00.123456789Z")
+        restored.lastExport("user", "QEFGH").get() == Instant.parse("2022-03-02T10:00:00Z")
+        restored.lastExport("other user", "QABCD").get() == Instant.parse("2022-03-03T10:00:00Z")
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Restoring a file that is not an export history fails"() {
+        given:
+        Path file = directory.resolve("manifest-export-history.bin")
+        Files.write(file, "not a history".bytes)
+
+        when:
+        new ManifestExportHistory().restore(file)
+
+        then:
+        thrown(IOException)
+    }
+}
@@ -0,0 +1,338 @@
+package life.qbic.portal.sampletracking.data
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.CodeSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.CodesSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.ISearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.SearchResult
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.StringPropertySearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.search.ProjectSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.search.SampleSearchCriteria
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+
+/**
+ * <p>Tests loading the NGS samples of an openBIS instance page by page and on demand</p>
+ *
+ * @since 1.2.0
+ */
+class OpenBisConnectorSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    private List<String> sampleCodes = (1..25).collect { String.format("QABCD%03dA0", it) } +
+            (1..7).collect { String.format("QEFGH%03dA0", it) } +
+            ["QABCD", "QABCD000"] // invalid sample codes are ignored
+    // the QEFGH samples are RNA samples, all others are DNA samples
+    private Closure<String> sampleTypeOf = { String code -> code.startsWith("QEFGH") ? "M_RNA" : "DNA" }
+    // the stub may be called by several threads at once
+    private List<List<Integer>> requestedPages = Collections.synchronizedList([])
+    private List<List<String>> searchedSampleTypes = Collections.synchronizedList([])
+    private List<SampleFetchOptions> sampleFetchOptions = Collections.synchronizedList([])
+    private List<Collection<String>> searchedProjectCodes = Collections.synchronizedList([])
+
+    private IApplicationServerApi openBis() {
+        return [
+                login         : { String user, String password -> "session-token" },
+                searchSamples : { String token, SampleSearchCriteria criteria, SampleFetchOptions fetchOptions ->
+                    requestedPages << [fetchOptions.from, fetchOptions.count]
+                    sampleFetchOptions << fetchOptions
+                    String projectCode = projectCodeOf(criteria)
+                    List<String> sampleTypes = sampleTypesOf(criteria)
+                    if (fetchOptions.from == 0) {
+                        searchedSampleTypes << sampleTypes
+                    }
+                    List<String> matching = sampleCodes.sort(false)
+                            .findAll { projectCode == null || it.startsWith(projectCode) }
+                            .findAll { code -> sampleTypes.any { sampleTypeOf(code).contains(it) } }
+                    List<String> page = matching.drop(fetchOptions.from).take(fetchOptions.count)
+                    return new SearchResult<Sample>(page.collect { sample(it, fetchOptions) },
+                            matching.size())
+                },
+                searchProjects: { String token, ProjectSearchCriteria criteria, def fetchOptions ->
+                    CodesSearchCriteria codes = criteria.criteria.find { it instanceof CodesSearchCriteria }
+                    searchedProjectCodes << codes?.fieldValue
+                    List<Project> projects = ["QABCD", "QEFGH", "QIJKL"]
+                            .findAll { codes == null || codes.fieldValue.contains(it) }
+                            .collect { project(it) }
+                    return new SearchResult<Project>(projects, projects.size())
+                }
+        ] as IApplicationServerApi
+    }
+
+    private static String projectCodeOf(SampleSearchCriteria criteria) {
+        ProjectSearchCriteria project = criteria.criteria.find { it instanceof ProjectSearchCriteria }
+        CodeSearchCriteria code = project?.criteria?.find { it instanceof CodeSearchCriteria }
+        return code?.fieldValue?.value
+    }
+
+    private static List<String> sampleTypesOf(ISearchCriteria criteria) {
+        if (criteria instanceof StringPropertySearchCriteria) {
+            return [criteria.fieldValue.value]
+        }
+        if (criteria instanceof SampleSearchCriteria) {
+            return criteria.criteria.collectMany { sampleTypesOf(it) }
+        }
+        return []
+    }
+
+    private static Project project(String code) {
+        Project project = new Project()
+        project.code = code
+        project.description = "Description of ${code}".toString()
+        return project
+    }
+
+    private static Sample sample(String code, SampleFetchOptions fetchOptions) {
+        Sample sample = new Sample()
+        sample.code = code
+        sample.fetchOptions = fetchOptions
+        sample.properties = ["Q_SECONDARY_NAME": "secondary name of ${code}".toString()]
+        return sample
+    }
+
+    def "The samples are requested in pages of the configured size"() {
+        given:
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+
+        when:
+        List<String> projects = connector.findAllProjects()*.code()
+
+        then:
+        requestedPages == [[0, 10], [10, 10], [20, 10], [30, 10]]
+        projects.sort() == ["QABCD", "QEFGH"]
+        connector.findNGSSamplesForProject("QABCD").size() == 25
+        connector.findNGSSamplesForProject("QEFGH") == (1..7).collect { String.format("QEFGH%03dA0", it) }
+        connector.findAllSamplesForProject("QEFGH").first().label() == "secondary name of QEFGH001A0"
+        connector.findNGSSamplesForProject("QIJKL").isEmpty()
+    }
+
+    def "Only the projects with NGS samples are searched and no sample type is fetched"() {
+        given:
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+
+        when:
+        List<String> descriptions = connector.findAllProjects()*.title()
+
+        then:
+        searchedProjectCodes.size() == 1
+        searchedProjectCodes.first().sort() == ["QABCD", "QEFGH"]
+        descriptions.sort() == ["Description of QABCD", "Description of QEFGH"]
+        sampleFetchOptions.every { it.hasProperties() && !it.hasType() && !it.hasProject() }
+    }
+
+    def "In partitioned mode each sample type is searched on its own and the results are merged"() {
+        given:
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10,
+                SampleLoading.PARTITIONED, ["DNA", "RNA", "M_RNA"], executor)
+
+        when:
+        List<String> projects = connector.findAllProjects()*.code()
+
+        then: "the RNA samples found by two searches are kept once"
+        searchedSampleTypes.sort() == [["DNA"], ["M_RNA"], ["RNA"]]
+        projects.sort() == ["QABCD", "QEFGH"]
+        connector.findNGSSamplesForProject("QABCD").size() == 25
+        connector.findNGSSamplesForProject("QEFGH") == (1..7).collect { String.format("QEFGH%03dA0", it) }
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "In partitioned mode a single sample type can be refreshed"() {
+        given:
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10,
+                SampleLoading.PARTITIONED, ["DNA", "M_RNA"], executor)
+        connector.findAllProjects()
+
+        when: "new samples of both types are added and only the DNA samples are refreshed"
+        sampleCodes = sampleCodes + ["QIJKL001A0", "QEFGH008A0"]
+        searchedSampleTypes.clear()
+        connector.refreshSampleType("DNA")
+
+        then:
+        searchedSampleTypes == [["DNA"]]
+        connector.findAllProjects()*.code().sort() == ["QABCD", "QEFGH", "QIJKL"]
+        connector.findNGSSamplesForProject("QIJKL") == ["QIJKL001A0"]
+        connector.findNGSSamplesForProject("QEFGH").size() == 7
+
+        when: "the refresh of a sample type that is not configured is requested"
+        connector.refreshSampleType("RNA")
+
+        then:
+        thrown(IllegalArgumentException)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "A page size that is not positive is rejected"() {
+        when:
+        new OpenBisConnector(openBis(), { it.login("user", "password") }, 0, SampleLoading.EAGER)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "In lazy mode the samples of a project are loaded when they are first needed"() {
+        given:
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.LAZY)
+
+        when: "the projects are listed"
+        List<String> projects = connector.findAllProjects()*.code()
+
+        then: "all projects are found with one project search and no sample is searched"
+        projects.sort() == ["QABCD", "QEFGH", "QIJKL"]
+        requestedPages.isEmpty()
+        searchedProjectCodes == [null]
+
+        when: "the samples of a project are read twice"
+        List<String> samples = connector.findNGSSamplesForProject("QABCD")
+        connector.findAllSamplesForProject("QABCD")
+
+        then: "they are loaded page by page once"
+        requestedPages == [[0, 10], [10, 10], [20, 10]]
+        samples.size() == 25
+        connector.findNGSSamplesForProject("QIJKL").isEmpty()
+    }
+
+    def "In lazy mode a failed load of the samples of a project is repeated by the next read"() {
+        given:
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.LAZY)
+        connector.findAllProjects()
+        List<String> availableSamples = sampleCodes
+
+        when: "openBIS fails while the samples of a project are loaded"
+        sampleCodes = null
+        connector.findNGSSamplesForProject("QABCD")
+
+        then:
+        thrown(RuntimeException)
+
+        when: "the samples are read again after openBIS recovered"
+        sampleCodes = availableSamples
+        List<String> samples = connector.findNGSSamplesForProject("QABCD")
+
+        then:
+        samples.size() == 25
+    }
+
+    def "A refresh replaces the projects and samples at once"() {
+        given:
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+        List<String> projectsBefore = connector.findAllProjects()*.code()
+
+        when: "a new project gets samples and the connector is refreshed"
+        sampleCodes = sampleCodes + ["QIJKL001A0"]
+        List<String> projectsBeforeRefresh = connector.findAllProjects()*.code()
+        connector.refresh()
+
+        then:
+        projectsBefore.sort() == ["QABCD", "QEFGH"]
+        projectsBeforeRefresh.sort() == ["QABCD", "QEFGH"]
+        connector.findAllProjects()*.code().sort() == ["QABCD", "QEFGH", "QIJKL"]
+        connector.findNGSSamplesForProject("QIJKL") == ["QIJKL001A0"]
+    }
+
+    def "A project is contained once a refresh lists it"() {
+        given:
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+        boolean containedBefore = connector.containsProject("QABCD")
+
+        when: "a new project gets samples and the connector is refreshed"
+        sampleCodes = sampleCodes + ["QIJKL001A0"]
+        boolean containedBeforeRefresh = connector.containsProject("QIJKL")
+        connector.refresh()
+
+        then:
+        containedBefore
+        !containedBeforeRefresh
+        connector.containsProject("QIJKL")
+        !connector.containsProject("QXXXX")
+    }
+
+    def "A restored index is served without reading openBIS until the next refresh"() {
+        given:
+        Path file = directory.resolve("openbis-index.bin")
+        OpenBisConnector written = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+        written.findAllProjects()
+        written.writeSnapshot(file)
+        requestedPages.clear()
+        searchedProjectCodes.clear()
+
+        when: "a new connector restores the index"
+        OpenBisConnector restored = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+        int projectCount = restored.restoreSnapshot(file)
+
+        then: "projects, labels and samples are served from the snapshot"
+        projectCount == 2
+        restored.findAllProjects()*.code().sort() == ["QABCD", "QEFGH"]
+        restored.findAllProjects().find { it.code() == "QABCD" }.title() == "Description of QABCD"
+        restored.findNGSSamplesForProject("QABCD").size() == 25
+        restored.findAllSamplesForProject("QEFGH").first().label() == "secondary name of QEFGH001A0"
+        requestedPages.isEmpty()
+        searchedProjectCodes.isEmpty()
+
+        when: "a new project gets samples and the connector is refreshed"
+        sampleCodes = sampleCodes + ["QIJKL001A0"]
+        restored.refresh()
+
+        then:
+        restored.findAllProjects()*.code().sort() == ["QABCD", "QEFGH", "QIJKL"]
+    }
+
+    def "Refreshing one sample type of a restored partitioned index searches all sample types"() {
+        given:
+        Path file = directory.resolve("openbis-index.bin")
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+        OpenBisConnector written = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10,
+                SampleLoading.PARTITIONED, ["DNA", "M_RNA"], executor)
+        written.findAllProjects()
+        written.writeSnapshot(file)
+        OpenBisConnector restored = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10,
+                SampleLoading.PARTITIONED, ["DNA", "M_RNA"], executor)
+        restored.restoreSnapshot(file)
+        searchedSampleTypes.clear()
+
+        when:
+        restored.refreshSampleType("DNA")
+
+        then: "the samples of the other type are not lost"
+        searchedSampleTypes.sort() == [["DNA"], ["M_RNA"]]
+        restored.findNGSSamplesForProject("QEFGH").size() == 7
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "A failing refresh keeps the current projects"() {
+        given:
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+        OpenBisConnector connector = new OpenBisConnector(openBis(), { it.login("user", "password") }, 10, SampleLoading.EAGER)
+        connector.findAllProjects()
+
+        when: "openBIS fails during the scheduled refreshes"
+        sampleCodes = null
+        connector.startRefreshing(scheduler, Duration.ofMillis(5))
+        Thread.sleep(100)
+
+        then:
+        connector.findAllProjects()*.code().sort() == ["QABCD", "QEFGH"]
+
+        cleanup:
+        connector.close()
+        scheduler.shutdownNow()
+    }
+}
@@ -0,0 +1,89 @@
+package life.qbic.portal.sampletracking.data
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.fetchoptions.ProjectFetchOptions
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.search.ProjectSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions
+import life.qbic.portal.sampletracking.testsupport.FakeOpenBis
+import life.qbic.portal.sampletracking.testsupport.SyntheticProjects
+import spock.lang.Specification
+
+import java.time.Duration
+
+/**
+ * <p>Reports the payload, the number of requests and the time of reading the openBIS projects
+ * and NGS samples with the planned queries compared with the previous queries, against the
+ * local openBIS stand-in</p>
+ *
+ * <p>The previous queries fetched the type and all properties of every NGS sample in one search
+ * and then all projects with their space. The payload is the size of the search results in Java
+ * serialization, the format of the openBIS HTTP invoker. All numbers depend on the synthetic
+ * projects and the latency of the stand-in and are not asserted. The benchmark runs with the
+ * benchmarks profile: <code>mvn test -P benchmarks</code></p>
+ *
+ * @since 1.2.0
+ */
+class OpenBisQueryPlanBenchmark extends Specification {
+
+    private static final int PROJECT_COUNT = 40
+    private static final int SAMPLES_PER_PROJECT = 250
+    private static final int SAMPLE_PAGE_SIZE = 5_000
+
+    private SyntheticProjects projects = new SyntheticProjects(PROJECT_COUNT, SAMPLES_PER_PROJECT)
+
+    private FakeOpenBis openBis() {
+        FakeOpenBis openBis = new FakeOpenBis(projects)
+        openBis.behaviour.latency = Duration.ofMillis(5)
+        openBis.measurePayload = true
+        return openBis
+    }
+
+    def "The payload and requests of the planned openBIS queries are reported against the previous queries"() {
+        given:
+        FakeOpenBis previousOpenBis = openBis()
+        FakeOpenBis plannedOpenBis = openBis()
+
+        when: "the previous queries are sent"
+        long start = System.nanoTime()
+        int previousProjects = previousQueries(previousOpenBis.api())
+        long previousMillis = Duration.ofNanos(System.nanoTime() - start).toMillis()
+
+        and: "the planned queries are sent"
+        OpenBisConnector connector = new OpenBisConnector(plannedOpenBis.api(),
+                { it.login("user", "password") }, SAMPLE_PAGE_SIZE, SampleLoading.EAGER)
+        start = System.nanoTime()
+        int plannedProjects = connector.findAllProjects().size()
+        long plannedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis()
+
+        then:
+        report("previous", previousOpenBis, previousMillis)
+        report("planned", plannedOpenBis, plannedMillis)
+        previousProjects == PROJECT_COUNT
+        plannedProjects == PROJECT_COUNT
+    }
+
+    /*
+     * The queries as they were sent before they were planned by OpenBisQueries
+     */
+    private static int previousQueries(IApplicationServerApi api) {
+        String token = api.login("user", "password")
+        SampleFetchOptions sampleFetchOptions = new SampleFetchOptions()
+        sampleFetchOptions.withType()
+        sampleFetchOptions.withProperties()
+        Set<String> projectCodes = api.searchSamples(token,
+                OpenBisQueries.ngsSamples(OpenBisQueries.DEFAULT_NGS_SAMPLE_TYPES), sampleFetchOptions)
+                .objects.collect { it.code.substring(0, 5) }.toSet()
+        ProjectFetchOptions projectFetchOptions = new ProjectFetchOptions()
+        projectFetchOptions.withSpace()
+        return api.searchProjects(token, new ProjectSearchCriteria(), projectFetchOptions)
+                .objects.count { projectCodes.contains(it.code) }
+    }
+
+    private void report(String queries, FakeOpenBis openBis, long millis) {
+        println String.format("%s openBIS queries for %,d samples: %,d bytes in %d requests " +
+                "(%d sample searches, %d project searches), %d ms",
+                queries, projects.sampleCount(), openBis.responseBytes.get(),
+                openBis.sampleSearches.get() + openBis.projectSearches.get(),
+                openBis.sampleSearches.get(), openBis.projectSearches.get(), millis)
+    }
+}
@@ -0,0 +1,110 @@
+package life.qbic.portal.sampletracking.data
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.Function
+import java.util.function.LongSupplier
+
+/**
+ * <p>Tests reusing, checking and renewing an openBIS session</p>
+ *
+ * @since 1.2.0
+ */
+class OpenBisSessionSpec extends Specification {
+
+    private int logins = 0
+    private int checks = 0
+    private Set<String> activeTokens = []
+    private long now = 0
+
+    private IApplicationServerApi openBis() {
+        return [
+                login          : { String user, String password ->
+                    String token = "token-${++logins}".toString()
+                    activeTokens << token
+                    return token
+                },
+                isSessionActive: { String token ->
+                    checks++
+                    return activeTokens.contains(token)
+                }
+        ] as IApplicationServerApi
+    }
+
+    private OpenBisSession session() {
+        return new OpenBisSession(openBis(), { it.login("user", "password") } as Function,
+                Duration.ofSeconds(60), { now } as LongSupplier)
+    }
+
+    def "The session logs in on the first call and reuses the token afterwards"() {
+        given:
+        OpenBisSession session = session()
+
+        expect: "no login before the first call"
+        logins == 0
+
+        when:
+        List<String> tokens = (1..3).collect { session.call { String token -> token } }
+
+        then:
+        tokens == ["token-1"] * 3
+        logins == 1
+        checks == 0
+    }
+
+    def "A token unused for the check interval is checked before it is used"() {
+        given:
+        OpenBisSession session = session()
+        session.call { it }
+
+        when: "the session expired while it was not used"
+        now += Duration.ofSeconds(61).toNanos()
+        activeTokens.clear()
+        String token = session.call { String token -> token }
+
+        then:
+        checks == 1
+        token == "token-2"
+    }
+
+    def "A call failing with an expired session is repeated once after logging in again"() {
+        given:
+        OpenBisSession session = session()
+        session.call { it }
+        List<String> usedTokens = []
+
+        when: "the session expires before the check interval passed"
+        activeTokens.clear()
+        String result = session.call { String token ->
+            usedTokens << token
+            if (!activeTokens.contains(token)) {
+                throw new RuntimeException("Session expired")
+            }
+            return "result"
+        }
+
+        then:
+        result == "result"
+        usedTokens == ["token-1", "token-2"]
+        logins == 2
+    }
+
+    def "A call failing with an active session is not repeated"() {
+        given:
+        OpenBisSession session = session()
+        int calls = 0
+
+        when:
+        session.call { String token ->
+            calls++
+            throw new IllegalStateException("openBIS failed")
+        }
+
+        then:
+        thrown(IllegalStateException)
+        calls == 1
+        logins == 1
+    }
+}
@@ -0,0 +1,371 @@
+package life.qbic.portal.sampletracking.data
+
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * <p>Tests concurrent access to the cached samples of projects</p>
+ *
+ * @since 1.2.0
+ */
+class ProjectSampleCacheSpec extends Specification {
+
+    private static final String PROJECT_CODE = "QABCD"
+    private static final int SAMPLES_PER_PROJECT = 5_000
+    private static final int READER_COUNT = 8
+
+    private ExecutorService executor = Executors.newCachedThreadPool()
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Updating a sample replaces the cached sample and keeps the order of the samples"() {
+        given:
+        ProjectSampleCache cache = unboundedCache()
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", 3))
+        when:
+        cache.update(PROJECT_CODE, { it.withSample(sample(1, "DATA_AVAILABLE")) })
+        then:
+        ProjectSamples cached = cache.get(PROJECT_CODE).get()
+        cached.size() == 3
+        cached.collect { it.code() } == [code(0), code(1), code(2)]
+        cached.get(code(1)).get().status() == "DATA_AVAILABLE"
+        cached.status().countDataAvailable() == 1
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Updating a project that is not cached does not cache it"() {
+        given:
+        ProjectSampleCache cache = unboundedCache()
+        when:
+        cache.update(PROJECT_CODE, { it.withSample(sample(1, "DATA_AVAILABLE")) })
+        then:
+        !cache.get(PROJECT_CODE).isPresent()
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    @Timeout(30)
+    def "Readers of a project are not blocked while the project is being updated"() {
+        given:
+        ProjectSampleCache cache = unboundedCache()
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", SAMPLES_PER_PROJECT))
+        CountDownLatch updateStarted = new CountDownLatch(1)
+        CountDownLatch releaseUpdate = new CountDownLatch(1)
+
+        when: "an update holds the lock of the project entry"
+        Future<?> update = executor.submit {
+            cache.update(PROJECT_CODE, { ProjectSamples samples ->
+                updateStarted.countDown()
+                releaseUpdate.await()
+                return samples.withSample(sample(0, "DATA_AVAILABLE"))
+            })
+        }
+        updateStarted.await()
+        List<Future<Integer>> reads = (1..READER_COUNT).collect {
+            executor.submit({ readAll(cache) } as Callable<Integer>)
+        }
+
+        then: "all readers complete while the update is still running"
+        reads.every { it.get(10, TimeUnit.SECONDS) == SAMPLES_PER_PROJECT }
+        !update.isDone()
+
+        when:
+        releaseUpdate.countDown()
+        update.get(10, TimeUnit.SECONDS)
+
+        then:
+        cache.get(PROJECT_CODE).get().get(code(0)).get().status() == "DATA_AVAILABLE"
+    }
+
+    /**
+     * Readers and writers run concurrently for a while. Every snapshot a reader sees must be
+     * complete and consistent with its aggregated status.
+     * @since 1.2.0
+     */
+    @Timeout(60)
+    def "Readers see consistent snapshots while projects are refreshed and updated"() {
+        given:
+        ProjectSampleCache cache = unboundedCache()
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", SAMPLES_PER_PROJECT))
+        AtomicBoolean running = new AtomicBoolean(true)
+        AtomicLong readCount = new AtomicLong()
+        AtomicLong inconsistentReads = new AtomicLong()
+
+        when:
+        List<Future<?>> writers = [
+                executor.submit {
+                    // refreshes the whole project
+                    while (running.get()) {
+                        cache.put(PROJECT_CODE, project("SAMPLE_QC_PASS", SAMPLES_PER_PROJECT))
+                    }
+                },
+                executor.submit {
+                    // updates single samples
+                    Random random = new Random(42)
+                    while (running.get()) {
+                        int index = random.nextInt(SAMPLES_PER_PROJECT)
+                        cache.update(PROJECT_CODE, { it.withSample(sample(index, "DATA_AVAILABLE")) })
+                    }
+                }
+        ]
+        List<Future<?>> readers = (1..READER_COUNT).collect {
+            executor.submit {
+                Random random = new Random()
+                while (running.get()) {
+                    ProjectSamples samples = cache.get(PROJECT_CODE).get()
+                    String sampleCode = code(random.nextInt(SAMPLES_PER_PROJECT))
+                    if (!samples.get(sampleCode).isPresent()
+                            || samples.size() != SAMPLES_PER_PROJECT
+                            || samples.status().totalCount() != samples.size()) {
+                        inconsistentReads.incrementAndGet()
+                    }
+                    readCount.incrementAndGet()
+                }
+            }
+        }
+        Thread.sleep(2_000)
+        running.set(false)
+        (writers + readers).each { it.get(10, TimeUnit.SECONDS) }
+
+        then:
+        readCount.get() > 0
+        inconsistentReads.get() == 0
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Projects expire after they were written"() {
+        given:
+        long now = 0
+        ProjectSampleCache cache = new ProjectSampleCache(
+                new CacheSettings(10, Duration.ofMinutes(30), Duration.ofMinutes(5)),
+                { CompletableFuture.completedFuture(Optional.empty()) }, { now })
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", 1))
+
+        when:
+        now = Duration.ofMinutes(30).toNanos()
+
+        then:
+        !cache.get(PROJECT_CODE).isPresent()
+        cache.size() == 0
+        cache.metrics().expirations() == 1
+        cache.metrics().misses() == 1
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "The least recently read project is evicted when the cache is full"() {
+        given:
+        long now = 0
+        ProjectSampleCache cache = new ProjectSampleCache(
+                new CacheSettings(2, Duration.ofMinutes(30), Duration.ofMinutes(5)),
+                { CompletableFuture.completedFuture(Optional.empty()) }, { now })
+        cache.put("QAAAA", project("SAMPLE_RECEIVED", 1))
+        now++
+        cache.put("QBBBB", project("SAMPLE_RECEIVED", 1))
+        now++
+        cache.get("QAAAA")
+        now++
+
+        when:
+        cache.put("QCCCC", project("SAMPLE_RECEIVED", 1))
+
+        then:
+        cache.size() == 2
+        cache.get("QAAAA").isPresent()
+        !cache.get("QBBBB").isPresent()
+        cache.get("QCCCC").isPresent()
+        cache.metrics().evictions() == 1
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "An expired project discarded to make room is counted as expired"() {
+        given:
+        long now = 0
+        ProjectSampleCache cache = new ProjectSampleCache(
+                new CacheSettings(1, Duration.ofMinutes(30), Duration.ofMinutes(5)),
+                { CompletableFuture.completedFuture(Optional.empty()) }, { now })
+        cache.put("QAAAA", project("SAMPLE_RECEIVED", 1))
+        now = Duration.ofMinutes(30).toNanos()
+
+        when:
+        cache.put("QBBBB", project("SAMPLE_RECEIVED", 1))
+
+        then:
+        cache.size() == 1
+        cache.get("QBBBB").isPresent()
+        cache.metrics().expirations() == 1
+        cache.metrics().evictions() == 0
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Projects read after the refresh interval are reloaded in the background"() {
+        given:
+        long now = 0
+        CompletableFuture<Optional<ProjectSamples>> reload = new CompletableFuture<>()
+        int loads = 0
+        ProjectSampleCache cache = new ProjectSampleCache(
+                new CacheSettings(10, Duration.ofMinutes(30), Duration.ofMinutes(5)),
+                { loads++; reload }, { now })
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", 1))
+
+        when: "the project is read twice while the reload is running"
+        now = Duration.ofMinutes(6).toNanos()
+        ProjectSamples first = cache.get(PROJECT_CODE).get()
+        ProjectSamples second = cache.get(PROJECT_CODE).get()
+
+        then: "the cached project is returned and only one reload is started"
+        first.status().countDataAvailable() == 0
+        second.is(first)
+        loads == 1
+        cache.metrics().refreshes() == 1
+
+        when:
+        reload.complete(Optional.of(project("DATA_AVAILABLE", 1)))
+
+        then:
+        cache.get(PROJECT_CODE).get().status().countDataAvailable() == 1
+        cache.metrics().hits() == 3
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Samples updated while the project is refreshed are kept in the refreshed project"() {
+        given:
+        long now = 0
+        CompletableFuture<Optional<ProjectSamples>> reload = new CompletableFuture<>()
+        int loads = 0
+        ProjectSampleCache cache = new ProjectSampleCache(
+                new CacheSettings(10, Duration.ofMinutes(30), Duration.ofMinutes(5)),
+                { loads++; reload }, { now })
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", 3))
+
+        when: "a sample is updated while the refresh is running"
+        now = Duration.ofMinutes(6).toNanos()
+        cache.get(PROJECT_CODE)
+        cache.update(PROJECT_CODE, { it.withSample(sample(1, "DATA_AVAILABLE")) })
+        cache.get(PROJECT_CODE)
+
+        then: "the update does not start another refresh"
+        loads == 1
+        cache.get(PROJECT_CODE).get().get(code(1)).get().status() == "DATA_AVAILABLE"
+
+        when: "the refresh completes with samples that do not contain the update yet"
+        reload.complete(Optional.of(project("SAMPLE_QC_PASS", 3)))
+
+        then:
+        ProjectSamples refreshed = cache.get(PROJECT_CODE).get()
+        refreshed.get(code(0)).get().status() == "SAMPLE_QC_PASS"
+        refreshed.get(code(1)).get().status() == "DATA_AVAILABLE"
+        refreshed.status().countDataAvailable() == 1
+        loads == 1
+    }
+
+    /**
+     * Every read starts a refresh, which answers with the updates the service knew when the
+     * refresh started. Updates applied to the cache after that must survive the refresh.
+     * @since 1.2.0
+     */
+    @Timeout(60)
+    def "Concurrent updates during refreshes are not lost"() {
+        given:
+        int sampleCount = 500
+        Set<Integer> updatedOnService = ConcurrentHashMap.newKeySet()
+        ProjectSampleCache cache = new ProjectSampleCache(
+                new CacheSettings(10, Duration.ofMinutes(30), Duration.ofNanos(1)),
+                { String code, ProjectSamples cached ->
+                    Set<Integer> known = new HashSet<>(updatedOnService)
+                    return CompletableFuture.supplyAsync({
+                        Thread.sleep(1)
+                        Optional.of(project("SAMPLE_RECEIVED", sampleCount, known))
+                    }, executor)
+                })
+        cache.put(PROJECT_CODE, project("SAMPLE_RECEIVED", sampleCount))
+        AtomicBoolean running = new AtomicBoolean(true)
+
+        when: "samples are updated while the project is refreshed over and over"
+        Future<?> reader = executor.submit {
+            while (running.get()) {
+                cache.get(PROJECT_CODE)
+            }
+        }
+        (0..<sampleCount).each { int index ->
+            updatedOnService << index
+            cache.update(PROJECT_CODE, { it.withSample(sample(index, "DATA_AVAILABLE")) })
+        }
+        running.set(false)
+        reader.get(10, TimeUnit.SECONDS)
+
+        then: "all updates are cached once the last refresh completed"
+        new PollingConditions(timeout: 10).eventually {
+            assert cache.snapshot()[PROJECT_CODE].status().countDataAvailable() == sampleCount
+        }
+    }
+
+    private static ProjectSampleCache unboundedCache() {
+        return new ProjectSampleCache(
+                new CacheSettings(Integer.MAX_VALUE, Duration.ofDays(1), Duration.ofHours(1)),
+                { CompletableFuture.completedFuture(Optional.empty()) })
+    }
+
+    private static int readAll(ProjectSampleCache cache) {
+        ProjectSamples samples = cache.get(PROJECT_CODE).get()
+        int found = 0
+        for (int i = 0; i < SAMPLES_PER_PROJECT; i++) {
+            if (samples.get(code(i)).isPresent()) {
+                found++
+            }
+        }
+        return found
+    }
+
+    private static ProjectSamples project(String status, int sampleCount) {
+        return project(status, sampleCount, [] as Set<Integer>)
+    }
+
+    private static ProjectSamples project(String status, int sampleCount, Set<Integer> dataAvailable) {
+        LinkedHashMap<String, TrackedSample> samples = new LinkedHashMap<>()
+        for (int i = 0; i < sampleCount; i++) {
+            TrackedSample sample = sample(i, dataAvailable.contains(i) ? "DATA_AVAILABLE" : status)
+            samples.put(sample.code(), sample)
+        }
+        return new ProjectSamples(samples)
+    }
+
+    private static TrackedSample sample(int index, String status) {
+        return new TrackedSample(status, code(index), Instant.ofEpochSecond(index))
+    }
+
+    private static String code(int index) {
+        return String.format("%s%04d", PROJECT_CODE, index)
+    }
+}
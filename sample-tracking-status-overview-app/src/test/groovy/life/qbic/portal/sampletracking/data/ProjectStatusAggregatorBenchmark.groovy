@@ -0,0 +1,46 @@
+package life.qbic.portal.sampletracking.data
+
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus
+import spock.lang.Specification
+
+/**
+ * <p>Reports the time of the single-pass aggregation of sample statuses compared with filtering
+ * the samples once per status</p>
+ *
+ * <p>The timings depend on the machine and are not asserted. The benchmark runs with the
+ * benchmarks profile: <code>mvn test -P benchmarks</code></p>
+ *
+ * @since 1.2.0
+ */
+class ProjectStatusAggregatorBenchmark extends Specification {
+
+    private static final int SAMPLE_COUNT = 20_000
+    private static final int ROUNDS = 50
+
+    def "The aggregation of many samples is timed against filtering once per status"() {
+        given:
+        List<TrackedSample> samples = ProjectStatusAggregatorSpec.randomSamples(new Random(42), SAMPLE_COUNT)
+
+        when:
+        long aggregationNanos = measure { ProjectStatusAggregator.aggregate(samples) }
+        long filterNanos = measure { ProjectStatusAggregatorSpec.filterPerStatus(samples) }
+
+        then:
+        println String.format("aggregation of %d samples: single pass %d µs, filter per status %d µs",
+                SAMPLE_COUNT, aggregationNanos.intdiv(1000), filterNanos.intdiv(1000))
+    }
+
+    /*
+     * the best time of several rounds after warm up
+     */
+    private static long measure(Closure<ProjectStatus> benchmark) {
+        ROUNDS.times { benchmark.call() }
+        long best = Long.MAX_VALUE
+        ROUNDS.times {
+            long start = System.nanoTime()
+            benchmark.call()
+            best = Math.min(best, System.nanoTime() - start)
+        }
+        return best
+    }
+}
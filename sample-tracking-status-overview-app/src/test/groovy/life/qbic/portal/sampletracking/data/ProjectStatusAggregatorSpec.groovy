@@ -0,0 +1,104 @@
+package life.qbic.portal.sampletracking.data
+
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus
+import spock.lang.Specification
+
+import java.time.Instant
+
+/**
+ * <p>Tests the aggregation of sample statuses to a project status</p>
+ *
+ * @since 1.2.0
+ */
+class ProjectStatusAggregatorSpec extends Specification {
+
+    private static final List<String> STATUSES = SampleStatus.values()*.name()
+    private static final int SAMPLE_COUNT = 20_000
+
+    /**
+     * @since 1.2.0
+     */
+    def "Samples are counted for their status and all statuses before it"() {
+        given:
+        def samples = [
+                sample("METADATA_REGISTERED", 1),
+                sample("SAMPLE_RECEIVED", 2),
+                sample("SAMPLE_QC_FAIL", 3),
+                sample("SAMPLE_QC_PASS", 4),
+                sample("LIBRARY_PREP_FINISHED", 5),
+                sample("DATA_AVAILABLE", 6),
+                sample("DATA_AVAILABLE", 7)
+        ]
+        when:
+        ProjectStatus status = ProjectStatusAggregator.aggregate(samples)
+        then:
+        status.totalCount() == 7
+        status.countReceived() == 6
+        status.countPassedQc() == 4
+        status.countFailedQc() == 1
+        status.countLibraryPrepared() == 3
+        status.countDataAvailable() == 2
+        status.getLastModified() == Instant.ofEpochSecond(7)
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Samples with an unknown status are only counted in the total"() {
+        when:
+        ProjectStatus status = ProjectStatusAggregator.aggregate([sample("SOMETHING_NEW", 1)])
+        then:
+        status.totalCount() == 1
+        status.countReceived() == 0
+        status.countDataAvailable() == 0
+    }
+
+    /**
+     * Compares the single-pass aggregation with the previous approach of filtering the samples once
+     * per status. The timings of both are reported by {@link ProjectStatusAggregatorBenchmark}.
+     * @since 1.2.0
+     */
+    def "The single-pass aggregation of many samples matches filtering once per status"() {
+        given:
+        Random random = new Random(42)
+        List<TrackedSample> samples = randomSamples(random, SAMPLE_COUNT)
+        when:
+        ProjectStatus aggregated = ProjectStatusAggregator.aggregate(samples)
+        ProjectStatus filtered = filterPerStatus(samples)
+        then:
+        aggregated == filtered
+    }
+
+    private static TrackedSample sample(String status, long validSinceSeconds) {
+        return new TrackedSample(status, "QABCD001A" + validSinceSeconds, Instant.ofEpochSecond(validSinceSeconds))
+    }
+
+    static List<TrackedSample> randomSamples(Random random, int count) {
+        return (1..count).collect {
+            sample(STATUSES[random.nextInt(STATUSES.size())], random.nextInt(1_000_000))
+        }
+    }
+
+    /*
+     * the aggregation as it was done before, filtering the samples once per status
+     */
+    static ProjectStatus filterPerStatus(List<TrackedSample> samples) {
+        def countOf = { String status -> samples.stream().filter { it.status() == status }.count() as int }
+        int received = countOf("SAMPLE_RECEIVED")
+        int failed = countOf("SAMPLE_QC_FAIL")
+        int passed = countOf("SAMPLE_QC_PASS")
+        int libraryPrepFinished = countOf("LIBRARY_PREP_FINISHED")
+        int dataAvailable = countOf("DATA_AVAILABLE")
+        Instant lastModified = samples.stream()
+                .map { it.statusValidSince() }
+                .max(Comparator.naturalOrder())
+                .orElse(Instant.MIN)
+        return new ProjectStatus(samples.size(),
+                received + failed + passed + libraryPrepFinished + dataAvailable,
+                passed + libraryPrepFinished + dataAvailable,
+                failed,
+                libraryPrepFinished + dataAvailable,
+                dataAvailable,
+                lastModified)
+    }
+}
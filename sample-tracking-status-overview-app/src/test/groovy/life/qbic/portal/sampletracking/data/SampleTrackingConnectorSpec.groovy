@@ -0,0 +1,238 @@
+package life.qbic.portal.sampletracking.data
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+
+/**
+ * <p>Tests the requests of the sample tracking connector against a local stub of the service</p>
+ *
+ * @since 1.2.0
+ */
+class SampleTrackingConnectorSpec extends Specification {
+
+    private static final String PROJECT_CODE = "QABCD"
+    private static final String ENTITY_TAG = '"project-version-1"'
+    private static final String PROJECT_STATUS_JSON = """\
+        [
+          {"sampleCode": "QABCD001A0", "status": "DATA_AVAILABLE", "statusValidSince": "2022-03-01T10:00:00Z"},
+          {"sampleCode": "QABCD002A8", "status": "SAMPLE_QC_PASS", "statusValidSince": "2022-03-02T10:00:00Z"},
+          {"sampleCode": "QABCD003AG", "status": "SAMPLE_RECEIVED", "statusValidSince": "2022-03-03T10:00:00Z"}
+        ]""".stripIndent()
+    private static final String WATERMARK = "2022-03-03T10:00:00Z"
+    private static final String CHANGES_JSON = """\
+        [
+          {"sampleCode": "QABCD003AG", "status": "DATA_AVAILABLE", "statusValidSince": "2022-03-04T10:00:00Z"}
+        ]""".stripIndent()
+
+    private HttpServer server
+    private AtomicInteger fullResponses = new AtomicInteger()
+    private AtomicInteger notModifiedResponses = new AtomicInteger()
+    private AtomicInteger changesResponses = new AtomicInteger()
+    private AtomicInteger conditionalChangesRequests = new AtomicInteger()
+    private SampleTrackingConnector connector
+
+    def setup() {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/v2/projects/${PROJECT_CODE}/status", { HttpExchange exchange ->
+            String query = exchange.requestURI.query
+            if (query?.startsWith("since=")) {
+                changesResponses.incrementAndGet()
+                if (exchange.requestHeaders.containsKey("If-None-Match")
+                        || exchange.requestHeaders.containsKey("If-Modified-Since")) {
+                    conditionalChangesRequests.incrementAndGet()
+                }
+                respond(exchange, query == "since=${WATERMARK}".toString() ? CHANGES_JSON : "[]")
+            } else if (exchange.requestHeaders.getFirst("If-None-Match") == ENTITY_TAG) {
+                notModifiedResponses.incrementAndGet()
+                exchange.sendResponseHeaders(304, -1)
+            } else {
+                fullResponses.incrementAndGet()
+                exchange.responseHeaders.add("ETag", ENTITY_TAG)
+                respond(exchange, PROJECT_STATUS_JSON)
+            }
+            exchange.close()
+        })
+        server.start()
+    }
+
+    private static void respond(HttpExchange exchange, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8)
+        exchange.responseHeaders.add("Content-Type", "application/json")
+        exchange.sendResponseHeaders(200, body.length)
+        exchange.responseBody.write(body)
+    }
+
+    private SampleTrackingConnector connector(RefreshMode refreshMode) {
+        return connector(new CacheSettings(10, Duration.ofMinutes(10), Duration.ofMillis(1), refreshMode))
+    }
+
+    private SampleTrackingConnector connector(CacheSettings cacheSettings) {
+        NgsSampleRepository ngsSamples = ngsSampleRepository { ["QABCD001A0", "QABCD002A8", "QABCD003AG"] }
+        connector = new SampleTrackingConnector("http://localhost:${server.address.port}",
+                "/v2/samples", "/status", "/v2/projects",
+                new Credentials("user", "password"), ngsSamples,
+                ConnectionPoolSettings.defaults(), 4,
+                cacheSettings)
+        return connector
+    }
+
+    /*
+     * An implementation instead of a coerced closure, so the default methods of the repository
+     * are kept
+     */
+    private static NgsSampleRepository ngsSampleRepository(Closure<List<String>> sampleCodes) {
+        return new NgsSampleRepository() {
+            @Override
+            List<String> findNGSSamplesForProject(String projectCode) {
+                return sampleCodes.call()
+            }
+        }
+    }
+
+    def cleanup() {
+        connector?.close()
+        server.stop(0)
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "A refresh of an unchanged project keeps the cached status"() {
+        given:
+        SampleTrackingConnector connector = connector(RefreshMode.FULL)
+        ProjectStatus loaded = connector.getForProject(PROJECT_CODE).get()
+
+        when: "the project is read after the refresh interval"
+        Thread.sleep(10)
+        ProjectStatus cached = connector.getForProject(PROJECT_CODE).get()
+
+        then: "the service answers the conditional refresh with 304"
+        new PollingConditions(timeout: 5).eventually {
+            assert notModifiedResponses.get() == 1
+        }
+        fullResponses.get() == 1
+        cached.is(loaded)
+
+        and: "the cached status stays the same"
+        new PollingConditions(timeout: 5).eventually {
+            assert connector.getForProject(PROJECT_CODE).get().is(loaded)
+        }
+        loaded.totalCount() == 3
+        loaded.countDataAvailable() == 1
+        connector.cacheMetrics().failedRefreshes() == 0
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "An incremental refresh merges the changed samples into the cached project"() {
+        given:
+        SampleTrackingConnector connector = connector(RefreshMode.INCREMENTAL)
+        ProjectStatus loaded = connector.getForProject(PROJECT_CODE).get()
+
+        when: "the project is read after the refresh interval"
+        Thread.sleep(10)
+        connector.getForProject(PROJECT_CODE)
+
+        then: "only the changes since the latest status are requested"
+        new PollingConditions(timeout: 5).eventually {
+            assert connector.getForProject(PROJECT_CODE).get().countDataAvailable() == 2
+        }
+        fullResponses.get() == 1
+        changesResponses.get() >= 1
+        loaded.countDataAvailable() == 1
+
+        and: "the validators of the full project are not sent for the changes"
+        conditionalChangesRequests.get() == 0
+
+        and: "the changed sample is replaced"
+        ProjectStatus merged = connector.getForProject(PROJECT_CODE).get()
+        merged.totalCount() == 3
+        merged.countReceived() == 3
+        merged.countLibraryPrepared() == 2
+        merged.getLastModified() == Instant.parse("2022-03-04T10:00:00Z")
+        connector.getForSample("QABCD003AG").get() == "DATA_AVAILABLE"
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "An archive of manifests requests only projects missing in the cache"() {
+        given:
+        SampleTrackingConnector connector = connector(RefreshMode.FULL)
+        ByteArrayOutputStream firstExport = new ByteArrayOutputStream()
+        ByteArrayOutputStream secondExport = new ByteArrayOutputStream()
+
+        when:
+        connector.writeManifestArchive([PROJECT_CODE, PROJECT_CODE], firstExport)
+        connector.writeManifestArchive([PROJECT_CODE], secondExport)
+
+        then: "the project is loaded once and its manifest is written from the cache"
+        fullResponses.get() == 1
+        archiveEntries(firstExport) == ["QABCD-manifest.txt": "QABCD001A0\n"]
+        archiveEntries(secondExport) == ["QABCD-manifest.txt": "QABCD001A0\n"]
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "The manifest of a project that expired from the cache is loaded from the service"() {
+        given:
+        SampleTrackingConnector connector = connector(
+                new CacheSettings(10, Duration.ofMillis(5), Duration.ofMillis(1), RefreshMode.FULL))
+        connector.getForProject(PROJECT_CODE)
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream()
+
+        when: "the manifest is written after the project expired"
+        Thread.sleep(20)
+        connector.writeManifestForProject(PROJECT_CODE, manifest)
+
+        then:
+        fullResponses.get() == 2
+        manifest.toString(StandardCharsets.UTF_8.name()) == "QABCD001A0\n"
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Non-blocking lookups do not look up the NGS samples on the calling thread"() {
+        given:
+        List<String> lookupThreads = [].asSynchronized()
+        NgsSampleRepository ngsSamples = ngsSampleRepository {
+            lookupThreads << Thread.currentThread().name
+            ["QABCD001A0"]
+        }
+        connector = new SampleTrackingConnector("http://localhost:${server.address.port}",
+                "/v2/samples", "/status", "/v2/projects",
+                new Credentials("user", "password"), ngsSamples,
+                ConnectionPoolSettings.defaults(), 4, CacheSettings.defaults())
+
+        when:
+        ProjectStatus status = connector.getForProjectAsync(PROJECT_CODE).join().get()
+
+        then:
+        status.totalCount() == 1
+        lookupThreads == ["ngs-sample-lookup"]
+    }
+
+    private static Map<String, String> archiveEntries(ByteArrayOutputStream archive) {
+        Map<String, String> entries = [:]
+        new ZipInputStream(new ByteArrayInputStream(archive.toByteArray())).withCloseable { zip ->
+            ZipEntry entry
+            while ((entry = zip.nextEntry) != null) {
+                entries[entry.name] = new String(zip.bytes, StandardCharsets.UTF_8)
+            }
+        }
+        return entries
+    }
+}
@@ -0,0 +1,116 @@
+package life.qbic.portal.sampletracking.data
+
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * <p>Tests the coalescing of concurrent lookups of the same key</p>
+ *
+ * @since 1.2.0
+ */
+class SingleFlightSpec extends Specification {
+
+    private static final int LOOKUP_COUNT = 16
+
+    private ExecutorService executor = Executors.newFixedThreadPool(LOOKUP_COUNT)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    @Timeout(30)
+    def "Concurrent lookups of the same key share one call"() {
+        given:
+        SingleFlight<String, String> singleFlight = new SingleFlight<>()
+        CompletableFuture<String> upstream = new CompletableFuture<>()
+        AtomicInteger calls = new AtomicInteger()
+        CountDownLatch started = new CountDownLatch(LOOKUP_COUNT)
+
+        when:
+        List<CompletableFuture<CompletableFuture<String>>> lookups = (1..LOOKUP_COUNT).collect {
+            CompletableFuture.supplyAsync({
+                started.countDown()
+                started.await()
+                return singleFlight.execute("QABCD", { calls.incrementAndGet(); upstream })
+            }, executor)
+        }
+        List<CompletableFuture<String>> results = lookups*.get(10, TimeUnit.SECONDS)
+        upstream.complete("DATA_AVAILABLE")
+
+        then:
+        calls.get() == 1
+        results.every { it.get(10, TimeUnit.SECONDS) == "DATA_AVAILABLE" }
+        singleFlight.metrics().requests() == 1
+        singleFlight.metrics().coalesced() == LOOKUP_COUNT - 1
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "A lookup after the call completed starts a new call"() {
+        given:
+        SingleFlight<String, String> singleFlight = new SingleFlight<>()
+        int calls = 0
+
+        when:
+        singleFlight.execute("QABCD", { calls++; CompletableFuture.completedFuture("first") }).join()
+        String second = singleFlight.execute("QABCD", { calls++; CompletableFuture.completedFuture("second") }).join()
+
+        then:
+        calls == 2
+        second == "second"
+        singleFlight.metrics().coalesced() == 0
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "A failing call fails all lookups sharing it and releases the key"() {
+        given:
+        SingleFlight<String, String> singleFlight = new SingleFlight<>()
+        CompletableFuture<String> upstream = new CompletableFuture<>()
+
+        when:
+        CompletableFuture<String> first = singleFlight.execute("QABCD", { upstream })
+        CompletableFuture<String> second = singleFlight.execute("QABCD", { upstream })
+        upstream.completeExceptionally(new RuntimeException("service unavailable"))
+        second.join()
+
+        then:
+        CompletionException e = thrown()
+        e.cause.message == "service unavailable"
+        first.isCompletedExceptionally()
+
+        when:
+        CompletableFuture<String> retry = singleFlight.execute("QABCD", { CompletableFuture.completedFuture("DATA_AVAILABLE") })
+
+        then:
+        retry.join() == "DATA_AVAILABLE"
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "A call throwing before it started fails the lookup and releases the key"() {
+        given:
+        SingleFlight<String, String> singleFlight = new SingleFlight<>()
+
+        when:
+        CompletableFuture<String> failed = singleFlight.execute("QABCD", { throw new IllegalStateException("closed") })
+
+        then:
+        failed.isCompletedExceptionally()
+        singleFlight.execute("QABCD", { CompletableFuture.completedFuture("retried") }).join() == "retried"
+    }
+}
@@ -0,0 +1,71 @@
+package life.qbic.portal.sampletracking.data
+
+import life.qbic.portal.sampletracking.testsupport.FakeOpenBis
+import life.qbic.portal.sampletracking.testsupport.SampleTrackingServiceStub
+import life.qbic.portal.sampletracking.testsupport.SyntheticProjects
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * <p>Reports the time of loading synthetic projects through the openBIS and sample tracking
+ * connectors, with local stand-ins of both services</p>
+ *
+ * <p>The timings depend on the machine and the latencies of the stand-ins and are not asserted.
+ * The benchmark runs with the benchmarks profile: <code>mvn test -P benchmarks</code></p>
+ *
+ * @since 1.2.0
+ */
+class StandInLoadBenchmark extends Specification {
+
+    private static final int PROJECT_COUNT = 40
+    private static final int SAMPLES_PER_PROJECT = 250
+
+    private SyntheticProjects projects = new SyntheticProjects(PROJECT_COUNT, SAMPLES_PER_PROJECT)
+    private FakeOpenBis openBis = new FakeOpenBis(projects)
+    private SampleTrackingServiceStub sampleTracking = new SampleTrackingServiceStub(projects)
+    private ExecutorService searchExecutor = Executors.newFixedThreadPool(4)
+    private OpenBisConnector openBisConnector
+    private SampleTrackingConnector sampleTrackingConnector
+
+    def setup() {
+        openBis.behaviour.latency = Duration.ofMillis(5)
+        sampleTracking.behaviour.latency = Duration.ofMillis(20)
+        openBisConnector = new OpenBisConnector(openBis.api(), { it.login("user", "password") }, 1_000,
+                SampleLoading.PARTITIONED, SyntheticProjects.SAMPLE_TYPES, searchExecutor)
+        sampleTrackingConnector = new SampleTrackingConnector(sampleTracking.url(),
+                "/v2/samples", "/status", "/v2/projects",
+                new Credentials("user", "password"), openBisConnector,
+                ConnectionPoolSettings.defaults(), 8,
+                new CacheSettings(PROJECT_COUNT, Duration.ofMinutes(10), Duration.ofMinutes(5), RefreshMode.INCREMENTAL))
+    }
+
+    def cleanup() {
+        sampleTrackingConnector?.close()
+        openBisConnector?.close()
+        sampleTracking.close()
+        searchExecutor.shutdownNow()
+    }
+
+    def "The load time of the status of all synthetic projects is reported"() {
+        given:
+        List<String> projectCodes = projects.projectCodes()
+
+        when: "the projects are listed and their status is requested at once"
+        long start = System.nanoTime()
+        openBisConnector.findAllProjects()
+        long openBisMillis = Duration.ofNanos(System.nanoTime() - start).toMillis()
+        Map<String, ProjectStatus> statuses = sampleTrackingConnector.getForProjects(projectCodes)
+        long totalMillis = Duration.ofNanos(System.nanoTime() - start).toMillis()
+
+        then:
+        println String.format("%d projects with %,d samples: openBIS %d ms (%d searches), " +
+                "sample tracking %d ms (%d requests), total %d ms",
+                PROJECT_COUNT, projects.sampleCount(), openBisMillis, openBis.sampleSearches.get(),
+                totalMillis - openBisMillis, sampleTracking.projectRequests.get(), totalMillis)
+        statuses.size() == PROJECT_COUNT
+    }
+}
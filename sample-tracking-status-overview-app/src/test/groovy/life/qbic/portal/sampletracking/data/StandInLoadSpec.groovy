@@ -0,0 +1,99 @@
+package life.qbic.portal.sampletracking.data
+
+import life.qbic.portal.sampletracking.testsupport.FakeOpenBis
+import life.qbic.portal.sampletracking.testsupport.SampleTrackingServiceStub
+import life.qbic.portal.sampletracking.testsupport.SyntheticProjects
+import life.qbic.portal.sampletracking.view.projects.viewmodel.ProjectStatus
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * <p>Loads synthetic projects through the openBIS and sample tracking connectors, with local
+ * stand-ins of both services</p>
+ *
+ * <p>The load times are reported by {@link StandInLoadBenchmark}.</p>
+ *
+ * @since 1.2.0
+ */
+class StandInLoadSpec extends Specification {
+
+    private static final int PROJECT_COUNT = 40
+    private static final int SAMPLES_PER_PROJECT = 250
+
+    private SyntheticProjects projects = new SyntheticProjects(PROJECT_COUNT, SAMPLES_PER_PROJECT)
+    private FakeOpenBis openBis = new FakeOpenBis(projects)
+    private SampleTrackingServiceStub sampleTracking = new SampleTrackingServiceStub(projects)
+    private ExecutorService searchExecutor = Executors.newFixedThreadPool(4)
+    private OpenBisConnector openBisConnector
+    private SampleTrackingConnector sampleTrackingConnector
+
+    def setup() {
+        openBis.behaviour.latency = Duration.ofMillis(5)
+        sampleTracking.behaviour.latency = Duration.ofMillis(20)
+        openBisConnector = new OpenBisConnector(openBis.api(), { it.login("user", "password") }, 1_000,
+                SampleLoading.PARTITIONED, SyntheticProjects.SAMPLE_TYPES, searchExecutor)
+        sampleTrackingConnector = new SampleTrackingConnector(sampleTracking.url(),
+                "/v2/samples", "/status", "/v2/projects",
+                new Credentials("user", "password"), openBisConnector,
+                ConnectionPoolSettings.defaults(), 8,
+                new CacheSettings(PROJECT_COUNT, Duration.ofMinutes(10), Duration.ofMinutes(5), RefreshMode.INCREMENTAL))
+    }
+
+    def cleanup() {
+        sampleTrackingConnector?.close()
+        openBisConnector?.close()
+        sampleTracking.close()
+        searchExecutor.shutdownNow()
+    }
+
+    def "The status of all synthetic projects is loaded with one request per project"() {
+        given:
+        List<String> projectCodes = projects.projectCodes()
+
+        when: "the projects are listed and their status is requested at once"
+        List<String> listedProjects = openBisConnector.findAllProjects()*.code()
+        Map<String, ProjectStatus> statuses = sampleTrackingConnector.getForProjects(projectCodes)
+
+        then:
+        listedProjects.sort() == projectCodes
+        statuses.keySet().sort() == projectCodes
+        statuses.values().every { it.totalCount() == SAMPLES_PER_PROJECT }
+        sampleTracking.projectRequests.get() == PROJECT_COUNT
+    }
+
+    def "Failures injected into the sample tracking service are reported and not cached"() {
+        given:
+        String projectCode = projects.projectCodes().first()
+        sampleTracking.behaviour.errorRate = 1
+
+        when:
+        sampleTrackingConnector.getForProject(projectCode)
+
+        then:
+        thrown(RuntimeException)
+        sampleTracking.failedRequests.get() == 1
+
+        when: "the service recovers"
+        sampleTracking.behaviour.errorRate = 0
+        Optional<ProjectStatus> status = sampleTrackingConnector.getForProject(projectCode)
+
+        then:
+        status.get().totalCount() == SAMPLES_PER_PROJECT
+    }
+
+    def "An openBIS session that expired during a refresh is renewed"() {
+        given:
+        openBisConnector.findAllProjects()
+
+        when:
+        openBis.expireSessions()
+        openBisConnector.refresh()
+
+        then:
+        openBis.logins.get() == 2
+        openBisConnector.findAllProjects().size() == PROJECT_COUNT
+    }
+}
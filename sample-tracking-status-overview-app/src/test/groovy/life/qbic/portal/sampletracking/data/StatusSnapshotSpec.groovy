@@ -0,0 +1,66 @@
+package life.qbic.portal.sampletracking.data
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+
+/**
+ * <p>Tests writing and reading snapshots of cached sample statuses</p>
+ *
+ * @since 1.2.0
+ */
+class StatusSnapshotSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    /**
+     * @since 1.2.0
+     */
+    def "A snapshot restores the samples, statuses and validators of all projects"() {
+        given:
+        Path file = directory.resolve("snapshot.bin")
+        LinkedHashMap<String, TrackedSample> samples = new LinkedHashMap<>()
+        [
+                new TrackedSample("DATA_AVAILABLE", "QABCD001A0", Instant.parse("2022-03-01T10:00:00.123456789Z")),
+                new TrackedSample("SOMETHING_NEW", "QABCD002A8", Instant.parse("2022-03-02T10:00:00Z")),
+                new TrackedSample("SAMPLE_RECEIVED", "QABCD003AG", null)
+        ].each { samples.put(it.code(), it) }
+        ProjectSamples project = new ProjectSamples(samples, CacheValidators.of('"v1"', null))
+
+        when:
+        StatusSnapshot.write(file, ["QABCD": project])
+        Map<String, ProjectSamples> restored = StatusSnapshot.read(file)
+
+        then:
+        restored.keySet() == ["QABCD"] as Set
+        ProjectSamples restoredProject = restored.get("QABCD")
+        restoredProject.collect { it.code() } == ["QABCD001A0", "QABCD002A8", "QABCD003AG"]
+        restoredProject.collect { it.status() } == ["DATA_AVAILABLE", "SOMETHING_NEW", "SAMPLE_RECEIVED"]
+        restoredProject.collect { it.statusValidSince() } == project.collect { it.statusValidSince() }
+        restoredProject.status() == project.status()
+        restoredProject.validators().entityTag().get() == '"v1"'
+        !restoredProject.validators().lastModified().isPresent()
+    }
+
+    /**
+     * @since 1.2.0
+     */
+    def "Reading a file that is not a complete snapshot fails"() {
+        given:
+        Path file = directory.resolve("snapshot.bin")
+        StatusSnapshot.write(file, ["QABCD": new ProjectSamples(new LinkedHashMap<>([
+                "QABCD001A0": new TrackedSample("DATA_AVAILABLE", "QABCD001A0", Instant.EPOCH)]))])
+        byte[] content = Files.readAllBytes(file)
+        Files.write(file, Arrays.copyOf(content, content.length - 4))
+
+        when:
+        StatusSnapshot.read(file)
+
+        then:
+        thrown(IOException)
+    }
+}
@@ -0,0 +1,187 @@
+package life.qbic.portal.sampletracking.testsupport
+
+import ch.ethz.sis.openbis.generic.asapi.v3.IApplicationServerApi
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.CodeSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.CodesSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.ISearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.SearchResult
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.common.search.StringPropertySearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.Project
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.fetchoptions.ProjectFetchOptions
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.project.search.ProjectSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.Sample
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.SampleType
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.fetchoptions.SampleFetchOptions
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.sample.search.SampleSearchCriteria
+import ch.ethz.sis.openbis.generic.asapi.v3.dto.space.Space
+import life.qbic.portal.sampletracking.testsupport.SyntheticProjects.SyntheticSample
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * <p>An in-process stand-in of the openBIS application server that answers with synthetic
+ * projects</p>
+ *
+ * <p>The fake supports what the portlet uses: logging in, checking and ending sessions, and
+ * searching samples and projects. Sample searches respect the project code and the
+ * Q_SAMPLE_TYPE values of the criteria, paging and sorting by code. Properties are only returned
+ * if the fetch options ask for them, as are the sample type and the space of projects. If
+ * {@link #measurePayload} is set, the size of every search result is added to
+ * {@link #responseBytes}, measured as Java serialization like the HTTP invoker of openBIS
+ * transfers it. Every search waits for the latency of the
+ * {@link #behaviour}; failing searches throw a {@link RuntimeException}, as do searches with a
+ * session that is not active.</p>
+ *
+ * @since 1.2.0
+ */
+class FakeOpenBis {
+
+    final SyntheticProjects projects
+    final StandInBehaviour behaviour = new StandInBehaviour()
+    final AtomicInteger logins = new AtomicInteger()
+    final AtomicInteger sampleSearches = new AtomicInteger()
+    final AtomicInteger projectSearches = new AtomicInteger()
+    final AtomicLong responseBytes = new AtomicLong()
+    volatile boolean measurePayload = false
+
+    private final Set<String> activeSessions = ConcurrentHashMap.newKeySet()
+
+    /**
+     * @param projects the projects known to the fake
+     */
+    FakeOpenBis(SyntheticProjects projects) {
+        this.projects = projects
+    }
+
+    /**
+     * @return the fake as openBIS application server
+     */
+    IApplicationServerApi api() {
+        return [
+                login          : { String user, String password -> login() },
+                loginAs        : { String user, String password, String asUser -> login() },
+                isSessionActive: { String token -> activeSessions.contains(token) },
+                logout         : { String token -> activeSessions.remove(token) },
+                searchSamples  : { String token, SampleSearchCriteria criteria, SampleFetchOptions fetchOptions ->
+                    searchSamples(token, criteria, fetchOptions)
+                },
+                searchProjects : { String token, ProjectSearchCriteria criteria, ProjectFetchOptions fetchOptions ->
+                    searchProjects(token, criteria, fetchOptions)
+                }
+        ] as IApplicationServerApi
+    }
+
+    /**
+     * Ends all sessions, as openBIS does when sessions time out
+     */
+    void expireSessions() {
+        activeSessions.clear()
+    }
+
+    private String login() {
+        String token = "synthetic-session-${logins.incrementAndGet()}".toString()
+        activeSessions << token
+        return token
+    }
+
+    private void beforeSearch(String token) {
+        behaviour.delay()
+        if (!activeSessions.contains(token)) {
+            throw new RuntimeException("Session ${token} is not active")
+        }
+        if (behaviour.shouldFail()) {
+            throw new RuntimeException("Injected openBIS failure")
+        }
+    }
+
+    private SearchResult<Sample> searchSamples(String token, SampleSearchCriteria criteria,
+                                               SampleFetchOptions fetchOptions) {
+        sampleSearches.incrementAndGet()
+        beforeSearch(token)
+        String projectCode = projectCodeOf(criteria)
+        List<String> sampleTypes = sampleTypesOf(criteria)
+        List<String> projectCodes = projectCode == null ? projects.projectCodes() : [projectCode]
+        int from = fetchOptions.from ?: 0
+        int count = fetchOptions.count ?: Integer.MAX_VALUE
+        int totalCount = 0
+        List<Sample> page = []
+        projectCodes.each { String code ->
+            projects.samplesOf(code).each { SyntheticSample sample ->
+                if (sampleTypes.isEmpty() || sampleTypes.any { sample.sampleType.contains(it) }) {
+                    if (totalCount >= from && page.size() < count) {
+                        page << toOpenBisSample(sample, fetchOptions)
+                    }
+                    totalCount++
+                }
+            }
+        }
+        return measured(new SearchResult<Sample>(page, totalCount))
+    }
+
+    private SearchResult<Project> searchProjects(String token, ProjectSearchCriteria criteria,
+                                                 ProjectFetchOptions fetchOptions) {
+        projectSearches.incrementAndGet()
+        beforeSearch(token)
+        CodesSearchCriteria codes = criteria.criteria.find { it instanceof CodesSearchCriteria } as CodesSearchCriteria
+        List<Project> found = projects.projectCodes()
+                .findAll { codes == null || codes.fieldValue.contains(it) }
+                .collect { toOpenBisProject(it, fetchOptions) }
+        return measured(new SearchResult<Project>(found, found.size()))
+    }
+
+    private <T> SearchResult<T> measured(SearchResult<T> result) {
+        if (measurePayload) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+            new ObjectOutputStream(bytes).withCloseable { it.writeObject(result) }
+            responseBytes.addAndGet(bytes.size())
+        }
+        return result
+    }
+
+    private static String projectCodeOf(SampleSearchCriteria criteria) {
+        ProjectSearchCriteria project = criteria.criteria.find { it instanceof ProjectSearchCriteria } as ProjectSearchCriteria
+        CodeSearchCriteria code = project?.criteria?.find { it instanceof CodeSearchCriteria } as CodeSearchCriteria
+        return code?.fieldValue?.value
+    }
+
+    private static List<String> sampleTypesOf(ISearchCriteria criteria) {
+        if (criteria instanceof StringPropertySearchCriteria) {
+            return [criteria.fieldValue.value as String]
+        }
+        if (criteria instanceof SampleSearchCriteria) {
+            return criteria.criteria.collectMany { sampleTypesOf(it) }
+        }
+        return []
+    }
+
+    private static Sample toOpenBisSample(SyntheticSample syntheticSample, SampleFetchOptions fetchOptions) {
+        Sample sample = new Sample()
+        sample.code = syntheticSample.code
+        sample.fetchOptions = fetchOptions
+        if (fetchOptions.hasProperties()) {
+            sample.properties = ["Q_SECONDARY_NAME": syntheticSample.label,
+                                 "Q_SAMPLE_TYPE"   : syntheticSample.sampleType]
+        }
+        if (fetchOptions.hasType()) {
+            SampleType type = new SampleType()
+            type.code = "Q_TEST_SAMPLE"
+            sample.type = type
+        }
+        return sample
+    }
+
+    private static Project toOpenBisProject(String code, ProjectFetchOptions fetchOptions) {
+        Project project = new Project()
+        project.code = code
+        project.description = "Synthetic project ${code}".toString()
+        project.fetchOptions = fetchOptions
+        if (fetchOptions?.hasSpace()) {
+            Space space = new Space()
+            space.code = "SYNTHETIC_SPACE"
+            project.space = space
+        }
+        return project
+    }
+}
@@ -0,0 +1,133 @@
+package life.qbic.portal.sampletracking.testsupport
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import life.qbic.portal.sampletracking.testsupport.SyntheticProjects.SyntheticSample
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
+/**
+ * <p>A local stand-in of the sample tracking service that answers with synthetic projects</p>
+ *
+ * <p>The stub serves {@code /v2/projects/{code}/status} and {@code /v2/samples/{code}/status}
+ * on a free port of localhost. Project responses carry an ETag and are answered with 304 if the
+ * request sends it back. A {@code since} parameter restricts the samples to those that changed
+ * after the given instant. Requests are answered in parallel, each after the latency of the
+ * {@link #behaviour}; failing requests are answered with 500.</p>
+ *
+ * @since 1.2.0
+ */
+class SampleTrackingServiceStub implements Closeable {
+
+    private static final Pattern PROJECT_STATUS_PATH = ~'^/v2/projects/([^/]+)/status$'
+    private static final Pattern SAMPLE_STATUS_PATH = ~'^/v2/samples/([^/]+)/status$'
+    private static final String ENTITY_TAG = '"synthetic-1"'
+
+    final SyntheticProjects projects
+    final StandInBehaviour behaviour = new StandInBehaviour()
+    final AtomicInteger projectRequests = new AtomicInteger()
+    final AtomicInteger sampleRequests = new AtomicInteger()
+    final AtomicInteger failedRequests = new AtomicInteger()
+
+    private final HttpServer server
+    private final ExecutorService executor = Executors.newCachedThreadPool()
+
+    /**
+     * Starts the stub
+     * @param projects the projects served by the stub
+     */
+    SampleTrackingServiceStub(SyntheticProjects projects) {
+        this.projects = projects
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/v2/projects/", { HttpExchange exchange ->
+            handle(exchange, projectRequests) { answerProject(exchange) }
+        } as HttpHandler)
+        server.createContext("/v2/samples/", { HttpExchange exchange ->
+            handle(exchange, sampleRequests) { answerSample(exchange) }
+        } as HttpHandler)
+        server.executor = executor
+        server.start()
+    }
+
+    /**
+     * @return the base url of the stub, e.g. http://localhost:12345
+     */
+    String url() {
+        return "http://localhost:${server.address.port}"
+    }
+
+    private void handle(HttpExchange exchange, AtomicInteger requests, Closure answer) {
+        try {
+            requests.incrementAndGet()
+            behaviour.delay()
+            if (behaviour.shouldFail()) {
+                failedRequests.incrementAndGet()
+                exchange.sendResponseHeaders(500, -1)
+            } else {
+                answer()
+            }
+        } finally {
+            exchange.close()
+        }
+    }
+
+    private void answerProject(HttpExchange exchange) {
+        Matcher path = PROJECT_STATUS_PATH.matcher(exchange.requestURI.path)
+        List<SyntheticSample> samples = path.matches() ? projects.samplesOf(path.group(1)) : []
+        if (samples.isEmpty()) {
+            exchange.sendResponseHeaders(404, -1)
+            return
+        }
+        String query = exchange.requestURI.query
+        if (query?.startsWith("since=")) {
+            Instant since = Instant.parse(query.substring("since=".length()))
+            samples = samples.findAll { it.statusValidSince.isAfter(since) }
+        } else if (exchange.requestHeaders.getFirst("If-None-Match") == ENTITY_TAG) {
+            exchange.sendResponseHeaders(304, -1)
+            return
+        }
+        exchange.responseHeaders.add("ETag", ENTITY_TAG)
+        exchange.responseHeaders.add("Content-Type", "application/json")
+        // the body is streamed, so large projects are never held as one string
+        exchange.sendResponseHeaders(200, 0)
+        Writer body = new BufferedWriter(new OutputStreamWriter(exchange.responseBody, StandardCharsets.UTF_8))
+        body.write("[")
+        samples.eachWithIndex { SyntheticSample sample, int index ->
+            if (index > 0) {
+                body.write(",")
+            }
+            body.write(sample.toJson())
+        }
+        body.write("]")
+        body.flush()
+    }
+
+    private void answerSample(HttpExchange exchange) {
+        Matcher path = SAMPLE_STATUS_PATH.matcher(exchange.requestURI.path)
+        SyntheticSample sample = path.matches() ? projects.sample(path.group(1)) : null
+        if (sample == null) {
+            exchange.sendResponseHeaders(404, -1)
+            return
+        }
+        byte[] body = sample.toJson().getBytes(StandardCharsets.UTF_8)
+        exchange.responseHeaders.add("Content-Type", "application/json")
+        exchange.sendResponseHeaders(200, body.length)
+        exchange.responseBody.write(body)
+    }
+
+    /**
+     * Stops the stub
+     */
+    @Override
+    void close() {
+        server.stop(0)
+        executor.shutdownNow()
+    }
+}
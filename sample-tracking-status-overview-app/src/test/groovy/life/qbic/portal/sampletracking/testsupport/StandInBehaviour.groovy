@@ -0,0 +1,56 @@
+package life.qbic.portal.sampletracking.testsupport
+
+import java.time.Duration
+
+/**
+ * <p>The latency and the failures of a stand-in service</p>
+ *
+ * <p>Every request waits for the latency before it is answered. A share of the requests given by
+ * the error rate fails. The failures are drawn from a seeded random, so a run can be repeated.
+ * Both can be changed while the stand-in is running.</p>
+ *
+ * @since 1.2.0
+ */
+class StandInBehaviour {
+
+    /**
+     * The time every request waits before it is answered
+     */
+    volatile Duration latency = Duration.ZERO
+
+    /**
+     * The share of requests that fail, from 0 for none to 1 for all
+     */
+    volatile double errorRate = 0
+
+    private final Random random
+
+    StandInBehaviour() {
+        this(42L)
+    }
+
+    /**
+     * @param seed the seed of the random failures
+     */
+    StandInBehaviour(long seed) {
+        this.random = new Random(seed)
+    }
+
+    /**
+     * Waits for the latency of a request
+     */
+    void delay() {
+        long millis = latency.toMillis()
+        if (millis > 0) {
+            Thread.sleep(millis)
+        }
+    }
+
+    /**
+     * @return true if the current request shall fail, false otherwise
+     */
+    boolean shouldFail() {
+        double rate = errorRate
+        return rate > 0 && random.nextDouble() < rate
+    }
+}
@@ -0,0 +1,148 @@
+package life.qbic.portal.sampletracking.testsupport
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * <p>Generates projects with samples for the local stand-ins of openBIS and the sample tracking
+ * service</p>
+ *
+ * <p>The same numbers always generate the same projects. Project codes consist of letters and
+ * sample codes are valid QBiC sample codes. The samples of a project cycle through the NGS sample
+ * types and the sample statuses; ten consecutive samples share a label, like replicates do.</p>
+ *
+ * @since 1.2.0
+ */
+class SyntheticProjects {
+
+    static final List<String> SAMPLE_TYPES = ["DNA", "RNA", "AMPLICON", "M_RNA"].asImmutable()
+    static final List<String> STATUSES = ["METADATA_REGISTERED", "SAMPLE_RECEIVED", "SAMPLE_QC_FAIL",
+                                          "SAMPLE_QC_PASS", "LIBRARY_PREP_FINISHED", "DATA_AVAILABLE"].asImmutable()
+    static final Instant FIRST_STATUS_CHANGE = Instant.parse("2022-01-01T00:00:00Z")
+
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWX"
+    private static final String SYMBOLS = "0123456789" + LETTERS
+    private static final int MAX_SAMPLES_PER_PROJECT = 1000 * LETTERS.length()
+
+    final int projectCount
+    final int samplesPerProject
+
+    private final List<String> projectCodes
+    private final Map<String, List<SyntheticSample>> samples = new ConcurrentHashMap<>()
+
+    /**
+     * @param projectCount      the number of projects
+     * @param samplesPerProject the number of samples of every project
+     */
+    SyntheticProjects(int projectCount, int samplesPerProject) {
+        if (samplesPerProject > MAX_SAMPLES_PER_PROJECT) {
+            throw new IllegalArgumentException("At most ${MAX_SAMPLES_PER_PROJECT} samples per project are supported")
+        }
+        this.projectCount = projectCount
+        this.samplesPerProject = samplesPerProject
+        this.projectCodes = (0..<projectCount).collect { projectCode(it) }.asImmutable()
+    }
+
+    private static String projectCode(int index) {
+        StringBuilder code = new StringBuilder("Q")
+        int remaining = index
+        4.times {
+            code.insert(1, LETTERS[remaining % LETTERS.length()])
+            remaining = remaining.intdiv(LETTERS.length())
+        }
+        return code.toString()
+    }
+
+    /**
+     * @return the codes of all projects in ascending order
+     */
+    List<String> projectCodes() {
+        return projectCodes
+    }
+
+    /**
+     * @param projectCode the code of a project
+     * @return the samples of the project sorted by code, empty if the project does not exist
+     */
+    List<SyntheticSample> samplesOf(String projectCode) {
+        if (Collections.binarySearch(projectCodes, projectCode) < 0) {
+            return []
+        }
+        return samples.computeIfAbsent(projectCode, { String code ->
+            (0..<samplesPerProject).collect { generateSample(code, it) }.sort { it.code }.asImmutable()
+        })
+    }
+
+    /**
+     * @param sampleCode the code of a sample
+     * @return the sample or null if it does not exist
+     */
+    SyntheticSample sample(String sampleCode) {
+        if (sampleCode?.length() != 10) {
+            return null
+        }
+        List<SyntheticSample> projectSamples = samplesOf(sampleCode.substring(0, 5))
+        int low = 0
+        int high = projectSamples.size() - 1
+        while (low <= high) {
+            int middle = (low + high) >>> 1
+            int comparison = projectSamples[middle].code <=> sampleCode
+            if (comparison == 0) {
+                return projectSamples[middle]
+            }
+            if (comparison < 0) {
+                low = middle + 1
+            } else {
+                high = middle - 1
+            }
+        }
+        return null
+    }
+
+    /**
+     * @return the number of samples of all projects
+     */
+    long sampleCount() {
+        return (long) projectCount * samplesPerProject
+    }
+
+    private static SyntheticSample generateSample(String projectCode, int index) {
+        int suffix = index.intdiv(1000)
+        String code = String.format("%s%03d%s%s", projectCode, index % 1000, LETTERS[suffix],
+                SYMBOLS[(index * 7) % SYMBOLS.length()])
+        return new SyntheticSample(code,
+                "Sample ${index.intdiv(10)}".toString(),
+                SAMPLE_TYPES[index % SAMPLE_TYPES.size()],
+                STATUSES[index % STATUSES.size()],
+                FIRST_STATUS_CHANGE + Duration.ofMinutes(index))
+    }
+
+    /**
+     * <p>A generated sample</p>
+     *
+     * @since 1.2.0
+     */
+    static final class SyntheticSample {
+        final String code
+        final String label
+        final String sampleType
+        final String status
+        final Instant statusValidSince
+
+        SyntheticSample(String code, String label, String sampleType, String status, Instant statusValidSince) {
+            this.code = code
+            this.label = label
+            this.sampleType = sampleType
+            this.status = status
+            this.statusValidSince = statusValidSince
+        }
+
+        /**
+         * @return the sample as JSON object of the sample tracking service
+         */
+        String toJson() {
+            return """{"sampleCode": "${code}", "status": "${status}", "statusValidSince": "${statusValidSince}"}"""
+        }
+    }
+}
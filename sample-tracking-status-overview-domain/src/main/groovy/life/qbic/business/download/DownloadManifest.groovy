@@ -28,11 +28,23 @@ class DownloadManifest {
      */
     static DownloadManifest from(Collection<String> sampleCodes) {
         DownloadManifest downloadManifest = new DownloadManifest()
-        Collection<String> uniqueSampleCodes = sampleCodes.unique()
-        downloadManifest.sampleCodes.addAll(uniqueSampleCodes)
+        // the linked hash set keeps the first occurrence of each sample code
+        downloadManifest.sampleCodes.addAll(sampleCodes)
         return downloadManifest
     }
 
+    /**
+     * Creates a download manifest with the sample codes of this manifest that are contained in
+     * the provided subset. The order of the sample codes is kept.
+     * @param sampleCodes the sample codes the new manifest is limited to
+     * @return a DownloadManifest containing the selected sample codes
+     * @since 1.2.0
+     */
+    DownloadManifest restrictedTo(Collection<String> sampleCodes) {
+        Set<String> subset = new HashSet<>(sampleCodes)
+        return from(this.sampleCodes.findAll { subset.contains(it) })
+    }
+
     /**
      * list all sample codes associated directly to this manifest
      * @return a list of sample codes
@@ -14,11 +14,10 @@ class DownloadManifestFormatter {
      * @since 1.0.0
      */
     static String format(DownloadManifest downloadManifest) {
-        String result = downloadManifest.listSampleCodes().collect {formatSampleRow(it)}.sum("")
-        return result
-    }
-
-    private static String formatSampleRow(String sampleCode) {
-        return "${sampleCode}\n"
+        StringWriter result = new StringWriter()
+        new DownloadManifestWriter(result).withCloseable {
+            it.writeManifest(downloadManifest)
+        }
+        return result.toString()
     }
 }
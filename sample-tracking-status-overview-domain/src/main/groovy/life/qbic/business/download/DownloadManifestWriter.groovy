@@ -0,0 +1,77 @@
+package life.qbic.business.download
+
+import groovy.transform.CompileStatic
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * <b>Writes a download manifest while the sample codes are provided</b>
+ *
+ * <p>Each sample code is written on a single line as soon as it is provided, so the manifest
+ * never has to be held in memory as a whole. The writer does not remember the written codes;
+ * the caller provides each sample code once, e.g. from a {@link DownloadManifest} or from the
+ * samples of a project, which are unique by code.</p>
+ *
+ * @since 1.2.0
+ */
+@CompileStatic
+class DownloadManifestWriter implements Closeable {
+
+    private final Writer writer
+
+    /**
+     * Creates a writer writing the manifest to the provided writer
+     * @param writer the writer to write the manifest to
+     * @since 1.2.0
+     */
+    DownloadManifestWriter(Writer writer) {
+        this.writer = Objects.requireNonNull(writer)
+    }
+
+    /**
+     * Creates a writer writing the manifest UTF-8 encoded to the provided output stream
+     * @param outputStream the stream to write the manifest to
+     * @since 1.2.0
+     */
+    DownloadManifestWriter(OutputStream outputStream) {
+        this(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)))
+    }
+
+    /**
+     * Writes a sample code to the manifest
+     * @param sampleCode the sample code to write
+     * @since 1.2.0
+     */
+    void writeSampleCode(String sampleCode) throws IOException {
+        writer.write(sampleCode)
+        writer.write('\n')
+    }
+
+    /**
+     * Writes all sample codes of a download manifest. The manifest holds each sample code once.
+     * @param downloadManifest the manifest to write
+     * @since 1.2.0
+     */
+    void writeManifest(DownloadManifest downloadManifest) throws IOException {
+        for (String sampleCode : downloadManifest.listSampleCodes()) {
+            writeSampleCode(sampleCode)
+        }
+    }
+
+    /**
+     * Flushes the written sample codes to the underlying writer or stream
+     * @since 1.2.0
+     */
+    void flush() throws IOException {
+        writer.flush()
+    }
+
+    /**
+     * Flushes and closes the underlying writer or stream
+     * @since 1.2.0
+     */
+    @Override
+    void close() throws IOException {
+        writer.close()
+    }
+}
@@ -0,0 +1,108 @@
+package life.qbic.business.download
+
+import groovy.transform.CompileStatic
+
+import java.time.Instant
+
+/**
+ * <b>Limits the samples of a download manifest</b>
+ *
+ * <p>A manifest can be limited to samples whose status became valid after a cutoff, e.g. the
+ * last time the manifest was downloaded, and to an explicit subset of samples. A filter without
+ * limits includes all samples.</p>
+ *
+ * @since 1.2.0
+ */
+@CompileStatic
+final class ManifestFilter {
+
+    private static final ManifestFilter ALL = new ManifestFilter(null, null)
+
+    private final Instant statusValidAfter
+    private final Set<String> sampleCodes
+
+    private ManifestFilter(Instant statusValidAfter, Set<String> sampleCodes) {
+        this.statusValidAfter = statusValidAfter
+        this.sampleCodes = sampleCodes
+    }
+
+    /**
+     * A filter including all samples
+     * @return a filter without limits
+     * @since 1.2.0
+     */
+    static ManifestFilter all() {
+        return ALL
+    }
+
+    /**
+     * Limits the manifest to samples whose status became valid after the cutoff. Samples without
+     * a known status time are excluded.
+     * @param cutoff the exclusive lower bound of the status time
+     * @return a new filter with the additional limit
+     * @since 1.2.0
+     */
+    ManifestFilter withStatusValidAfter(Instant cutoff) {
+        return new ManifestFilter(Objects.requireNonNull(cutoff), sampleCodes)
+    }
+
+    /**
+     * Limits the manifest to the provided samples
+     * @param sampleCodes the sample codes the manifest may contain
+     * @return a new filter with the additional limit
+     * @since 1.2.0
+     */
+    ManifestFilter withSampleCodes(Collection<String> sampleCodes) {
+        Set<String> subset = Collections.unmodifiableSet(new HashSet<String>(sampleCodes))
+        return new ManifestFilter(statusValidAfter, subset)
+    }
+
+    /**
+     * Checks whether a sample belongs to the manifest
+     * @param sampleCode the code of the sample
+     * @param statusValidSince the time the current status of the sample became valid, can be null
+     * @return true if the sample passes all limits of this filter, false otherwise
+     * @since 1.2.0
+     */
+    boolean includes(String sampleCode, Instant statusValidSince) {
+        if (sampleCodes != null && !sampleCodes.contains(sampleCode)) {
+            return false
+        }
+        if (statusValidAfter == null) {
+            return true
+        }
+        return statusValidSince != null && statusValidSince.isAfter(statusValidAfter)
+    }
+
+    /**
+     * @return true if the filter has no limits and includes all samples, false otherwise
+     * @since 1.2.0
+     */
+    boolean includesAll() {
+        return statusValidAfter == null && sampleCodes == null
+    }
+
+    /**
+     * @return the exclusive lower bound of the status time, if the filter has one
+     * @since 1.2.0
+     */
+    Optional<Instant> statusValidAfter() {
+        return Optional.ofNullable(statusValidAfter)
+    }
+
+    /**
+     * @return the sample codes the manifest is limited to, if the filter has a subset
+     * @since 1.2.0
+     */
+    Optional<Set<String>> sampleCodes() {
+        return Optional.ofNullable(sampleCodes)
+    }
+
+    @Override
+    String toString() {
+        return "ManifestFilter{" +
+                "statusValidAfter=" + statusValidAfter +
+                ", sampleCodes=" + sampleCodes +
+                '}'
+    }
+}
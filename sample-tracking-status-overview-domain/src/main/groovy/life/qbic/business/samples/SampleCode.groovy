@@ -0,0 +1,202 @@
+package life.qbic.business.samples
+
+import groovy.transform.CompileStatic
+
+/**
+ * <b>A QBiC sample code packed into a single long</b>
+ *
+ * <p>A sample code consists of the letter Q, four characters of the project code, a three digit
+ * sample number and two characters of which the last one is a checksum, e.g. QABCD001A0. The
+ * nine characters following the Q are stored with six bits each, so a code fits into one long
+ * and can be used as key of primitive maps and sets.</p>
+ *
+ * <p>The packed codes sort in the same order as the codes. The project code is stored in the
+ * upper bits and can be read with {@link #projectKey(long)}.</p>
+ *
+ * <p>Validating and packing a code does not allocate any objects.</p>
+ *
+ * @since 1.2.0
+ */
+@CompileStatic
+final class SampleCode implements Comparable<SampleCode> {
+
+    /**
+     * The number of characters of a sample code
+     * @since 1.2.0
+     */
+    static final int LENGTH = 10
+
+    private static final int BITS_PER_CHARACTER = 6
+    private static final int CHARACTER_MASK = (1 << BITS_PER_CHARACTER) - 1
+    private static final int SAMPLE_PART_BITS = 5 * BITS_PER_CHARACTER
+    private static final int SYMBOL_COUNT = 34
+    private static final char PREFIX = 'Q' as char
+    private static final char DIGIT_0 = '0' as char
+    private static final char DIGIT_9 = '9' as char
+    private static final char LETTER_A = 'A' as char
+    private static final char LETTER_X = 'X' as char
+
+    private final long packed
+
+    private SampleCode(long packed) {
+        this.packed = packed
+    }
+
+    /**
+     * Checks whether the provided text is a valid sample code
+     * @param code the text to check
+     * @return true if the text is a sample code, false otherwise
+     * @since 1.2.0
+     */
+    static boolean isValid(CharSequence code) {
+        if (code == null || code.length() != LENGTH || code.charAt(0) != PREFIX) {
+            return false
+        }
+        for (int i = 1; i < LENGTH; i++) {
+            int symbol = symbolOf(code.charAt(i))
+            if (symbol < 0 || (isNumberPosition(i) && symbol > 9)) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /**
+     * Packs a sample code into a long
+     * @param code the sample code
+     * @return the packed sample code
+     * @throws IllegalArgumentException if the code is not a valid sample code
+     * @since 1.2.0
+     */
+    static long pack(CharSequence code) {
+        if (!isValid(code)) {
+            throw new IllegalArgumentException("Not a valid sample code: " + code)
+        }
+        long packed = 0L
+        for (int i = 1; i < LENGTH; i++) {
+            packed = (packed << BITS_PER_CHARACTER) | symbolOf(code.charAt(i))
+        }
+        return packed
+    }
+
+    /**
+     * Restores a sample code from its packed form
+     * @param packed a code packed with {@link #pack(CharSequence)}
+     * @return the sample code
+     * @throws IllegalArgumentException if the value is not a packed sample code
+     * @since 1.2.0
+     */
+    static String unpack(long packed) {
+        char[] characters = new char[LENGTH]
+        characters[0] = PREFIX
+        long remaining = packed
+        for (int i = LENGTH - 1; i > 0; i--) {
+            int symbol = (int) (remaining & CHARACTER_MASK)
+            if (symbol >= SYMBOL_COUNT || (isNumberPosition(i) && symbol > 9)) {
+                throw new IllegalArgumentException("Not a packed sample code: " + packed)
+            }
+            characters[i] = characterOf(symbol)
+            remaining = remaining >>> BITS_PER_CHARACTER
+        }
+        if (remaining != 0L) {
+            throw new IllegalArgumentException("Not a packed sample code: " + packed)
+        }
+        return new String(characters)
+    }
+
+    /**
+     * The project part of a packed sample code. Sample codes of the same project have the same
+     * project key.
+     * @param packed a code packed with {@link #pack(CharSequence)}
+     * @return the project key of the sample code
+     * @since 1.2.0
+     */
+    static long projectKey(long packed) {
+        return packed >>> SAMPLE_PART_BITS
+    }
+
+    /**
+     * Parses a sample code
+     * @param code the sample code
+     * @return the sample code
+     * @throws IllegalArgumentException if the code is not a valid sample code
+     * @since 1.2.0
+     */
+    static SampleCode parse(CharSequence code) {
+        return new SampleCode(pack(code))
+    }
+
+    /**
+     * Reads the project code of a sample code without packing it
+     * @param code the sample code
+     * @return the code of the project of the sample, e.g. QABCD
+     * @throws IllegalArgumentException if the code is not a valid sample code
+     * @since 1.2.0
+     */
+    static String projectCodeOf(CharSequence code) {
+        if (!isValid(code)) {
+            throw new IllegalArgumentException("Not a valid sample code: " + code)
+        }
+        return code.subSequence(0, 5).toString()
+    }
+
+    /**
+     * @return the sample code packed into a long
+     * @since 1.2.0
+     */
+    long packed() {
+        return packed
+    }
+
+    /**
+     * @return the code of the project of the sample, e.g. QABCD
+     * @since 1.2.0
+     */
+    String projectCode() {
+        return unpack(packed).substring(0, 5)
+    }
+
+    private static boolean isNumberPosition(int position) {
+        return position >= 5 && position <= 7
+    }
+
+    private static int symbolOf(char character) {
+        if (character >= DIGIT_0 && character <= DIGIT_9) {
+            return character - DIGIT_0
+        }
+        if (character >= LETTER_A && character <= LETTER_X) {
+            return character - LETTER_A + 10
+        }
+        return -1
+    }
+
+    private static char characterOf(int symbol) {
+        return (symbol < 10 ? DIGIT_0 + symbol : LETTER_A + symbol - 10) as char
+    }
+
+    @Override
+    int compareTo(SampleCode other) {
+        return Long.compare(packed, other.packed)
+    }
+
+    @Override
+    boolean equals(Object o) {
+        if (this.is(o)) {
+            return true
+        }
+        if (!(o instanceof SampleCode)) {
+            return false
+        }
+        return packed == ((SampleCode) o).packed
+    }
+
+    @Override
+    int hashCode() {
+        return Long.hashCode(packed)
+    }
+
+    @Override
+    String toString() {
+        return unpack(packed)
+    }
+}